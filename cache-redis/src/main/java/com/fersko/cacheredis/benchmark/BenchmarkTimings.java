@@ -0,0 +1,32 @@
+package com.fersko.cacheredis.benchmark;
+
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+public final class BenchmarkTimings {
+    
+    private static final int WARM_UP_ITERATIONS = 50;
+    
+    private BenchmarkTimings() {
+    }
+    
+    public static void append(StringBuilder result, String name, IntSupplier operation, int iterations) {
+        int found = operation.getAsInt();
+        for (int i = 0; i < Math.min(iterations, WARM_UP_ITERATIONS); i++) {
+            operation.getAsInt();
+        }
+        
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.getAsInt();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double average = Arrays.stream(nanos).average().orElse(0);
+        long p99 = nanos[Math.min(iterations - 1, (int) Math.ceil(iterations * 0.99) - 1)];
+        
+        result.append(String.format("  %-6s найдено=%3d  avg=%9.3f µs  p99=%9.3f µs%n",
+                name, found, average / 1000.0, p99 / 1000.0));
+    }
+}
@@ -0,0 +1,35 @@
+package com.fersko.cacheredis.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public record CacheEnvelope(
+        Object value,
+        long loadMillis,
+        long expiresAtMillis
+) {
+    
+    public static CacheEnvelope of(Object value, long loadMillis, long expiresAtMillis) {
+        // List.toList() даёт ImmutableCollections, которые Jackson не восстанавливает из Redis
+        Object storable = value instanceof List<?> list && !(list instanceof ArrayList<?>)
+                ? new ArrayList<>(list)
+                : value;
+        return new CacheEnvelope(storable, loadMillis, expiresAtMillis);
+    }
+    
+    public static CacheEnvelope wrap(Object stored) {
+        if (stored instanceof CacheEnvelope envelope) {
+            return envelope;
+        }
+        return new CacheEnvelope(stored, 0, Long.MAX_VALUE);
+    }
+    
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+    
+    public Duration remainingTtl(long nowMillis) {
+        return Duration.ofMillis(Math.max(1, expiresAtMillis - nowMillis));
+    }
+}
@@ -0,0 +1,49 @@
+package com.fersko.cacheredis.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+public record CacheExpiryPolicy(
+        Duration ttl,
+        double ttlJitter,
+        boolean earlyRefresh,
+        double beta
+) {
+    
+    public static CacheExpiryPolicy fixed(Duration ttl) {
+        return new CacheExpiryPolicy(ttl, 0.0, false, 1.0);
+    }
+    
+    public CacheExpiryPolicy withJitter(double ttlJitter) {
+        return new CacheExpiryPolicy(ttl, ttlJitter, earlyRefresh, beta);
+    }
+    
+    public CacheExpiryPolicy withEarlyRefresh(double beta) {
+        return new CacheExpiryPolicy(ttl, ttlJitter, true, beta);
+    }
+    
+    public long nextExpiresAt(long nowMillis) {
+        long ttlMillis = ttl.toMillis();
+        if (ttlJitter > 0) {
+            double factor = 1.0 + ThreadLocalRandom.current().nextDouble(-ttlJitter, ttlJitter);
+            ttlMillis = (long) (ttlMillis * factor);
+        }
+        return nowMillis + ttlMillis;
+    }
+    
+    public boolean shouldRefreshEarly(CacheEnvelope envelope, long nowMillis) {
+        if (!earlyRefresh || envelope.expiresAtMillis() == Long.MAX_VALUE) {
+            return false;
+        }
+        double delta = Math.max(1, envelope.loadMillis());
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return nowMillis - delta * beta * Math.log(random) >= envelope.expiresAtMillis();
+    }
+    
+    public Duration timeToLive(Object value) {
+        if (value instanceof CacheEnvelope envelope && envelope.expiresAtMillis() != Long.MAX_VALUE) {
+            return envelope.remainingTtl(System.currentTimeMillis());
+        }
+        return ttl;
+    }
+}
@@ -0,0 +1,44 @@
+package com.fersko.cacheredis.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationListener implements MessageListener {
+    
+    private final TwoLevelCacheManager cacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final ObjectMapper objectMapper;
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationMessage invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), CacheInvalidationMessage.class);
+        } catch (IOException e) {
+            log.warn("Некорректное сообщение инвалидации: {}", new String(message.getBody()), e);
+            return;
+        }
+        
+        if (invalidationPublisher.isLocal(invalidation)) {
+            return;
+        }
+        
+        if (invalidation.isClear()) {
+            log.debug("L1: очистка {} по сигналу узла {}", invalidation.cacheName(), invalidation.origin());
+            cacheManager.clearLocal(invalidation.cacheName());
+        } else {
+            log.debug("L1: удаление {}::{} по сигналу узла {}",
+                    invalidation.cacheName(), invalidation.key(), invalidation.origin());
+            cacheManager.evictLocal(invalidation.cacheName(), invalidation.key());
+        }
+    }
+}
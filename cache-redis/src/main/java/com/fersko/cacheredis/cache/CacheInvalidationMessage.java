@@ -0,0 +1,12 @@
+package com.fersko.cacheredis.cache;
+
+public record CacheInvalidationMessage(
+        String origin,
+        String cacheName,
+        String key
+) {
+    
+    public boolean isClear() {
+        return key == null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.fersko.cacheredis.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationPublisher {
+    
+    public static final String CHANNEL = "cache:invalidation";
+    
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    public void publishEvict(String cacheName, String key) {
+        publish(new CacheInvalidationMessage(nodeId, cacheName, key));
+    }
+    
+    public void publishClear(String cacheName) {
+        publish(new CacheInvalidationMessage(nodeId, cacheName, null));
+    }
+    
+    public boolean isLocal(CacheInvalidationMessage message) {
+        return nodeId.equals(message.origin());
+    }
+    
+    private void publish(CacheInvalidationMessage message) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.warn("Не удалось отправить инвалидацию L1 для {}::{}", message.cacheName(), message.key(), e);
+        }
+    }
+}
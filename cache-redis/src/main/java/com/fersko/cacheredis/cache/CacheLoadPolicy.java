@@ -0,0 +1,27 @@
+package com.fersko.cacheredis.cache;
+
+import java.time.Duration;
+
+public record CacheLoadPolicy(
+        boolean singleFlight,
+        boolean distributedLock,
+        Duration leaseTime,
+        Duration lockWait,
+        boolean serveStale,
+        Duration staleTtl
+) {
+    
+    public static final CacheLoadPolicy DEFAULT = singleFlightOnly();
+    
+    public static CacheLoadPolicy singleFlightOnly() {
+        return new CacheLoadPolicy(true, false, Duration.ZERO, Duration.ZERO, false, Duration.ZERO);
+    }
+    
+    public static CacheLoadPolicy distributed(Duration leaseTime, Duration lockWait) {
+        return new CacheLoadPolicy(true, true, leaseTime, lockWait, false, Duration.ZERO);
+    }
+    
+    public CacheLoadPolicy withStaleFallback(Duration staleTtl) {
+        return new CacheLoadPolicy(singleFlight, distributedLock, leaseTime, lockWait, true, staleTtl);
+    }
+}
@@ -0,0 +1,109 @@
+package com.fersko.cacheredis.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class CacheLoadStatistics {
+    
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder lockAcquired = new LongAdder();
+    private final LongAdder lockContended = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder lockWaitTimeouts = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    
+    void recordLocalHit() {
+        localHits.increment();
+    }
+    
+    void recordRemoteHit() {
+        remoteHits.increment();
+    }
+    
+    void recordMiss() {
+        misses.increment();
+    }
+    
+    void recordPuts(long count) {
+        puts.add(count);
+    }
+    
+    void recordEviction() {
+        evictions.increment();
+    }
+    
+    void recordLoad() {
+        loads.increment();
+    }
+    
+    void recordCoalescedLoad() {
+        coalescedLoads.increment();
+    }
+    
+    void recordLockAcquired() {
+        lockAcquired.increment();
+    }
+    
+    void recordLockContended() {
+        lockContended.increment();
+    }
+    
+    void recordStaleServed() {
+        staleServed.increment();
+    }
+    
+    void recordLockWaitTimeout() {
+        lockWaitTimeouts.increment();
+    }
+    
+    void recordEarlyRefresh() {
+        earlyRefreshes.increment();
+    }
+    
+    public Snapshot snapshot() {
+        return new Snapshot(
+                localHits.sum(),
+                remoteHits.sum(),
+                misses.sum(),
+                puts.sum(),
+                evictions.sum(),
+                loads.sum(),
+                coalescedLoads.sum(),
+                lockAcquired.sum(),
+                lockContended.sum(),
+                staleServed.sum(),
+                lockWaitTimeouts.sum(),
+                earlyRefreshes.sum()
+        );
+    }
+    
+    public record Snapshot(
+            long localHits,
+            long remoteHits,
+            long misses,
+            long puts,
+            long evictions,
+            long loads,
+            long coalescedLoads,
+            long lockAcquired,
+            long lockContended,
+            long staleServed,
+            long lockWaitTimeouts,
+            long earlyRefreshes
+    ) {
+        
+        public long hits() {
+            return localHits + remoteHits;
+        }
+        
+        public double hitRatio() {
+            long requests = hits() + misses;
+            return requests == 0 ? 0 : (double) hits() / requests;
+        }
+    }
+}
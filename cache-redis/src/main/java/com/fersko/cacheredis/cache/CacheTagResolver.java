@@ -0,0 +1,15 @@
+package com.fersko.cacheredis.cache;
+
+import java.util.Set;
+
+@FunctionalInterface
+public interface CacheTagResolver {
+    
+    CacheTagResolver NONE = value -> Set.of();
+    
+    Set<String> tagsOf(Object value);
+    
+    default Set<String> taggedCacheNames() {
+        return Set.of();
+    }
+}
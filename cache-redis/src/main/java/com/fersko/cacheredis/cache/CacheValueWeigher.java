@@ -0,0 +1,81 @@
+package com.fersko.cacheredis.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+public final class CacheValueWeigher implements Weigher<Object, Object> {
+    
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int UNKNOWN_OBJECT = 64;
+    
+    private static final ClassValue<RecordComponent[]> RECORD_COMPONENTS = new ClassValue<>() {
+        @Override
+        protected RecordComponent[] computeValue(Class<?> type) {
+            return type.getRecordComponents();
+        }
+    };
+    
+    @Override
+    public int weigh(Object key, Object value) {
+        return (int) Math.min(Integer.MAX_VALUE, estimate(key) + estimate(value));
+    }
+    
+    static long estimate(Object value) {
+        return switch (value) {
+            case null -> 0;
+            case CacheEnvelope envelope -> OBJECT_HEADER + REFERENCE + 2 * Long.BYTES + estimate(envelope.value());
+            case String string -> 40 + 2L * string.length();
+            case UUID uuid -> 32;
+            case BigDecimal decimal -> 40 + 4L * (decimal.unscaledValue().bitLength() / 32 + 1);
+            case OffsetDateTime dateTime -> 96;
+            case LocalDateTime dateTime -> 72;
+            case Instant instant -> 24;
+            case Number number -> 24;
+            case Boolean bool -> 0;
+            case Enum<?> constant -> 0;
+            case Collection<?> collection -> estimateCollection(collection);
+            case Map<?, ?> map -> estimateMap(map);
+            case Record record -> estimateRecord(record);
+            default -> UNKNOWN_OBJECT;
+        };
+    }
+    
+    private static long estimateCollection(Collection<?> collection) {
+        long bytes = 40 + (long) collection.size() * REFERENCE;
+        for (Object element : collection) {
+            bytes += estimate(element);
+        }
+        return bytes;
+    }
+    
+    private static long estimateMap(Map<?, ?> map) {
+        long bytes = 48 + (long) map.size() * (32 + REFERENCE);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            bytes += estimate(entry.getKey()) + estimate(entry.getValue());
+        }
+        return bytes;
+    }
+    
+    private static long estimateRecord(Record record) {
+        RecordComponent[] components = RECORD_COMPONENTS.get(record.getClass());
+        long bytes = OBJECT_HEADER + (long) components.length * REFERENCE;
+        for (RecordComponent component : components) {
+            try {
+                bytes += estimate(component.getAccessor().invoke(record));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                bytes += UNKNOWN_OBJECT;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,33 @@
+package com.fersko.cacheredis.cache;
+
+import com.fersko.cacheredis.config.WarmUpProperties;
+import com.fersko.cacheredis.dto.WarmUpProgressDto;
+import com.fersko.cacheredis.service.CacheWarmUpService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+@Component("cacheWarmUp")
+@RequiredArgsConstructor
+public class CacheWarmUpHealthIndicator implements HealthIndicator {
+    
+    private final CacheWarmUpService cacheWarmUpService;
+    private final WarmUpProperties properties;
+    
+    @Override
+    public Health health() {
+        WarmUpProgressDto progress = cacheWarmUpService.getProgress();
+        boolean pending = "IDLE".equals(progress.state()) || "RUNNING".equals(progress.state());
+        Health.Builder health = properties.enabled() && properties.blockReadiness() && pending
+                ? Health.outOfService()
+                : Health.up();
+        health.withDetail("state", progress.state())
+                .withDetail("warm", cacheWarmUpService.isWarm())
+                .withDetail("totalEntries", progress.totalEntries());
+        if (progress.error() != null) {
+            health.withDetail("error", progress.error());
+        }
+        return health.build();
+    }
+}
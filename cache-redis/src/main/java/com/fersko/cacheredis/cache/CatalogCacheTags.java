@@ -0,0 +1,39 @@
+package com.fersko.cacheredis.cache;
+
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+public class CatalogCacheTags implements CacheTagResolver {
+    
+    private static final Set<String> TAGGED_CACHES = Set.of("categories", "products", "searchResults");
+    
+    public static String category(UUID categoryId) {
+        return "category:" + categoryId;
+    }
+    
+    @Override
+    public Set<String> tagsOf(Object value) {
+        return switch (value) {
+            case CategoryDto category when category.id() != null -> Set.of(category(category.id()));
+            case ProductDto product when product.categoryId() != null -> Set.of(category(product.categoryId()));
+            case Collection<?> values -> {
+                Set<String> tags = new HashSet<>();
+                values.forEach(element -> tags.addAll(tagsOf(element)));
+                yield tags;
+            }
+            case null, default -> Set.of();
+        };
+    }
+    
+    @Override
+    public Set<String> taggedCacheNames() {
+        return TAGGED_CACHES;
+    }
+}
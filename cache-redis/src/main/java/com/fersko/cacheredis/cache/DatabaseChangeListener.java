@@ -0,0 +1,361 @@
+package com.fersko.cacheredis.cache;
+
+import com.fersko.cacheredis.config.ChangeNotificationProperties;
+import com.fersko.cacheredis.dto.ProductDto;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import com.fersko.cacheredis.lookup.NegativeLookupGuard;
+import com.fersko.cacheredis.pricing.PriceCatalog;
+import com.fersko.cacheredis.repository.ProductPriceRepository;
+import com.fersko.cacheredis.repository.ProductRepository;
+import com.fersko.cacheredis.search.ProductSearchIndex;
+import com.fersko.cacheredis.web.ResourceVersions;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+public class DatabaseChangeListener implements SmartLifecycle {
+    
+    public static final String CHANNEL = "cache_changes";
+    
+    private static final String RESYNC_LEASE_KEY = "lock:change-resync";
+    
+    private final DataSource dataSource;
+    private final TwoLevelCacheManager cacheManager;
+    private final PriceCatalog priceCatalog;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductRepository productRepository;
+    private final ProductPriceRepository productPriceRepository;
+    private final NegativeLookupGuard lookupGuard;
+    private final ResourceVersions resourceVersions;
+    private final DistributedLoadLock resyncLock;
+    private final ChangeNotificationProperties properties;
+    
+    private final LongAdder received = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    
+    private volatile boolean running;
+    private volatile boolean subscribed;
+    private Thread listener;
+    
+    public DatabaseChangeListener(DataSource dataSource,
+                                  TwoLevelCacheManager cacheManager,
+                                  PriceCatalog priceCatalog,
+                                  ProductSearchIndex productSearchIndex,
+                                  ProductRepository productRepository,
+                                  ProductPriceRepository productPriceRepository,
+                                  NegativeLookupGuard lookupGuard,
+                                  ResourceVersions resourceVersions,
+                                  DistributedLoadLock resyncLock,
+                                  ChangeNotificationProperties properties) {
+        this.dataSource = dataSource;
+        this.cacheManager = cacheManager;
+        this.priceCatalog = priceCatalog;
+        this.productSearchIndex = productSearchIndex;
+        this.productRepository = productRepository;
+        this.productPriceRepository = productPriceRepository;
+        this.lookupGuard = lookupGuard;
+        this.resourceVersions = resourceVersions;
+        this.resyncLock = resyncLock;
+        this.properties = properties;
+    }
+    
+    @Override
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        running = true;
+        listener = Thread.ofPlatform().name("db-change-listener").daemon().start(this::listenLoop);
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        setSubscribed(false);
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.join(properties.pollTimeout().toMillis() * 4);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    public boolean isSubscribed() {
+        return subscribed;
+    }
+    
+    public Statistics getStatistics() {
+        return new Statistics(received.sum(), batches.sum());
+    }
+    
+    private void listenLoop() {
+        boolean resync = false;
+        while (running) {
+            try (Connection connection = openConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Подписка на изменения БД: канал {}", CHANNEL);
+                resourceVersions.bumpEpoch();
+                lookupGuard.onChangesSubscription(true);
+                if (resync) {
+                    resync();
+                }
+                lookupGuard.rebuildIfBehind();
+                setSubscribed(true);
+                receive(connection.unwrap(PGConnection.class));
+            } catch (SQLException | RuntimeException e) {
+                setSubscribed(false);
+                if (!running) {
+                    return;
+                }
+                log.warn("Подписка на изменения БД прервана, переподключение через {}",
+                        properties.reconnectBackoff(), e);
+                resync = true;
+                sleep(properties.reconnectBackoff().toMillis());
+            }
+        }
+    }
+    
+    private void receive(PGConnection connection) throws SQLException {
+        Set<DatabaseChange> pending = new LinkedHashSet<>();
+        long flushAt = 0;
+        while (running) {
+            long timeout = pending.isEmpty()
+                    ? properties.pollTimeout().toMillis()
+                    : Math.max(1, (flushAt - System.nanoTime()) / 1_000_000);
+            PGNotification[] notifications = connection.getNotifications((int) timeout);
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    DatabaseChange change = DatabaseChange.parse(notification.getParameter());
+                    if (change == null) {
+                        log.warn("Некорректное уведомление об изменении: {}", notification.getParameter());
+                        continue;
+                    }
+                    if (pending.isEmpty()) {
+                        flushAt = System.nanoTime() + properties.batchWindow().toNanos();
+                    }
+                    pending.add(change);
+                }
+                received.add(notifications.length);
+            }
+            if (!pending.isEmpty() && (pending.size() >= properties.maxBatchSize() || System.nanoTime() >= flushAt)) {
+                applyOrResync(pending);
+                pending = new LinkedHashSet<>();
+            }
+        }
+    }
+    
+    // ошибка пакета не рвёт подписку: иначе переподключение превратило бы сбой Redis в полный resync
+    private void applyOrResync(Set<DatabaseChange> changes) {
+        try {
+            apply(changes);
+        } catch (RuntimeException e) {
+            log.error("Изменения БД: пакет из {} событий применён не полностью, L1 и индексы пересобираются",
+                    changes.size(), e);
+            resyncLocal();
+        }
+    }
+    
+    private void apply(Set<DatabaseChange> changes) {
+        Map<String, Set<String>> evictions = new HashMap<>();
+        Map<String, Set<UUID>> changedPrices = new HashMap<>();
+        Map<Long, Set<UUID>> changedInventory = new HashMap<>();
+        Set<UUID> changedProducts = new HashSet<>();
+        Set<UUID> changedCategories = new HashSet<>();
+        Set<String> changedSlugs = new HashSet<>();
+        Set<String> changedTags = new HashSet<>();
+        Set<String> changedResources = new HashSet<>();
+        boolean searchChanged = false;
+        
+        for (DatabaseChange change : changes) {
+            try {
+                String[] parts = change.key().split(":", 2);
+                switch (change.table()) {
+                    case "product" -> {
+                        changedProducts.add(UUID.fromString(change.key()));
+                        searchChanged = true;
+                    }
+                    case "category" -> {
+                        UUID categoryId = UUID.fromString(parts[0]);
+                        changedCategories.add(categoryId);
+                        evictions.computeIfAbsent("categories", name -> new HashSet<>()).add("all");
+                        if (parts.length > 1) {
+                            changedSlugs.add(parts[1]);
+                            lookupGuard.recordSlug(parts[1]);
+                        }
+                        changedTags.add(CatalogCacheTags.category(categoryId));
+                        searchChanged |= "I".equals(change.operation());
+                    }
+                    case "product_price" -> changedPrices.computeIfAbsent(parts[1], currency -> new HashSet<>())
+                            .add(UUID.fromString(parts[0]));
+                    case "inventory" -> changedInventory
+                            .computeIfAbsent(Long.valueOf(parts[1]), id -> new HashSet<>())
+                            .add(UUID.fromString(parts[0]));
+                    case "product_availability" ->
+                            evictions.computeIfAbsent("availability", name -> new HashSet<>()).add(change.key());
+                    case "review_rating_summary" ->
+                            evictions.computeIfAbsent("ratingSummaries", name -> new HashSet<>()).add(change.key());
+                    default -> log.debug("Изменение таблицы {} не влияет на кэши", change.table());
+                }
+                changedResources.add(change.table());
+                changedResources.add(change.table() + ":" + parts[0]);
+            } catch (RuntimeException e) {
+                log.warn("Некорректный ключ в уведомлении об изменении {}, событие пропущено", change, e);
+            }
+        }
+        
+        changedCategories.forEach(categoryId -> evictions.computeIfAbsent("categories", name -> new HashSet<>())
+                .add(categoryId.toString()));
+        changedSlugs.forEach(slug -> evictions.computeIfAbsent("categories", name -> new HashSet<>())
+                .add("slug:" + slug));
+        changedProducts.forEach(productId -> evictions.computeIfAbsent("products", name -> new HashSet<>())
+                .add(productId.toString()));
+        changedPrices.forEach((currency, productIds) -> productIds.forEach(productId ->
+                evictions.computeIfAbsent("prices", name -> new HashSet<>()).add(productId + ":" + currency)));
+        changedInventory.forEach((warehouseId, productIds) -> productIds.forEach(productId ->
+                evictions.computeIfAbsent("inventory", name -> new HashSet<>()).add(productId + ":" + warehouseId)));
+        
+        // L2 только удаляем: DEL идемпотентен, а запись из разных узлов могла бы вернуть старую строку
+        evictions.forEach((cacheName, keys) -> cacheManager.getCache(cacheName).evictAll(keys, false));
+        if (!changedTags.isEmpty()) {
+            cacheManager.evictByTags(changedTags, false);
+        }
+        if (searchChanged) {
+            cacheManager.getCache("searchResults").clear(false);
+        }
+        if (!changedProducts.isEmpty()) {
+            refreshProductLookups(changedProducts);
+        }
+        if (!changedPrices.isEmpty()) {
+            refreshPriceCatalog(changedPrices);
+        }
+        
+        resourceVersions.bump(changedResources);
+        
+        batches.increment();
+        log.debug("Изменения БД: применено {} событий, кэши {}", changes.size(), evictions.keySet());
+    }
+    
+    private void refreshProductLookups(Set<UUID> productIds) {
+        if (!productSearchIndex.isReady() && !lookupGuard.isReady()) {
+            return;
+        }
+        List<ProductDto> products = productRepository.findDtosByIds(productIds);
+        lookupGuard.recordProducts(products);
+        if (productSearchIndex.isReady()) {
+            productSearchIndex.indexAll(products);
+            Set<UUID> removed = new HashSet<>(productIds);
+            products.forEach(product -> removed.remove(product.id()));
+            removed.forEach(productSearchIndex::remove);
+        }
+    }
+    
+    private void refreshPriceCatalog(Map<String, Set<UUID>> productIdsByCurrency) {
+        if (!priceCatalog.isReady()) {
+            return;
+        }
+        Map<String, List<ProductPriceDto>> found = new HashMap<>();
+        Map<String, Set<UUID>> missing = new HashMap<>();
+        productIdsByCurrency.forEach((currency, productIds) -> {
+            List<ProductPriceDto> prices = productPriceRepository.findDtosByProductIdsAndCurrency(productIds, currency);
+            found.put(currency, prices);
+            Set<UUID> absent = new HashSet<>(productIds);
+            prices.forEach(price -> absent.remove(price.productId()));
+            missing.put(currency, absent);
+        });
+        priceCatalog.refresh(found, missing);
+    }
+    
+    private void resync() {
+        log.warn("Изменения БД могли быть пропущены во время переподключения, L1 и индексы пересобираются");
+        clearRemoteOnce();
+        resyncLocal();
+    }
+    
+    // L2 общий для всех узлов: его очищает первый переподключившийся узел, остальные в окне lease только L1
+    private void clearRemoteOnce() {
+        String token;
+        try {
+            token = resyncLock.tryAcquire(RESYNC_LEASE_KEY, properties.resyncLease());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось взять lease {}, L2 после переподключения не очищается", RESYNC_LEASE_KEY, e);
+            return;
+        }
+        if (token == null) {
+            log.info("L2 уже очищен другим узлом после переподключения, очищается только L1");
+            return;
+        }
+        log.warn("Очистка L2 после переподключения, узлы получат сигнал очистить L1");
+        cacheManager.getCacheNames().forEach(cacheName -> cacheManager.getCache(cacheName).clear(true));
+    }
+    
+    private void resyncLocal() {
+        cacheManager.getCacheNames().forEach(cacheManager::clearLocal);
+        if (priceCatalog.isReady()) {
+            priceCatalog.rebuild();
+        }
+        if (productSearchIndex.isReady()) {
+            productSearchIndex.rebuild();
+        }
+    }
+    
+    private void setSubscribed(boolean subscribed) {
+        this.subscribed = subscribed;
+        priceCatalog.onChangesSubscription(subscribed);
+        lookupGuard.onChangesSubscription(subscribed);
+    }
+    
+    private Connection openConnection() throws SQLException {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        return DriverManager.getConnection(hikari.getJdbcUrl(), hikari.getUsername(), hikari.getPassword());
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    record DatabaseChange(String table, String operation, String key) {
+        
+        static DatabaseChange parse(String payload) {
+            String[] parts = payload.split("\\|", 3);
+            if (parts.length < 3 || parts[2].isEmpty()) {
+                return null;
+            }
+            return new DatabaseChange(parts[0], parts[1], parts[2]);
+        }
+    }
+    
+    public record Statistics(long received, long batches) {
+    }
+}
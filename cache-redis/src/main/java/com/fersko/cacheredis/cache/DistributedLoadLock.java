@@ -0,0 +1,36 @@
+package com.fersko.cacheredis.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class DistributedLoadLock {
+    
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    public String tryAcquire(String lockKey, Duration leaseTime) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(lockKey, token, leaseTime);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+    
+    public void release(String lockKey, String token) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey), token);
+    }
+    
+    public static String lockKey(String cacheName, String cacheKey) {
+        return "lock:" + cacheName + "::" + cacheKey;
+    }
+}
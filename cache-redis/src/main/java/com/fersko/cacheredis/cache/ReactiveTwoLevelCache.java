@@ -0,0 +1,105 @@
+package com.fersko.cacheredis.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReactiveTwoLevelCache {
+    
+    private final TwoLevelCacheManager cacheManager;
+    private final ReactiveRedisTemplate<String, Object> cacheReactiveRedisTemplate;
+    
+    private final ConcurrentMap<String, Mono<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(String cacheName, Object key, Supplier<Mono<T>> loader) {
+        TwoLevelCache cache = cacheManager.getCache(cacheName);
+        String cacheKey = TwoLevelCache.toCacheKey(key);
+        
+        CacheEnvelope local = cache.lookupLocal(cacheKey);
+        if (local != null) {
+            return Mono.just((T) local.value());
+        }
+        
+        String redisKey = RedisCacheBulkOperations.redisKey(cacheName, cacheKey);
+        return Mono.defer(() -> {
+            AtomicReference<Mono<Object>> self = new AtomicReference<>();
+            Mono<Object> load = lookupRemoteOrLoad(cache, cacheKey, redisKey, loader)
+                    .doFinally(signal -> inFlightLoads.remove(redisKey, self.get()))
+                    .cache();
+            self.set(load);
+            Mono<Object> inFlight = inFlightLoads.putIfAbsent(redisKey, load);
+            if (inFlight != null) {
+                cache.getLoadStatistics().recordCoalescedLoad();
+                return inFlight;
+            }
+            return load;
+        }).map(value -> (T) value);
+    }
+    
+    public <T> Flux<T> getList(String cacheName, Object key, Supplier<Flux<T>> loader) {
+        return get(cacheName, key, () -> loader.get().collectList())
+                .flatMapMany(Flux::fromIterable);
+    }
+    
+    private Mono<Object> lookupRemoteOrLoad(TwoLevelCache cache,
+                                            String cacheKey,
+                                            String redisKey,
+                                            Supplier<? extends Mono<?>> loader) {
+        return cacheReactiveRedisTemplate.opsForValue().get(redisKey)
+                .map(CacheEnvelope::wrap)
+                .filter(envelope -> !envelope.isExpired(System.currentTimeMillis()))
+                .onErrorResume(e -> {
+                    log.warn("L2: ошибка реактивного чтения {}, переходим к загрузке", redisKey, e);
+                    return Mono.empty();
+                })
+                .doOnNext(envelope -> {
+                    cache.getLoadStatistics().recordRemoteHit();
+                    cache.storeLocal(cacheKey, envelope);
+                })
+                .map(CacheEnvelope::value)
+                .switchIfEmpty(Mono.defer(() -> {
+                    cache.getLoadStatistics().recordMiss();
+                    return load(cache, cacheKey, redisKey, loader);
+                }));
+    }
+    
+    private Mono<Object> load(TwoLevelCache cache,
+                              String cacheKey,
+                              String redisKey,
+                              Supplier<? extends Mono<?>> loader) {
+        long startedAt = System.nanoTime();
+        return loader.get().flatMap(value -> {
+            long loadNanos = System.nanoTime() - startedAt;
+            cache.recordLoad(loadNanos);
+            
+            CacheExpiryPolicy expiryPolicy = cache.getExpiryPolicy();
+            CacheEnvelope envelope = CacheEnvelope.of(value, loadNanos / 1_000_000,
+                    expiryPolicy.nextExpiresAt(System.currentTimeMillis()));
+            cache.storeLocal(cacheKey, envelope);
+            
+            return Mono.fromRunnable(() -> cache.indexTags(Map.of(cacheKey, envelope)))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .then(cacheReactiveRedisTemplate.opsForValue()
+                            .set(redisKey, envelope, expiryPolicy.timeToLive(envelope)))
+                    .onErrorResume(e -> {
+                        log.warn("L2: не удалось реактивно записать {}", redisKey, e);
+                        return Mono.just(false);
+                    })
+                    .thenReturn(envelope.value());
+        });
+    }
+}
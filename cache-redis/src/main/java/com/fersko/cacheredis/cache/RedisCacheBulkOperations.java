@@ -0,0 +1,148 @@
+package com.fersko.cacheredis.cache;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+public class RedisCacheBulkOperations {
+    
+    private static final String TAG_PREFIX = "tag::";
+    
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisSerializer<Object> valueSerializer;
+    
+    public RedisCacheBulkOperations(RedisConnectionFactory connectionFactory, RedisSerializer<Object> valueSerializer) {
+        this.connectionFactory = connectionFactory;
+        this.valueSerializer = valueSerializer;
+    }
+    
+    public void putAll(String cacheName, Map<String, ?> values, Function<Object, Duration> timeToLive) {
+        if (values.isEmpty()) {
+            return;
+        }
+        
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            values.forEach((key, value) -> connection.stringCommands().set(
+                    rawKey(cacheName, key),
+                    valueSerializer.serialize(value),
+                    Expiration.from(timeToLive.apply(value)),
+                    RedisStringCommands.SetOption.upsert()));
+            connection.closePipeline();
+        }
+    }
+    
+    public Map<String, Object> getAll(String cacheName, List<String> keys) {
+        Map<String, Object> values = new HashMap<>();
+        if (keys.isEmpty()) {
+            return values;
+        }
+        
+        byte[][] rawKeys = keys.stream().map(key -> rawKey(cacheName, key)).toArray(byte[][]::new);
+        List<byte[]> rawValues;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            rawValues = connection.stringCommands().mGet(rawKeys);
+        }
+        if (rawValues == null) {
+            return values;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] rawValue = rawValues.get(i);
+            if (rawValue != null) {
+                values.put(keys.get(i), valueSerializer.deserialize(rawValue));
+            }
+        }
+        return values;
+    }
+    
+    public void deleteAll(String cacheName, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        
+        byte[][] rawKeys = keys.stream().map(key -> rawKey(cacheName, key)).toArray(byte[][]::new);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.keyCommands().del(rawKeys);
+        }
+    }
+    
+    public void addTags(String cacheName, Map<String, Set<String>> tagsByKey, Duration timeToLive) {
+        if (tagsByKey.isEmpty()) {
+            return;
+        }
+        
+        Set<String> tags = new HashSet<>();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            tagsByKey.forEach((key, keyTags) -> {
+                byte[] member = rawKey(cacheName, key);
+                for (String tag : keyTags) {
+                    connection.setCommands().sAdd(rawTagKey(tag), member);
+                    tags.add(tag);
+                }
+            });
+            tags.forEach(tag -> connection.keyCommands().expire(rawTagKey(tag), timeToLive.toSeconds()));
+            connection.closePipeline();
+        }
+    }
+    
+    public Map<String, Set<String>> drainTags(Collection<String> tags) {
+        Map<String, Set<String>> keysByCache = new HashMap<>();
+        if (tags.isEmpty()) {
+            return keysByCache;
+        }
+        
+        List<String> distinctTags = List.copyOf(new LinkedHashSet<>(tags));
+        byte[][] rawTagKeys = distinctTags.stream().map(RedisCacheBulkOperations::rawTagKey).toArray(byte[][]::new);
+        List<Object> results;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.multi();
+            for (byte[] rawTagKey : rawTagKeys) {
+                connection.setCommands().sMembers(rawTagKey);
+            }
+            connection.keyCommands().del(rawTagKeys);
+            results = connection.exec();
+        }
+        if (results == null) {
+            return keysByCache;
+        }
+        
+        for (int i = 0; i < distinctTags.size(); i++) {
+            if (!(results.get(i) instanceof Collection<?> members)) {
+                continue;
+            }
+            for (Object member : members) {
+                String redisKey = new String((byte[]) member, StandardCharsets.UTF_8);
+                int separator = redisKey.indexOf("::");
+                keysByCache.computeIfAbsent(redisKey.substring(0, separator), name -> new HashSet<>())
+                        .add(redisKey.substring(separator + 2));
+            }
+        }
+        return keysByCache;
+    }
+    
+    static byte[] rawKey(String cacheName, String key) {
+        return redisKey(cacheName, key).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    static byte[] rawTagKey(String tag) {
+        return (TAG_PREFIX + tag).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    static String redisKey(String cacheName, String key) {
+        return cacheName + "::" + key;
+    }
+}
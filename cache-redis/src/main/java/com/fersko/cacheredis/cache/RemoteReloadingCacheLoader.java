@@ -0,0 +1,31 @@
+package com.fersko.cacheredis.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+@Slf4j
+@RequiredArgsConstructor
+public class RemoteReloadingCacheLoader implements CacheLoader<Object, Object> {
+    
+    private final CacheManager remoteCacheManager;
+    private final String cacheName;
+    
+    @Override
+    public Object load(Object key) {
+        return null;
+    }
+    
+    @Override
+    public Object reload(Object key, Object oldValue) {
+        Cache remoteCache = remoteCacheManager.getCache(cacheName);
+        Cache.ValueWrapper remote = remoteCache != null ? remoteCache.get(key) : null;
+        if (remote == null || remote.get() == null) {
+            log.debug("L1: {}::{} отсутствует в L2, удаляем локальную копию", cacheName, key);
+            return null;
+        }
+        return remote.get();
+    }
+}
@@ -0,0 +1,529 @@
+package com.fersko.cacheredis.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    
+    private static final long LOCK_POLL_INTERVAL_MS = 25;
+    
+    private final String name;
+    private final Cache localCache;
+    private final Cache remoteCache;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final DistributedLoadLock loadLock;
+    private final RedisCacheBulkOperations bulkOperations;
+    private final CacheTagResolver tagResolver;
+    private final Duration tagTimeToLive;
+    
+    @Getter
+    private final CacheLoadPolicy loadPolicy;
+    
+    @Getter
+    private final CacheExpiryPolicy expiryPolicy;
+    
+    private final Executor refreshExecutor;
+    private final Timer loadTimer;
+    
+    @Getter
+    private final CacheLoadStatistics loadStatistics = new CacheLoadStatistics();
+    
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> staleValues;
+    
+    public TwoLevelCache(String name,
+                         Cache localCache,
+                         Cache remoteCache,
+                         CacheInvalidationPublisher invalidationPublisher,
+                         DistributedLoadLock loadLock,
+                         RedisCacheBulkOperations bulkOperations,
+                         CacheTagResolver tagResolver,
+                         Duration tagTimeToLive,
+                         CacheLoadPolicy loadPolicy,
+                         CacheExpiryPolicy expiryPolicy,
+                         Executor refreshExecutor,
+                         Timer loadTimer) {
+        super(false);
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.loadLock = loadLock;
+        this.bulkOperations = bulkOperations;
+        this.tagResolver = tagResolver;
+        this.tagTimeToLive = tagTimeToLive;
+        this.loadPolicy = loadPolicy;
+        this.expiryPolicy = expiryPolicy;
+        this.refreshExecutor = refreshExecutor;
+        this.loadTimer = loadTimer;
+        this.staleValues = loadPolicy.serveStale()
+                ? Caffeine.newBuilder()
+                        .maximumSize(10_000)
+                        .expireAfterWrite(loadPolicy.staleTtl())
+                        .build()
+                : null;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+    
+    @Override
+    protected Object lookup(Object key) {
+        CacheEnvelope envelope = lookupEnvelope(toCacheKey(key));
+        return envelope != null ? envelope.value() : null;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = toCacheKey(key);
+        CacheEnvelope cached = lookupEnvelope(cacheKey);
+        if (cached != null) {
+            refreshAheadIfDue(cacheKey, key, cached, valueLoader);
+            return (T) fromStoreValue(cached.value());
+        }
+        
+        if (!loadPolicy.singleFlight()) {
+            return (T) loadCoordinated(cacheKey, key, valueLoader);
+        }
+        
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(cacheKey, load);
+        if (inFlight != null) {
+            loadStatistics.recordCoalescedLoad();
+            return (T) awaitInFlight(inFlight, key, valueLoader);
+        }
+        
+        try {
+            Object value = loadCoordinated(cacheKey, key, valueLoader);
+            load.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(cacheKey, load);
+        }
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        String cacheKey = toCacheKey(key);
+        store(cacheKey, toStoreValue(value), 0);
+        loadStatistics.recordPuts(1);
+        invalidationPublisher.publishEvict(name, cacheKey);
+    }
+    
+    @SuppressWarnings("unchecked")
+    public void putAll(Map<?, ?> values) {
+        long now = System.currentTimeMillis();
+        Map<String, CacheEnvelope> envelopes = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (value != null) {
+                envelopes.put(toCacheKey(key), CacheEnvelope.of(value, 0, expiryPolicy.nextExpiresAt(now)));
+            }
+        });
+        
+        indexTags(envelopes);
+        try {
+            bulkOperations.putAll(name, envelopes, expiryPolicy::timeToLive);
+        } catch (RuntimeException e) {
+            log.warn("L2: не удалось записать пакет из {} ключей в {}", envelopes.size(), name, e);
+        }
+        
+        if (localCache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).putAll(envelopes);
+        } else {
+            envelopes.forEach(localCache::put);
+        }
+        if (staleValues != null) {
+            envelopes.forEach((cacheKey, envelope) -> staleValues.put(cacheKey, envelope.value()));
+        }
+        loadStatistics.recordPuts(envelopes.size());
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>();
+        Map<String, K> localMisses = new LinkedHashMap<>();
+        for (K key : keys) {
+            String cacheKey = toCacheKey(key);
+            CacheEnvelope local = lookupLocal(cacheKey);
+            if (local != null) {
+                found.put(key, (V) fromStoreValue(local.value()));
+            } else {
+                localMisses.put(cacheKey, key);
+            }
+        }
+        if (localMisses.isEmpty()) {
+            return found;
+        }
+        
+        Map<String, Object> remote;
+        try {
+            remote = bulkOperations.getAll(name, List.copyOf(localMisses.keySet()));
+        } catch (RuntimeException e) {
+            log.warn("L2: ошибка MGET {} ключей из {}, переходим к загрузке", localMisses.size(), name, e);
+            remote = Map.of();
+        }
+        
+        Set<K> misses = new LinkedHashSet<>();
+        for (Map.Entry<String, K> miss : localMisses.entrySet()) {
+            Object stored = remote.get(miss.getKey());
+            if (stored != null) {
+                CacheEnvelope envelope = CacheEnvelope.wrap(stored);
+                storeLocal(miss.getKey(), envelope);
+                loadStatistics.recordRemoteHit();
+                found.put(miss.getValue(), (V) fromStoreValue(envelope.value()));
+            } else {
+                loadStatistics.recordMiss();
+                misses.add(miss.getValue());
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+        
+        long startedAt = System.nanoTime();
+        Map<K, V> loaded = loader.apply(misses);
+        recordLoad(System.nanoTime() - startedAt);
+        putAll(loaded);
+        found.putAll(loaded);
+        log.debug("{}: multi-get {} ключей, загружено из источника {}", name, keys.size(), loaded.size());
+        return found;
+    }
+    
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object existing = lookup(key);
+        if (existing != null) {
+            return new SimpleValueWrapper(fromStoreValue(existing));
+        }
+        put(key, value);
+        return null;
+    }
+    
+    @Override
+    public void evict(Object key) {
+        String cacheKey = toCacheKey(key);
+        try {
+            remoteCache.evict(cacheKey);
+        } catch (RuntimeException e) {
+            log.warn("L2: не удалось удалить {}::{}", name, cacheKey, e);
+        }
+        evictLocal(cacheKey);
+        loadStatistics.recordEviction();
+        invalidationPublisher.publishEvict(name, cacheKey);
+    }
+    
+    public void evictAll(Collection<?> keys, boolean publish) {
+        List<String> cacheKeys = keys.stream().map(TwoLevelCache::toCacheKey).toList();
+        try {
+            bulkOperations.deleteAll(name, cacheKeys);
+        } catch (RuntimeException e) {
+            log.warn("L2: не удалось удалить пакет из {} ключей в {}", cacheKeys.size(), name, e);
+        }
+        for (String cacheKey : cacheKeys) {
+            evictLocal(cacheKey);
+            loadStatistics.recordEviction();
+            if (publish) {
+                invalidationPublisher.publishEvict(name, cacheKey);
+            }
+        }
+    }
+    
+    @Override
+    public void clear() {
+        clear(true);
+    }
+    
+    public void clear(boolean publish) {
+        try {
+            remoteCache.clear();
+        } catch (RuntimeException e) {
+            log.warn("L2: не удалось очистить {}", name, e);
+        }
+        clearLocal();
+        if (publish) {
+            invalidationPublisher.publishClear(name);
+        }
+    }
+    
+    public void evictLocal(String cacheKey) {
+        localCache.evict(cacheKey);
+        if (staleValues != null) {
+            staleValues.invalidate(cacheKey);
+        }
+    }
+    
+    public void clearLocal() {
+        localCache.clear();
+        if (staleValues != null) {
+            staleValues.invalidateAll();
+        }
+    }
+    
+    public CacheEnvelope lookupLocal(String cacheKey) {
+        ValueWrapper local = localCache.get(cacheKey);
+        if (local == null) {
+            return null;
+        }
+        CacheEnvelope envelope = CacheEnvelope.wrap(local.get());
+        if (envelope.isExpired(System.currentTimeMillis())) {
+            localCache.evict(cacheKey);
+            return null;
+        }
+        loadStatistics.recordLocalHit();
+        return envelope;
+    }
+    
+    void recordLoad(long loadNanos) {
+        loadStatistics.recordLoad();
+        loadTimer.record(loadNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private CacheEnvelope lookupEnvelope(String cacheKey) {
+        CacheEnvelope local = lookupLocal(cacheKey);
+        if (local != null) {
+            return local;
+        }
+        
+        CacheEnvelope remote = lookupRemote(cacheKey);
+        if (remote != null) {
+            loadStatistics.recordRemoteHit();
+        } else {
+            loadStatistics.recordMiss();
+        }
+        return remote;
+    }
+    
+    private void refreshAheadIfDue(String cacheKey, Object key, CacheEnvelope cached, Callable<?> valueLoader) {
+        if (!expiryPolicy.shouldRefreshEarly(cached, System.currentTimeMillis())) {
+            return;
+        }
+        if (!refreshingKeys.add(cacheKey)) {
+            return;
+        }
+        
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh(cacheKey, key, valueLoader);
+                } catch (RuntimeException e) {
+                    log.warn("Refresh-ahead {}::{} завершился ошибкой, значение истечёт по TTL", name, cacheKey, e);
+                } finally {
+                    refreshingKeys.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(cacheKey);
+            log.debug("Очередь refresh-ahead переполнена, {}::{} обновится при истечении", name, cacheKey);
+        }
+    }
+    
+    private void refresh(String cacheKey, Object key, Callable<?> valueLoader) {
+        if (!loadPolicy.distributedLock()) {
+            loadStatistics.recordEarlyRefresh();
+            loadAndStore(cacheKey, key, valueLoader);
+            invalidationPublisher.publishEvict(name, cacheKey);
+            return;
+        }
+        
+        String lockKey = DistributedLoadLock.lockKey(name, cacheKey);
+        String token = loadLock.tryAcquire(lockKey, loadPolicy.leaseTime());
+        if (token == null) {
+            return;
+        }
+        try {
+            loadStatistics.recordEarlyRefresh();
+            loadAndStore(cacheKey, key, valueLoader);
+            invalidationPublisher.publishEvict(name, cacheKey);
+        } finally {
+            releaseQuietly(lockKey, token);
+        }
+    }
+    
+    private Object loadCoordinated(String cacheKey, Object key, Callable<?> valueLoader) {
+        if (!loadPolicy.distributedLock()) {
+            return loadAndStore(cacheKey, key, valueLoader);
+        }
+        
+        String lockKey = DistributedLoadLock.lockKey(name, cacheKey);
+        String token;
+        try {
+            token = loadLock.tryAcquire(lockKey, loadPolicy.leaseTime());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось взять lease {}, загружаем без координации", lockKey, e);
+            return loadAndStore(cacheKey, key, valueLoader);
+        }
+        
+        if (token != null) {
+            loadStatistics.recordLockAcquired();
+            try {
+                CacheEnvelope loadedByOtherNode = lookupRemote(cacheKey);
+                if (loadedByOtherNode != null) {
+                    return loadedByOtherNode.value();
+                }
+                return loadAndStore(cacheKey, key, valueLoader);
+            } finally {
+                releaseQuietly(lockKey, token);
+            }
+        }
+        
+        loadStatistics.recordLockContended();
+        Object stale = staleValues != null ? staleValues.getIfPresent(cacheKey) : null;
+        if (stale != null) {
+            loadStatistics.recordStaleServed();
+            log.debug("{}::{} пересчитывает другой узел, отдаём устаревшее значение", name, cacheKey);
+            return stale;
+        }
+        
+        long deadline = System.nanoTime() + loadPolicy.lockWait().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(LOCK_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            CacheEnvelope loadedByOtherNode = lookupRemote(cacheKey);
+            if (loadedByOtherNode != null) {
+                return loadedByOtherNode.value();
+            }
+        }
+        
+        loadStatistics.recordLockWaitTimeout();
+        log.debug("{}::{} не появился за {}, загружаем сами", name, cacheKey, loadPolicy.lockWait());
+        return loadAndStore(cacheKey, key, valueLoader);
+    }
+    
+    private Object loadAndStore(String cacheKey, Object key, Callable<?> valueLoader) {
+        loadStatistics.recordLoad();
+        long startedAt = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        long loadNanos = System.nanoTime() - startedAt;
+        loadTimer.record(loadNanos, TimeUnit.NANOSECONDS);
+        long loadMillis = TimeUnit.NANOSECONDS.toMillis(loadNanos);
+        if (value != null) {
+            store(cacheKey, value, loadMillis);
+        }
+        return value;
+    }
+    
+    private Object awaitInFlight(CompletableFuture<Object> inFlight, Object key, Callable<?> valueLoader) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+    
+    private void store(String cacheKey, Object value, long loadMillis) {
+        long now = System.currentTimeMillis();
+        CacheEnvelope envelope = CacheEnvelope.of(value, loadMillis, expiryPolicy.nextExpiresAt(now));
+        indexTags(Map.of(cacheKey, envelope));
+        try {
+            remoteCache.put(cacheKey, envelope);
+        } catch (RuntimeException e) {
+            log.warn("L2: не удалось записать {}::{}", name, cacheKey, e);
+        }
+        storeLocal(cacheKey, envelope);
+    }
+    
+    void indexTags(Map<String, CacheEnvelope> envelopes) {
+        Map<String, Set<String>> tagsByKey = new HashMap<>();
+        envelopes.forEach((cacheKey, envelope) -> {
+            Set<String> tags = tagResolver.tagsOf(envelope.value());
+            if (!tags.isEmpty()) {
+                tagsByKey.put(cacheKey, tags);
+            }
+        });
+        if (tagsByKey.isEmpty()) {
+            return;
+        }
+        
+        try {
+            bulkOperations.addTags(name, tagsByKey, tagTimeToLive);
+        } catch (RuntimeException e) {
+            log.warn("L2: не удалось записать теги для {} ключей в {}", tagsByKey.size(), name, e);
+        }
+    }
+    
+    void storeLocal(String cacheKey, CacheEnvelope envelope) {
+        localCache.put(cacheKey, envelope);
+        if (staleValues != null) {
+            staleValues.put(cacheKey, envelope.value());
+        }
+    }
+    
+    private CacheEnvelope lookupRemote(String cacheKey) {
+        ValueWrapper remote;
+        try {
+            remote = remoteCache.get(cacheKey);
+        } catch (RuntimeException e) {
+            log.warn("L2: ошибка чтения {}::{}, переходим к загрузке", name, cacheKey, e);
+            return null;
+        }
+        if (remote == null || remote.get() == null) {
+            return null;
+        }
+        CacheEnvelope envelope = CacheEnvelope.wrap(remote.get());
+        storeLocal(cacheKey, envelope);
+        return envelope;
+    }
+    
+    private void releaseQuietly(String lockKey, String token) {
+        try {
+            loadLock.release(lockKey, token);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось освободить lease {}, истечёт по TTL", lockKey, e);
+        }
+    }
+    
+    static String toCacheKey(Object key) {
+        return String.valueOf(key);
+    }
+}
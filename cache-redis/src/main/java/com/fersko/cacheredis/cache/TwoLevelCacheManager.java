@@ -0,0 +1,152 @@
+package com.fersko.cacheredis.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, InitializingBean {
+    
+    public static final String LOAD_TIMER = "cache.miss.load";
+    
+    private final CacheManager localCacheManager;
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final DistributedLoadLock loadLock;
+    private final RedisCacheBulkOperations bulkOperations;
+    private final CacheTagResolver tagResolver;
+    private final Duration tagTimeToLive;
+    private final Map<String, CacheLoadPolicy> loadPolicies;
+    private final Map<String, CacheExpiryPolicy> expiryPolicies;
+    private final CacheExpiryPolicy defaultExpiryPolicy;
+    private final Executor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    
+    public TwoLevelCacheManager(CacheManager localCacheManager,
+                                CacheManager remoteCacheManager,
+                                CacheInvalidationPublisher invalidationPublisher,
+                                DistributedLoadLock loadLock,
+                                RedisCacheBulkOperations bulkOperations,
+                                CacheTagResolver tagResolver,
+                                Map<String, CacheLoadPolicy> loadPolicies,
+                                Map<String, CacheExpiryPolicy> expiryPolicies,
+                                CacheExpiryPolicy defaultExpiryPolicy,
+                                Executor refreshExecutor,
+                                MeterRegistry meterRegistry) {
+        this.localCacheManager = localCacheManager;
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidationPublisher = invalidationPublisher;
+        this.loadLock = loadLock;
+        this.bulkOperations = bulkOperations;
+        this.tagResolver = tagResolver;
+        this.loadPolicies = Map.copyOf(loadPolicies);
+        this.expiryPolicies = Map.copyOf(expiryPolicies);
+        this.defaultExpiryPolicy = defaultExpiryPolicy;
+        this.tagTimeToLive = tagTimeToLive(expiryPolicies.values(), defaultExpiryPolicy);
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        Set<String> configuredNames = new HashSet<>(loadPolicies.keySet());
+        configuredNames.addAll(expiryPolicies.keySet());
+        configuredNames.forEach(this::getCache);
+    }
+    
+    @Override
+    public TwoLevelCache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+    
+    public void evictLocal(String cacheName, String key) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+    }
+    
+    public void clearLocal(String cacheName) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.clearLocal();
+        }
+    }
+    
+    public void evictByTags(Collection<String> tags) {
+        evictByTags(tags, true);
+    }
+    
+    public void evictByTags(Collection<String> tags, boolean publishClear) {
+        Map<String, Set<String>> keysByCache;
+        try {
+            keysByCache = bulkOperations.drainTags(tags);
+        } catch (RuntimeException e) {
+            Set<String> taggedCaches = tagResolver.taggedCacheNames();
+            log.warn("L2: не удалось прочитать теги {}, кэши {} очищаются полностью", tags, taggedCaches, e);
+            taggedCaches.forEach(cacheName -> getCache(cacheName).clear(publishClear));
+            return;
+        }
+        
+        // ключи знает только узел, забравший тег, поэтому удаление по ключам рассылается всегда
+        keysByCache.forEach((cacheName, keys) -> getCache(cacheName).evictAll(keys, true));
+        log.debug("Инвалидация по тегам {}: {}", tags, keysByCache);
+    }
+    
+    public Map<String, CacheLoadStatistics.Snapshot> getLoadStatistics() {
+        Map<String, CacheLoadStatistics.Snapshot> statistics = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> statistics.put(name, cache.getLoadStatistics().snapshot()));
+        return statistics;
+    }
+    
+    private TwoLevelCache createCache(String name) {
+        Cache localCache = localCacheManager.getCache(name);
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        if (localCache == null || remoteCache == null) {
+            throw new IllegalStateException("Cache " + name + " is not available on both levels");
+        }
+        CacheLoadPolicy loadPolicy = loadPolicies.getOrDefault(name, CacheLoadPolicy.DEFAULT);
+        CacheExpiryPolicy expiryPolicy = expiryPolicies.getOrDefault(name, defaultExpiryPolicy);
+        Timer loadTimer = Timer.builder(LOAD_TIMER)
+                .description("Time to load a value from the source after a miss on both levels")
+                .tag("cache", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        return new TwoLevelCache(name, localCache, remoteCache, invalidationPublisher,
+                loadLock, bulkOperations, tagResolver, tagTimeToLive, loadPolicy, expiryPolicy, refreshExecutor,
+                loadTimer);
+    }
+    
+    private static Duration tagTimeToLive(Collection<CacheExpiryPolicy> expiryPolicies,
+                                          CacheExpiryPolicy defaultExpiryPolicy) {
+        Duration longest = defaultExpiryPolicy.ttl();
+        for (CacheExpiryPolicy expiryPolicy : expiryPolicies) {
+            Duration withJitter = Duration.ofMillis((long) (expiryPolicy.ttl().toMillis()
+                    * (1.0 + expiryPolicy.ttlJitter())));
+            if (withJitter.compareTo(longest) > 0) {
+                longest = withJitter;
+            }
+        }
+        return longest.multipliedBy(2);
+    }
+}
@@ -0,0 +1,100 @@
+package com.fersko.cacheredis.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.function.ToLongFunction;
+
+public class TwoLevelCacheMetrics extends CacheMeterBinder<TwoLevelCache> {
+    
+    public TwoLevelCacheMetrics(TwoLevelCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+    
+    @Override
+    protected Long size() {
+        return null;
+    }
+    
+    @Override
+    protected long hitCount() {
+        return snapshot(CacheLoadStatistics.Snapshot::hits);
+    }
+    
+    @Override
+    protected Long missCount() {
+        return snapshot(CacheLoadStatistics.Snapshot::misses);
+    }
+    
+    @Override
+    protected Long evictionCount() {
+        return snapshot(CacheLoadStatistics.Snapshot::evictions);
+    }
+    
+    @Override
+    protected long putCount() {
+        return snapshot(CacheLoadStatistics.Snapshot::puts);
+    }
+    
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        TwoLevelCache cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        CacheLoadStatistics statistics = cache.getLoadStatistics();
+        
+        levelHits(registry, statistics, "l1", CacheLoadStatistics.Snapshot::localHits);
+        levelHits(registry, statistics, "l2", CacheLoadStatistics.Snapshot::remoteHits);
+        
+        counter(registry, statistics, "cache.loads", "Loads from the source after a miss on both levels",
+                CacheLoadStatistics.Snapshot::loads);
+        counter(registry, statistics, "cache.loads.coalesced", "Misses that joined an in-flight load on this node",
+                CacheLoadStatistics.Snapshot::coalescedLoads);
+        counter(registry, statistics, "cache.lock.acquired", "Distributed load leases acquired",
+                CacheLoadStatistics.Snapshot::lockAcquired);
+        counter(registry, statistics, "cache.lock.contended", "Misses that found the load lease held by another node",
+                CacheLoadStatistics.Snapshot::lockContended);
+        counter(registry, statistics, "cache.lock.wait.timeouts", "Lease waits that gave up and loaded locally",
+                CacheLoadStatistics.Snapshot::lockWaitTimeouts);
+        counter(registry, statistics, "cache.stale.served", "Stale values served while another node reloads",
+                CacheLoadStatistics.Snapshot::staleServed);
+        counter(registry, statistics, "cache.refresh.early", "Probabilistic refresh-ahead reloads",
+                CacheLoadStatistics.Snapshot::earlyRefreshes);
+        
+        Gauge.builder("cache.hit.ratio", statistics, stats -> stats.snapshot().hitRatio())
+                .tags(getTagsWithCacheName())
+                .description("Share of lookups served by L1 or L2")
+                .register(registry);
+    }
+    
+    private void levelHits(MeterRegistry registry,
+                           CacheLoadStatistics statistics,
+                           String level,
+                           ToLongFunction<CacheLoadStatistics.Snapshot> metric) {
+        FunctionCounter.builder("cache.level.hits", statistics, stats -> metric.applyAsLong(stats.snapshot()))
+                .tags(getTagsWithCacheName())
+                .tag("level", level)
+                .description("Hits per cache level")
+                .register(registry);
+    }
+    
+    private void counter(MeterRegistry registry,
+                         CacheLoadStatistics statistics,
+                         String name,
+                         String description,
+                         ToLongFunction<CacheLoadStatistics.Snapshot> metric) {
+        FunctionCounter.builder(name, statistics, stats -> metric.applyAsLong(stats.snapshot()))
+                .tags(getTagsWithCacheName())
+                .description(description)
+                .register(registry);
+    }
+    
+    private long snapshot(ToLongFunction<CacheLoadStatistics.Snapshot> metric) {
+        TwoLevelCache cache = getCache();
+        return cache != null ? metric.applyAsLong(cache.getLoadStatistics().snapshot()) : 0L;
+    }
+}
@@ -0,0 +1,283 @@
+package com.fersko.cacheredis.codec;
+
+import com.fersko.cacheredis.cache.CacheEnvelope;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public class BinaryCacheValueSerializer implements RedisSerializer<Object> {
+    
+    static final int MAGIC = 0xCB;
+    static final int FORMAT_VERSION = 1;
+    static final int FLAG_LZ4 = 0x01;
+    
+    private static final int TAG_NULL = 0;
+    private static final int TAG_TRUE = 1;
+    private static final int TAG_FALSE = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_SHORT = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_STRING = 7;
+    private static final int TAG_UUID = 8;
+    private static final int TAG_BIG_DECIMAL = 9;
+    private static final int TAG_OFFSET_DATE_TIME = 10;
+    private static final int TAG_INSTANT = 11;
+    private static final int TAG_LOCAL_DATE_TIME = 12;
+    private static final int TAG_LIST = 13;
+    private static final int TAG_SET = 14;
+    private static final int TAG_MAP = 15;
+    private static final int TAG_ENVELOPE = 16;
+    private static final int TAG_RECORD = 17;
+    private static final int TAG_FALLBACK = 18;
+    
+    private final RecordCodecRegistry registry;
+    private final RedisSerializer<Object> fallback;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+    
+    public BinaryCacheValueSerializer(RecordCodecRegistry registry,
+                                      RedisSerializer<Object> fallback,
+                                      int compressionThreshold) {
+        this.registry = registry;
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+    
+    @Override
+    public byte[] serialize(Object value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        
+        BinaryValueWriter body = new BinaryValueWriter(256);
+        writeValue(body, value);
+        
+        if (body.size() >= compressionThreshold) {
+            byte[] compressed = compressor.compress(body.buffer(), 0, body.size());
+            if (compressed.length < body.size()) {
+                BinaryValueWriter framed = new BinaryValueWriter(compressed.length + 8);
+                framed.writeByte(MAGIC);
+                framed.writeByte(FORMAT_VERSION << 4 | FLAG_LZ4);
+                framed.writeVarInt(body.size());
+                framed.writeBytes(compressed);
+                return framed.toByteArray();
+            }
+        }
+        
+        BinaryValueWriter framed = new BinaryValueWriter(body.size() + 2);
+        framed.writeByte(MAGIC);
+        framed.writeByte(FORMAT_VERSION << 4);
+        framed.writeBytes(body.buffer(), 0, body.size());
+        return framed.toByteArray();
+    }
+    
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if ((bytes[0] & 0xFF) != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        
+        BinaryValueReader header = new BinaryValueReader(bytes, 1);
+        int versionAndFlags = header.readByte();
+        int version = versionAndFlags >>> 4;
+        if (version > FORMAT_VERSION) {
+            throw new SerializationException("Unsupported cache value format version " + version);
+        }
+        
+        if ((versionAndFlags & FLAG_LZ4) == 0) {
+            return readValue(new BinaryValueReader(bytes, header.position()));
+        }
+        int rawLength = header.readVarInt();
+        byte[] raw = decompressor.decompress(bytes, header.position(), rawLength);
+        return readValue(new BinaryValueReader(raw, 0));
+    }
+    
+    private void writeValue(BinaryValueWriter out, Object value) {
+        switch (value) {
+            case null -> out.writeByte(TAG_NULL);
+            case Boolean bool -> out.writeByte(bool ? TAG_TRUE : TAG_FALSE);
+            case Integer number -> {
+                out.writeByte(TAG_INT);
+                out.writeSignedVarLong(number);
+            }
+            case Long number -> {
+                out.writeByte(TAG_LONG);
+                out.writeSignedVarLong(number);
+            }
+            case Short number -> {
+                out.writeByte(TAG_SHORT);
+                out.writeSignedVarLong(number);
+            }
+            case Double number -> {
+                out.writeByte(TAG_DOUBLE);
+                out.writeFixedLong(Double.doubleToLongBits(number));
+            }
+            case String string -> {
+                out.writeByte(TAG_STRING);
+                out.writeString(string);
+            }
+            case UUID uuid -> {
+                out.writeByte(TAG_UUID);
+                out.writeFixedLong(uuid.getMostSignificantBits());
+                out.writeFixedLong(uuid.getLeastSignificantBits());
+            }
+            case BigDecimal decimal -> {
+                out.writeByte(TAG_BIG_DECIMAL);
+                out.writeSignedVarLong(decimal.scale());
+                out.writeLengthPrefixed(decimal.unscaledValue().toByteArray());
+            }
+            case OffsetDateTime dateTime -> {
+                out.writeByte(TAG_OFFSET_DATE_TIME);
+                out.writeSignedVarLong(dateTime.toEpochSecond());
+                out.writeVarInt(dateTime.getNano());
+                out.writeSignedVarLong(dateTime.getOffset().getTotalSeconds());
+            }
+            case Instant instant -> {
+                out.writeByte(TAG_INSTANT);
+                out.writeSignedVarLong(instant.getEpochSecond());
+                out.writeVarInt(instant.getNano());
+            }
+            case LocalDateTime dateTime -> {
+                out.writeByte(TAG_LOCAL_DATE_TIME);
+                out.writeSignedVarLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+                out.writeVarInt(dateTime.getNano());
+            }
+            case CacheEnvelope envelope -> {
+                out.writeByte(TAG_ENVELOPE);
+                out.writeSignedVarLong(envelope.loadMillis());
+                out.writeSignedVarLong(envelope.expiresAtMillis());
+                writeValue(out, envelope.value());
+            }
+            case List<?> list -> writeElements(out, TAG_LIST, list);
+            case Set<?> set -> writeElements(out, TAG_SET, set);
+            case Map<?, ?> map -> {
+                out.writeByte(TAG_MAP);
+                out.writeVarInt(map.size());
+                map.forEach((key, element) -> {
+                    writeValue(out, key);
+                    writeValue(out, element);
+                });
+            }
+            default -> writeObject(out, value);
+        }
+    }
+    
+    private void writeElements(BinaryValueWriter out, int tag, Collection<?> elements) {
+        out.writeByte(tag);
+        out.writeVarInt(elements.size());
+        for (Object element : elements) {
+            writeValue(out, element);
+        }
+    }
+    
+    private void writeObject(BinaryValueWriter out, Object value) {
+        RecordCodecRegistry.RecordType recordType = registry.find(value.getClass());
+        if (recordType == null) {
+            out.writeByte(TAG_FALLBACK);
+            out.writeLengthPrefixed(fallback.serialize(value));
+            return;
+        }
+        out.writeByte(TAG_RECORD);
+        out.writeVarInt(recordType.id());
+        out.writeVarInt(recordType.fieldCount());
+        for (int i = 0; i < recordType.fieldCount(); i++) {
+            writeValue(out, recordType.component(value, i));
+        }
+    }
+    
+    private Object readValue(BinaryValueReader in) {
+        int tag = in.readByte();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_TRUE -> Boolean.TRUE;
+            case TAG_FALSE -> Boolean.FALSE;
+            case TAG_INT -> (int) in.readSignedVarLong();
+            case TAG_LONG -> in.readSignedVarLong();
+            case TAG_SHORT -> (short) in.readSignedVarLong();
+            case TAG_DOUBLE -> Double.longBitsToDouble(in.readFixedLong());
+            case TAG_STRING -> in.readString();
+            case TAG_UUID -> new UUID(in.readFixedLong(), in.readFixedLong());
+            case TAG_BIG_DECIMAL -> {
+                int scale = (int) in.readSignedVarLong();
+                yield new BigDecimal(new BigInteger(in.readLengthPrefixed()), scale);
+            }
+            case TAG_OFFSET_DATE_TIME -> {
+                long epochSecond = in.readSignedVarLong();
+                int nano = in.readVarInt();
+                ZoneOffset offset = ZoneOffset.ofTotalSeconds((int) in.readSignedVarLong());
+                yield OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), offset);
+            }
+            case TAG_INSTANT -> Instant.ofEpochSecond(in.readSignedVarLong(), in.readVarInt());
+            case TAG_LOCAL_DATE_TIME -> LocalDateTime.ofEpochSecond(in.readSignedVarLong(), in.readVarInt(), ZoneOffset.UTC);
+            case TAG_LIST -> readElements(in, new ArrayList<>());
+            case TAG_SET -> readElements(in, new LinkedHashSet<>());
+            case TAG_MAP -> {
+                int size = in.readVarInt();
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                yield map;
+            }
+            case TAG_ENVELOPE -> {
+                long loadMillis = in.readSignedVarLong();
+                long expiresAtMillis = in.readSignedVarLong();
+                yield new CacheEnvelope(readValue(in), loadMillis, expiresAtMillis);
+            }
+            case TAG_RECORD -> readRecord(in);
+            case TAG_FALLBACK -> fallback.deserialize(in.readLengthPrefixed());
+            default -> throw new SerializationException("Unknown cache value tag " + tag);
+        };
+    }
+    
+    private <C extends Collection<Object>> C readElements(BinaryValueReader in, C target) {
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            target.add(readValue(in));
+        }
+        return target;
+    }
+    
+    private Object readRecord(BinaryValueReader in) {
+        int typeId = in.readVarInt();
+        RecordCodecRegistry.RecordType recordType = registry.find(typeId);
+        if (recordType == null) {
+            throw new SerializationException("Unknown record type id " + typeId);
+        }
+        
+        int storedFields = in.readVarInt();
+        Object[] arguments = recordType.defaults().clone();
+        for (int i = 0; i < storedFields; i++) {
+            Object value = readValue(in);
+            if (i < arguments.length && value != null) {
+                arguments[i] = value;
+            }
+        }
+        return recordType.construct(arguments);
+    }
+}
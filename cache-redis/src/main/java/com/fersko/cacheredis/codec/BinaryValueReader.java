@@ -0,0 +1,81 @@
+package com.fersko.cacheredis.codec;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class BinaryValueReader {
+    
+    private final byte[] buffer;
+    private int position;
+    
+    BinaryValueReader(byte[] buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+    
+    int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+    
+    byte[] readBytes(int length) {
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+    
+    int readVarInt() {
+        return (int) readVarLong();
+    }
+    
+    long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new SerializationException("Malformed varint at offset " + position);
+    }
+    
+    long readSignedVarLong() {
+        long raw = readVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+    
+    long readFixedLong() {
+        require(Long.BYTES);
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+    
+    byte[] readLengthPrefixed() {
+        return readBytes(readVarInt());
+    }
+    
+    String readString() {
+        int length = readVarInt();
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+    
+    int position() {
+        return position;
+    }
+    
+    private void require(int length) {
+        if (length < 0 || position + length > buffer.length) {
+            throw new SerializationException("Unexpected end of cached value at offset " + position);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.fersko.cacheredis.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class BinaryValueWriter {
+    
+    private byte[] buffer;
+    private int position;
+    
+    BinaryValueWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+    
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+    
+    void writeBytes(byte[] bytes) {
+        writeBytes(bytes, 0, bytes.length);
+    }
+    
+    void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+    
+    void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+    
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+    
+    void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+    
+    void writeFixedLong(long value) {
+        ensureCapacity(Long.BYTES);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+    
+    void writeLengthPrefixed(byte[] bytes) {
+        writeVarInt(bytes.length);
+        writeBytes(bytes);
+    }
+    
+    void writeString(String value) {
+        writeLengthPrefixed(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    int size() {
+        return position;
+    }
+    
+    byte[] buffer() {
+        return buffer;
+    }
+    
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+    
+    private void ensureCapacity(int additional) {
+        if (position + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+        }
+    }
+}
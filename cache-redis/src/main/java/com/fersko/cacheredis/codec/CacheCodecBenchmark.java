@@ -0,0 +1,84 @@
+package com.fersko.cacheredis.codec;
+
+import com.fersko.cacheredis.cache.CacheEnvelope;
+import com.fersko.cacheredis.dto.ProductDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
+@Component
+@Profile("benchmark")
+public class CacheCodecBenchmark {
+    
+    private static final int MAX_ITEMS = 5_000;
+    private static final int MAX_ITERATIONS = 10_000;
+    
+    public String run(int items, int iterations) {
+        if (items <= 0 || items > MAX_ITEMS || iterations <= 0 || iterations > MAX_ITERATIONS) {
+            throw new IllegalArgumentException("items must be between 1 and " + MAX_ITEMS
+                    + " and iterations between 1 and " + MAX_ITERATIONS);
+        }
+        
+        List<ProductDto> products = new ArrayList<>(items);
+        OffsetDateTime now = OffsetDateTime.now();
+        UUID categoryId = UUID.randomUUID();
+        for (int i = 0; i < items; i++) {
+            products.add(new ProductDto(UUID.randomUUID(), "SKU-" + (100000 + i), "Товар " + i,
+                    "Описание товара номер " + i + " для проверки размера значения в Redis",
+                    categoryId, "Электроника", now.minusMinutes(i)));
+        }
+        
+        Map<String, Object> samples = new LinkedHashMap<>();
+        samples.put("ProductDto", CacheEnvelope.of(products.getFirst(), 12, System.currentTimeMillis()));
+        samples.put("List<ProductDto>[" + items + "]", CacheEnvelope.of(products, 12, System.currentTimeMillis()));
+        
+        Map<String, RedisSerializer<Object>> codecs = new LinkedHashMap<>();
+        codecs.put("json", CacheValueSerializers.json());
+        codecs.put("binary", CacheValueSerializers.binary(Integer.MAX_VALUE));
+        codecs.put("binary+lz4", CacheValueSerializers.binary(512));
+        
+        StringBuilder result = new StringBuilder("""
+                СРАВНЕНИЕ КОДЕКОВ REDIS
+                =========================
+                """);
+        result.append("iterations=").append(iterations).append("\n\n");
+        
+        samples.forEach((sampleName, sample) -> {
+            result.append(sampleName).append('\n');
+            codecs.forEach((codecName, codec) -> {
+                byte[] encoded = codec.serialize(sample);
+                for (int i = 0; i < Math.min(iterations, 1000); i++) {
+                    codec.deserialize(codec.serialize(sample));
+                }
+                
+                long encodeStart = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    encoded = codec.serialize(sample);
+                }
+                long encodeNanos = (System.nanoTime() - encodeStart) / iterations;
+                
+                long decodeStart = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    codec.deserialize(encoded);
+                }
+                long decodeNanos = (System.nanoTime() - decodeStart) / iterations;
+                
+                result.append(String.format("  %-11s size=%8d B  encode=%9.1f µs  decode=%9.1f µs%n",
+                        codecName, encoded.length, encodeNanos / 1000.0, decodeNanos / 1000.0));
+            });
+            result.append('\n');
+        });
+        
+        log.info("Сравнение кодеков выполнено: {} элементов, {} итераций", items, iterations);
+        return result.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package com.fersko.cacheredis.codec;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.InventoryDto;
+import com.fersko.cacheredis.dto.ProductAvailabilityDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import com.fersko.cacheredis.dto.RatingSummaryDto;
+import com.fersko.cacheredis.dto.ReviewDto;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+public final class CacheValueSerializers {
+    
+    private static final PolymorphicTypeValidator CACHED_TYPES = BasicPolymorphicTypeValidator.builder()
+            .allowIfSubType("com.fersko.cacheredis.")
+            .allowIfSubType("java.lang.")
+            .allowIfSubType("java.math.")
+            .allowIfSubType("java.time.")
+            .allowIfSubType("java.util.")
+            .allowIfSubType(NullValue.class)
+            .build();
+    
+    private CacheValueSerializers() {
+    }
+    
+    public static RedisSerializer<Object> json() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.activateDefaultTyping(CACHED_TYPES,
+                ObjectMapper.DefaultTyping.NON_FINAL_AND_RECORDS, JsonTypeInfo.As.PROPERTY);
+        return new GenericJackson2JsonRedisSerializer(objectMapper);
+    }
+    
+    public static BinaryCacheValueSerializer binary(int compressionThreshold) {
+        return new BinaryCacheValueSerializer(dtoRegistry(), json(), compressionThreshold);
+    }
+    
+    public static RecordCodecRegistry dtoRegistry() {
+        return new RecordCodecRegistry()
+                .register(1, CategoryDto.class)
+                .register(2, ProductDto.class)
+                .register(3, ProductPriceDto.class)
+                .register(4, InventoryDto.class)
+                .register(5, ReviewDto.class)
+                .register(6, ProductAvailabilityDto.class)
+                .register(7, RatingSummaryDto.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.fersko.cacheredis.codec;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class RecordCodecRegistry {
+    
+    private final Map<Integer, RecordType> byId = new HashMap<>();
+    private final Map<Class<?>, RecordType> byClass = new HashMap<>();
+    
+    public RecordCodecRegistry register(int typeId, Class<? extends Record> type) {
+        if (byId.containsKey(typeId) || byClass.containsKey(type)) {
+            throw new IllegalStateException("Record type " + type.getName() + " or id " + typeId + " is already registered");
+        }
+        RecordType recordType = RecordType.of(typeId, type);
+        byId.put(typeId, recordType);
+        byClass.put(type, recordType);
+        return this;
+    }
+    
+    RecordType find(Class<?> type) {
+        return byClass.get(type);
+    }
+    
+    RecordType find(int typeId) {
+        return byId.get(typeId);
+    }
+    
+    record RecordType(
+            int id,
+            Class<?> type,
+            MethodHandle[] accessors,
+            Object[] defaults,
+            MethodHandle constructor
+    ) {
+        
+        static RecordType of(int id, Class<? extends Record> type) {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            RecordComponent[] components = type.getRecordComponents();
+            Class<?>[] parameterTypes = Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new);
+            MethodHandle[] accessors = new MethodHandle[components.length];
+            Object[] defaults = new Object[components.length];
+            try {
+                for (int i = 0; i < components.length; i++) {
+                    accessors[i] = lookup.unreflect(components[i].getAccessor())
+                            .asType(MethodType.methodType(Object.class, Object.class));
+                    defaults[i] = parameterTypes[i].isPrimitive()
+                            ? MethodHandles.zero(parameterTypes[i]).invoke()
+                            : null;
+                }
+                MethodHandle constructor = lookup.unreflectConstructor(type.getDeclaredConstructor(parameterTypes))
+                        .asSpreader(Object[].class, components.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+                return new RecordType(id, type, accessors, defaults, constructor);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Record type " + type.getName() + " cannot be registered for binary codec", e);
+            }
+        }
+        
+        int fieldCount() {
+            return accessors.length;
+        }
+        
+        Object component(Object record, int index) {
+            try {
+                return (Object) accessors[index].invokeExact(record);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot read component " + index + " of " + type.getName(), e);
+            }
+        }
+        
+        Object construct(Object[] arguments) {
+            try {
+                return (Object) constructor.invokeExact(arguments);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot construct " + type.getName(), e);
+            }
+        }
+    }
+}
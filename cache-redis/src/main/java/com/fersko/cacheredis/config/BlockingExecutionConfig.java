@@ -0,0 +1,93 @@
+package com.fersko.cacheredis.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import javax.sql.DataSource;
+
+@Slf4j
+@Configuration
+public class BlockingExecutionConfig implements WebFluxConfigurer, DisposableBean {
+    
+    private final BlockingExecutionProperties properties;
+    private final AsyncTaskExecutor executor;
+    
+    public BlockingExecutionConfig(BlockingExecutionProperties properties) {
+        this.properties = properties;
+        this.executor = switch (properties.mode()) {
+            case EVENT_LOOP -> null;
+            case BOUNDED_POOL -> boundedPool(properties.boundedPoolSize());
+            case VIRTUAL_THREADS -> new VirtualThreadTaskExecutor("blocking-vt-");
+        };
+    }
+    
+    @Override
+    public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+        log.info("Блокирующие контроллеры выполняются в режиме {}", properties.mode());
+        if (executor != null) {
+            configurer.setExecutor(executor);
+        }
+    }
+    
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                BlockingExecutionProperties limits = Binder.get(environment)
+                        .bindOrCreate("app.blocking-execution", BlockingExecutionProperties.class);
+                int permits = limits.maxConcurrentConnections() > 0
+                        ? limits.maxConcurrentConnections()
+                        : hikari.getMaximumPoolSize();
+                return new ConnectionLimitingDataSource(hikari, permits, limits.connectionAcquireTimeout());
+            }
+        };
+    }
+    
+    @Bean
+    public MeterBinder connectionLimitMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConnectionLimitingDataSource limited) {
+                Gauge.builder("jdbc.connections.permits.available", limited, ConnectionLimitingDataSource::availablePermits)
+                        .description("Connection permits not currently held")
+                        .register(registry);
+                Gauge.builder("jdbc.connections.permits.waiting", limited, ConnectionLimitingDataSource::queueLength)
+                        .description("Threads waiting for a connection permit")
+                        .register(registry);
+            }
+        };
+    }
+    
+    @Override
+    public void destroy() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+    
+    private static ThreadPoolTaskExecutor boundedPool(int size) {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(size);
+        pool.setMaxPoolSize(size);
+        pool.setQueueCapacity(10_000);
+        pool.setThreadNamePrefix("blocking-");
+        pool.initialize();
+        return pool;
+    }
+}
@@ -0,0 +1,21 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.blocking-execution")
+public record BlockingExecutionProperties(
+        @DefaultValue("event-loop") Mode mode,
+        @DefaultValue("64") int boundedPoolSize,
+        @DefaultValue("0") int maxConcurrentConnections,
+        @DefaultValue("5s") Duration connectionAcquireTimeout
+) {
+    
+    public enum Mode {
+        EVENT_LOOP,
+        BOUNDED_POOL,
+        VIRTUAL_THREADS
+    }
+}
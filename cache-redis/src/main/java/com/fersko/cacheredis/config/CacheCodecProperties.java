@@ -0,0 +1,17 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "app.cache.codec")
+public record CacheCodecProperties(
+        @DefaultValue("binary") Type type,
+        @DefaultValue("512B") DataSize compressionThreshold
+) {
+    
+    public enum Type {
+        JSON,
+        BINARY
+    }
+}
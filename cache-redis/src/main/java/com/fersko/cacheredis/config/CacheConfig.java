@@ -1,72 +1,237 @@
 package com.fersko.cacheredis.config;
 
+import com.fersko.cacheredis.cache.CacheExpiryPolicy;
+import com.fersko.cacheredis.cache.CacheInvalidationListener;
+import com.fersko.cacheredis.cache.CacheInvalidationPublisher;
+import com.fersko.cacheredis.cache.CacheLoadPolicy;
+import com.fersko.cacheredis.cache.CacheTagResolver;
+import com.fersko.cacheredis.cache.CacheValueWeigher;
+import com.fersko.cacheredis.cache.DistributedLoadLock;
+import com.fersko.cacheredis.cache.RedisCacheBulkOperations;
+import com.fersko.cacheredis.cache.RemoteReloadingCacheLoader;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
+import com.fersko.cacheredis.codec.CacheValueSerializers;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
     
+    private static final CacheExpiryPolicy DEFAULT_EXPIRY = CacheExpiryPolicy.fixed(Duration.ofMinutes(10));
+    
     @Bean
     @Primary
-    public CacheManager localCacheManager() {
+    public TwoLevelCacheManager cacheManager(@Qualifier("localCacheManager") CacheManager localCacheManager,
+                                             @Qualifier("redisCacheManager") CacheManager redisCacheManager,
+                                             CacheInvalidationPublisher invalidationPublisher,
+                                             DistributedLoadLock loadLock,
+                                             RedisConnectionFactory connectionFactory,
+                                             RedisSerializer<Object> cacheValueSerializer,
+                                             CacheTagResolver cacheTagResolver,
+                                             @Qualifier("cacheRefreshExecutor") Executor refreshExecutor,
+                                             MeterRegistry meterRegistry) {
+        return new TwoLevelCacheManager(localCacheManager, redisCacheManager,
+                invalidationPublisher, loadLock,
+                new RedisCacheBulkOperations(connectionFactory, cacheValueSerializer), cacheTagResolver,
+                cacheLoadPolicies(), cacheExpiryPolicies(), DEFAULT_EXPIRY, refreshExecutor, meterRegistry);
+    }
+    
+    @Bean("localCacheManager")
+    public CacheManager localCacheManager(LocalCacheProperties properties,
+                                          @Qualifier("redisCacheManager") CacheManager redisCacheManager,
+                                          @Qualifier("localCacheReloadExecutor") Executor reloadExecutor) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(Duration.ofMinutes(5))
-                .expireAfterAccess(Duration.ofMinutes(2))
-                .recordStats());
+        LocalCacheProperties.Spec defaults = properties.defaults();
+        if (defaults.refreshAfterWrite() != null) {
+            throw new IllegalStateException("refresh-after-write must be configured per cache, not in defaults");
+        }
+        cacheManager.setCaffeine(caffeineBuilder(defaults));
+        
+        properties.caches().forEach((cacheName, spec) -> {
+            LocalCacheProperties.Spec resolved = spec.withDefaults(defaults);
+            Caffeine<Object, Object> builder = caffeineBuilder(resolved);
+            if (resolved.refreshAfterWrite() != null) {
+                // reload делает синхронный GET в Redis, ему не место в ForkJoinPool.commonPool()
+                cacheManager.registerCustomCache(cacheName, builder.executor(reloadExecutor)
+                        .build(new RemoteReloadingCacheLoader(redisCacheManager, cacheName)));
+            } else {
+                cacheManager.registerCustomCache(cacheName, builder.build());
+            }
+        });
         
         return cacheManager;
     }
     
     @Bean("redisCacheManager")
-    public CacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                          RedisSerializer<Object> cacheValueSerializer) {
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
         
-        cacheConfigurations.put("categories",
-                createCacheConfig(Duration.ofHours(1)));
-        
-        cacheConfigurations.put("products",
-                createCacheConfig(Duration.ofMinutes(30)));
+        cacheExpiryPolicies().forEach((cacheName, expiryPolicy) ->
+                cacheConfigurations.put(cacheName, createCacheConfig(expiryPolicy, cacheValueSerializer)));
         
-        cacheConfigurations.put("prices",
-                createCacheConfig(Duration.ofMinutes(15)));
-        
-        cacheConfigurations.put("searchResults", 
-                createCacheConfig(Duration.ofMinutes(5)));
-        
-        RedisCacheConfiguration defaultConfig = createCacheConfig(Duration.ofMinutes(10));
+        RedisCacheConfiguration defaultConfig = createCacheConfig(DEFAULT_EXPIRY, cacheValueSerializer);
         
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
+                .enableStatistics()
                 .build();
     }
     
-    private RedisCacheConfiguration createCacheConfig(Duration ttl) {
+    @Bean
+    public RedisSerializer<Object> cacheValueSerializer(CacheCodecProperties properties) {
+        return switch (properties.type()) {
+            case JSON -> CacheValueSerializers.json();
+            case BINARY -> CacheValueSerializers.binary((int) properties.compressionThreshold().toBytes());
+        };
+    }
+    
+    private Map<String, CacheExpiryPolicy> cacheExpiryPolicies() {
+        Map<String, CacheExpiryPolicy> expiryPolicies = new HashMap<>();
+        
+        expiryPolicies.put("categories",
+                CacheExpiryPolicy.fixed(Duration.ofHours(1)).withJitter(0.1).withEarlyRefresh(1.0));
+        
+        expiryPolicies.put("products",
+                CacheExpiryPolicy.fixed(Duration.ofMinutes(30)).withJitter(0.1).withEarlyRefresh(1.0));
+        
+        expiryPolicies.put("prices",
+                CacheExpiryPolicy.fixed(Duration.ofMinutes(15)).withJitter(0.1).withEarlyRefresh(1.0));
+        
+        expiryPolicies.put("searchResults",
+                CacheExpiryPolicy.fixed(Duration.ofMinutes(5)).withJitter(0.2));
+        
+        expiryPolicies.put("availability",
+                CacheExpiryPolicy.fixed(Duration.ofMinutes(5)).withJitter(0.1));
+        
+        expiryPolicies.put("ratingSummaries",
+                CacheExpiryPolicy.fixed(Duration.ofMinutes(30)).withJitter(0.1));
+        
+        return expiryPolicies;
+    }
+    
+    private Map<String, CacheLoadPolicy> cacheLoadPolicies() {
+        Map<String, CacheLoadPolicy> loadPolicies = new HashMap<>();
+        
+        loadPolicies.put("categories",
+                CacheLoadPolicy.distributed(Duration.ofSeconds(10), Duration.ofSeconds(2))
+                        .withStaleFallback(Duration.ofHours(2)));
+        
+        loadPolicies.put("products",
+                CacheLoadPolicy.distributed(Duration.ofSeconds(5), Duration.ofSeconds(1))
+                        .withStaleFallback(Duration.ofHours(1)));
+        
+        loadPolicies.put("prices",
+                CacheLoadPolicy.distributed(Duration.ofSeconds(5), Duration.ofSeconds(1)));
+        
+        loadPolicies.put("searchResults", CacheLoadPolicy.singleFlightOnly());
+        
+        loadPolicies.put("availability", CacheLoadPolicy.singleFlightOnly());
+        
+        loadPolicies.put("ratingSummaries", CacheLoadPolicy.singleFlightOnly());
+        
+        return loadPolicies;
+    }
+    
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheInvalidationListener listener) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(listener, new ChannelTopic(CacheInvalidationPublisher.CHANNEL));
+        return container;
+    }
+    
+    private Caffeine<Object, Object> caffeineBuilder(LocalCacheProperties.Spec spec) {
+        if (spec.maximumSize() != null && spec.maximumWeight() != null) {
+            throw new IllegalStateException("maximum-size and maximum-weight are mutually exclusive");
+        }
+        
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.maximumWeight() != null) {
+            builder.maximumWeight(spec.maximumWeight().toBytes()).weigher(new CacheValueWeigher());
+        } else if (spec.maximumSize() != null) {
+            builder.maximumSize(spec.maximumSize());
+        }
+        if (spec.expireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.expireAfterWrite());
+        }
+        if (spec.expireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.expireAfterAccess());
+        }
+        if (spec.refreshAfterWrite() != null) {
+            builder.refreshAfterWrite(spec.refreshAfterWrite());
+        }
+        return builder;
+    }
+    
+    // зависимость от transactionManager: refresh-ahead в read-only транзакции завершится до закрытия DataSource
+    @Bean("cacheRefreshExecutor")
+    public ThreadPoolTaskExecutor cacheRefreshExecutor(PlatformTransactionManager transactionManager) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setTaskDecorator(task -> () -> readOnlyTransaction.executeWithoutResult(status -> task.run()));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+    
+    // зависимость от redisCacheManager: Spring остановит пул раньше, чем закроет соединения с Redis
+    @Bean("localCacheReloadExecutor")
+    @DependsOn("redisCacheManager")
+    public ThreadPoolTaskExecutor localCacheReloadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("l1-reload-");
+        executor.setDaemon(true);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(5);
+        return executor;
+    }
+    
+    private RedisCacheConfiguration createCacheConfig(CacheExpiryPolicy expiryPolicy,
+                                                      RedisSerializer<Object> valueSerializer) {
         return RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(ttl)
+                .entryTtl((key, value) -> expiryPolicy.timeToLive(value))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair
                         .fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                        .fromSerializer(valueSerializer))
                 .disableCachingNullValues();
     }
 }
@@ -0,0 +1,37 @@
+package com.fersko.cacheredis.config;
+
+import com.fersko.cacheredis.cache.TwoLevelCache;
+import com.fersko.cacheredis.cache.TwoLevelCacheMetrics;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.commonspool2.CommonsObjectPool2Metrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheMetricsConfig {
+    
+    @Bean
+    public CacheMeterBinderProvider<TwoLevelCache> twoLevelCacheMeterBinderProvider() {
+        return new CacheMeterBinderProvider<>() {
+            @Override
+            public MeterBinder getMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+                return new TwoLevelCacheMetrics(cache, tags);
+            }
+        };
+    }
+    
+    @Bean
+    public CommonsObjectPool2Metrics redisPoolMetrics() {
+        return new CommonsObjectPool2Metrics();
+    }
+    
+    @Bean
+    public MicrometerOptions lettuceMicrometerOptions() {
+        return MicrometerOptions.builder()
+                .histogram(true)
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.change-notifications")
+public record ChangeNotificationProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100ms") Duration batchWindow,
+        @DefaultValue("1000") int maxBatchSize,
+        @DefaultValue("500ms") Duration pollTimeout,
+        @DefaultValue("5s") Duration reconnectBackoff,
+        @DefaultValue("1m") Duration resyncLease
+) {}
@@ -0,0 +1,12 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.conditional-get")
+public record ConditionalGetProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("24h") Duration versionTtl
+) {}
@@ -0,0 +1,39 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "app.cache.local")
+public record LocalCacheProperties(
+        Spec defaults,
+        Map<String, Spec> caches
+) {
+    
+    public LocalCacheProperties {
+        defaults = defaults != null ? defaults : new Spec(null, null, null, null, null);
+        caches = caches != null ? Map.copyOf(caches) : Map.of();
+    }
+    
+    public record Spec(
+            Long maximumSize,
+            DataSize maximumWeight,
+            Duration expireAfterWrite,
+            Duration expireAfterAccess,
+            Duration refreshAfterWrite
+    ) {
+        
+        public Spec withDefaults(Spec defaults) {
+            boolean bounded = maximumSize != null || maximumWeight != null;
+            return new Spec(
+                    bounded ? maximumSize : defaults.maximumSize(),
+                    bounded ? maximumWeight : defaults.maximumWeight(),
+                    expireAfterWrite != null ? expireAfterWrite : defaults.expireAfterWrite(),
+                    expireAfterAccess != null ? expireAfterAccess : defaults.expireAfterAccess(),
+                    refreshAfterWrite != null ? refreshAfterWrite : defaults.refreshAfterWrite()
+            );
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.negative-lookup")
+public record NegativeLookupProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long initialCapacity,
+        @DefaultValue("0.01") double falsePositiveRate,
+        @DefaultValue("10000") int fetchSize
+) {}
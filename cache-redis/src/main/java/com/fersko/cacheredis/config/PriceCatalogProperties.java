@@ -0,0 +1,11 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.price-catalog")
+public record PriceCatalogProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") int fetchSize
+) {
+}
@@ -0,0 +1,16 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.search")
+public record ProductSearchProperties(
+        @DefaultValue("sql") Engine engine,
+        @DefaultValue("0.25") double compactionRatio
+) {
+    
+    public enum Engine {
+        SQL,
+        INDEX
+    }
+}
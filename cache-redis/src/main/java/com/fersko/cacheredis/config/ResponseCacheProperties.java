@@ -0,0 +1,16 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.response-cache")
+public record ResponseCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("64MB") DataSize maximumWeight,
+        @DefaultValue("2MB") DataSize maxBodySize,
+        @DefaultValue("1KB") DataSize compressionThreshold,
+        @DefaultValue("10m") Duration expireAfterWrite
+) {}
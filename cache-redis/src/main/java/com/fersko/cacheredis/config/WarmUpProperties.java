@@ -0,0 +1,16 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.warm-up")
+public record WarmUpProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("true") boolean blockReadiness,
+        @DefaultValue({"categories", "products", "prices"}) List<String> caches,
+        @DefaultValue("1000") int fetchSize,
+        @DefaultValue("500") int chunkSize,
+        @DefaultValue("4") int parallelism
+) {}
@@ -0,0 +1,20 @@
+package com.fersko.cacheredis.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.write-behind")
+public record WriteBehindProperties(
+        @DefaultValue("data/write-behind") Path journalDir,
+        @DefaultValue("10000") int capacity,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("1s") Duration flushInterval,
+        @DefaultValue("2s") Duration enqueueTimeout,
+        @DefaultValue("5s") Duration retryBackoff,
+        @DefaultValue("true") boolean fsync,
+        @DefaultValue("16MB") DataSize journalSegmentSize
+) {}
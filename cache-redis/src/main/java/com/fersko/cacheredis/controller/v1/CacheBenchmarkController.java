@@ -0,0 +1,64 @@
+package com.fersko.cacheredis.controller.v1;
+
+import com.fersko.cacheredis.codec.CacheCodecBenchmark;
+import com.fersko.cacheredis.pricing.PriceCatalogBenchmark;
+import com.fersko.cacheredis.search.ProductSearchBenchmark;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/cache-demo")
+@RequiredArgsConstructor
+@Profile("benchmark")
+public class CacheBenchmarkController {
+    
+    private final CacheCodecBenchmark codecBenchmark;
+    private final ProductSearchBenchmark searchBenchmark;
+    private final PriceCatalogBenchmark priceCatalogBenchmark;
+    
+    @PostMapping("/codec-benchmark")
+    public ResponseEntity<String> benchmarkCodecs(@RequestParam(defaultValue = "500") int items,
+                                                  @RequestParam(defaultValue = "2000") int iterations) {
+        try {
+            String result = codecBenchmark.run(items, iterations);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @PostMapping("/search-benchmark")
+    public ResponseEntity<String> benchmarkSearch(
+            @RequestParam(defaultValue = "prem,gadget 1,sku-001,advanced") List<String> terms,
+            @RequestParam(defaultValue = "500") int iterations,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            String result = searchBenchmark.run(terms, iterations, limit);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+    
+    @PostMapping("/price-benchmark")
+    public ResponseEntity<String> benchmarkPriceCatalog(
+            @RequestParam(defaultValue = "USD") String currency,
+            @RequestParam(defaultValue = "1000") int iterations,
+            @RequestParam(defaultValue = "100") int batchSize) {
+        try {
+            String result = priceCatalogBenchmark.run(currency, iterations, batchSize);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+}
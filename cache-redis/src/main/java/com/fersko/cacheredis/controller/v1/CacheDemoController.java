@@ -1,8 +1,12 @@
 package com.fersko.cacheredis.controller.v1;
 
 import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.WarmUpProgressDto;
 import com.fersko.cacheredis.service.CacheDemoService;
+import com.fersko.cacheredis.service.CacheWarmUpService;
+import com.fersko.cacheredis.writebehind.WriteBehindOverloadedException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,6 +18,7 @@ import java.util.UUID;
 public class CacheDemoController {
     
     private final CacheDemoService cacheDemoService;
+    private final CacheWarmUpService cacheWarmUpService;
     
     @GetMapping("/cache-aside/{id}")
     public ResponseEntity<CategoryDto> demonstrateCacheAside(@PathVariable UUID id) {
@@ -31,14 +36,24 @@ public class CacheDemoController {
     public ResponseEntity<CategoryDto> demonstrateWriteBehind(
             @PathVariable UUID id, 
             @RequestBody CategoryDto categoryDto) {
-        CategoryDto updatedCategory = cacheDemoService.updateCategoryWithWriteBehind(id, categoryDto);
-        return ResponseEntity.ok(updatedCategory);
+        try {
+            CategoryDto updatedCategory = cacheDemoService.updateCategoryWithWriteBehind(id, categoryDto);
+            return ResponseEntity.ok(updatedCategory);
+        } catch (WriteBehindOverloadedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
     }
     
     @PostMapping("/warm-up")
-    public ResponseEntity<String> warmUpCache() {
-        cacheDemoService.warmUpCache();
-        return ResponseEntity.ok("Cache warmed up successfully");
+    public ResponseEntity<WarmUpProgressDto> warmUpCache() {
+        return ResponseEntity.accepted().body(cacheWarmUpService.startWarmUp());
+    }
+    
+    @GetMapping("/warm-up")
+    public ResponseEntity<WarmUpProgressDto> getWarmUpProgress() {
+        return ResponseEntity.ok(cacheWarmUpService.getProgress());
     }
     
     @GetMapping("/hit-miss/{id}")
@@ -2,10 +2,13 @@ package com.fersko.cacheredis.controller.v1;
 
 import com.fersko.cacheredis.dto.CategoryDto;
 import com.fersko.cacheredis.service.CategoryService;
+import com.fersko.cacheredis.service.ReactiveCatalogService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.UUID;
@@ -16,6 +19,7 @@ import java.util.UUID;
 public class CategoryController {
     
     private final CategoryService categoryService;
+    private final ReactiveCatalogService reactiveCatalogService;
     
     @PostMapping
     public ResponseEntity<CategoryDto> createCategory(@RequestBody CategoryDto categoryDto) {
@@ -23,6 +27,16 @@ public class CategoryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdCategory);
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<List<CategoryDto>> upsertCategories(@RequestBody List<CategoryDto> categories) {
+        try {
+            List<CategoryDto> saved = categoryService.upsertCategories(categories);
+            return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<CategoryDto> getCategoryById(@PathVariable UUID id) {
         return categoryService.getCategoryById(id)
@@ -64,9 +78,14 @@ public class CategoryController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<CategoryDto>> searchCategories(@RequestParam String q) {
-        List<CategoryDto> categories = categoryService.searchCategories(q);
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<List<CategoryDto>> searchCategories(@RequestParam String q,
+                                                              @RequestParam(required = false) Integer limit) {
+        try {
+            List<CategoryDto> categories = categoryService.searchCategories(q, limit);
+            return ResponseEntity.ok(categories);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/exists/slug")
@@ -74,4 +93,23 @@ public class CategoryController {
         boolean exists = categoryService.existsBySlug(slug);
         return ResponseEntity.ok(exists);
     }
+    
+    @GetMapping("/reactive/{id}")
+    public Mono<ResponseEntity<CategoryDto>> getCategoryByIdReactive(@PathVariable UUID id) {
+        return reactiveCatalogService.getCategoryById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/reactive/slug/{slug}")
+    public Mono<ResponseEntity<CategoryDto>> getCategoryBySlugReactive(@PathVariable String slug) {
+        return reactiveCatalogService.getCategoryBySlug(slug)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/reactive")
+    public Flux<CategoryDto> getAllCategoriesReactive() {
+        return reactiveCatalogService.getAllCategories();
+    }
 }
@@ -1,11 +1,19 @@
 package com.fersko.cacheredis.controller.v1;
 
+import com.fersko.cacheredis.dto.InventoryAdjustment;
 import com.fersko.cacheredis.dto.InventoryDto;
+import com.fersko.cacheredis.dto.PageDto;
+import com.fersko.cacheredis.dto.ProductAvailabilityDto;
 import com.fersko.cacheredis.service.InventoryService;
+import com.fersko.cacheredis.service.ReactiveCatalogService;
+import com.fersko.cacheredis.writebehind.WriteBehindOverloadedException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.UUID;
@@ -16,6 +24,7 @@ import java.util.UUID;
 public class InventoryController {
     
     private final InventoryService inventoryService;
+    private final ReactiveCatalogService reactiveCatalogService;
     
     @PostMapping
     public ResponseEntity<InventoryDto> createInventory(@RequestBody InventoryDto inventoryDto) {
@@ -23,6 +32,16 @@ public class InventoryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdInventory);
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<List<InventoryDto>> upsertInventory(@RequestBody List<InventoryDto> inventory) {
+        try {
+            List<InventoryDto> saved = inventoryService.upsertInventory(inventory);
+            return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/product/{productId}/warehouse/{warehouseId}")
     public ResponseEntity<InventoryDto> getInventory(
             @PathVariable UUID productId,
@@ -44,18 +63,57 @@ public class InventoryController {
         return ResponseEntity.ok(inventory);
     }
     
+    @PostMapping("/warehouse/{warehouseId}/multi-get")
+    public ResponseEntity<List<InventoryDto>> getInventoryByProductIds(@PathVariable Long warehouseId,
+                                                                       @RequestBody List<UUID> productIds) {
+        try {
+            return ResponseEntity.ok(inventoryService.getInventoryByProductIds(productIds, warehouseId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/available")
     public ResponseEntity<List<InventoryDto>> getAvailableInventory() {
         List<InventoryDto> inventory = inventoryService.getAvailableInventory();
         return ResponseEntity.ok(inventory);
     }
     
+    @GetMapping("/available/page")
+    public ResponseEntity<PageDto<InventoryDto>> getAvailableInventoryPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(inventoryService.getAvailableInventoryPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping(value = "/available/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<InventoryDto> streamAvailableInventory() {
+        return inventoryService.streamAvailableInventory();
+    }
+    
     @GetMapping("/available/product/{productId}")
     public ResponseEntity<List<InventoryDto>> getAvailableInventoryByProductId(@PathVariable UUID productId) {
         List<InventoryDto> inventory = inventoryService.getAvailableInventoryByProductId(productId);
         return ResponseEntity.ok(inventory);
     }
     
+    @GetMapping("/availability/product/{productId}")
+    public ResponseEntity<ProductAvailabilityDto> getProductAvailability(@PathVariable UUID productId) {
+        return inventoryService.getProductAvailability(productId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/availability/category/{categoryId}")
+    public ResponseEntity<List<ProductAvailabilityDto>> getAvailabilityByCategoryId(@PathVariable UUID categoryId) {
+        List<ProductAvailabilityDto> availability = inventoryService.getAvailabilityByCategoryId(categoryId);
+        return ResponseEntity.ok(availability);
+    }
+    
     @PutMapping("/product/{productId}/warehouse/{warehouseId}")
     public ResponseEntity<InventoryDto> updateInventory(
             @PathVariable UUID productId,
@@ -69,6 +127,58 @@ public class InventoryController {
         }
     }
     
+    @PutMapping("/product/{productId}/warehouse/{warehouseId}/write-behind")
+    public ResponseEntity<InventoryDto> updateInventoryWriteBehind(
+            @PathVariable UUID productId,
+            @PathVariable Long warehouseId,
+            @RequestBody InventoryDto inventoryDto) {
+        try {
+            InventoryDto acceptedInventory = inventoryService.updateInventoryWriteBehind(productId, warehouseId, inventoryDto);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(acceptedInventory);
+        } catch (WriteBehindOverloadedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @PostMapping("/product/{productId}/warehouse/{warehouseId}/increment")
+    public ResponseEntity<Object> incrementInventory(
+            @PathVariable UUID productId,
+            @PathVariable Long warehouseId,
+            @RequestParam int quantity) {
+        try {
+            return toResponse(inventoryService.incrementInventory(productId, warehouseId, quantity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/product/{productId}/warehouse/{warehouseId}/decrement")
+    public ResponseEntity<Object> decrementInventory(
+            @PathVariable UUID productId,
+            @PathVariable Long warehouseId,
+            @RequestParam int quantity) {
+        try {
+            return toResponse(inventoryService.decrementInventory(productId, warehouseId, quantity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/product/{productId}/reserve")
+    public ResponseEntity<Object> reserveInventory(
+            @PathVariable UUID productId,
+            @RequestParam int quantity) {
+        try {
+            return toResponse(inventoryService.reserveInventory(productId, quantity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @DeleteMapping("/product/{productId}/warehouse/{warehouseId}")
     public ResponseEntity<Void> deleteInventory(
             @PathVariable UUID productId,
@@ -88,4 +198,32 @@ public class InventoryController {
         boolean exists = inventoryService.existsByProductIdAndWarehouseId(productId, warehouseId);
         return ResponseEntity.ok(exists);
     }
+    
+    @GetMapping("/reactive/product/{productId}/warehouse/{warehouseId}")
+    public Mono<ResponseEntity<InventoryDto>> getInventoryReactive(
+            @PathVariable UUID productId,
+            @PathVariable Long warehouseId) {
+        return reactiveCatalogService.getInventory(productId, warehouseId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/reactive/product/{productId}")
+    public Flux<InventoryDto> getInventoryByProductIdReactive(@PathVariable UUID productId) {
+        return reactiveCatalogService.getInventoryByProductId(productId);
+    }
+    
+    @GetMapping("/reactive/available/product/{productId}")
+    public Flux<InventoryDto> getAvailableInventoryByProductIdReactive(@PathVariable UUID productId) {
+        return reactiveCatalogService.getAvailableInventoryByProductId(productId);
+    }
+    
+    private ResponseEntity<Object> toResponse(InventoryAdjustment adjustment) {
+        return switch (adjustment) {
+            case InventoryAdjustment.Applied applied -> ResponseEntity.ok(applied.inventory());
+            case InventoryAdjustment.InsufficientStock insufficient ->
+                    ResponseEntity.status(HttpStatus.CONFLICT).body(insufficient);
+            case InventoryAdjustment.NotFound notFound -> ResponseEntity.notFound().build();
+        };
+    }
 }
@@ -1,11 +1,16 @@
 package com.fersko.cacheredis.controller.v1;
 
+import com.fersko.cacheredis.dto.PageDto;
 import com.fersko.cacheredis.dto.ProductDto;
 import com.fersko.cacheredis.service.ProductService;
+import com.fersko.cacheredis.service.ReactiveCatalogService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.UUID;
@@ -16,6 +21,7 @@ import java.util.UUID;
 public class ProductController {
     
     private final ProductService productService;
+    private final ReactiveCatalogService reactiveCatalogService;
     
     @PostMapping
     public ResponseEntity<ProductDto> createProduct(@RequestBody ProductDto productDto) {
@@ -23,6 +29,16 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProductDto>> upsertProducts(@RequestBody List<ProductDto> products) {
+        try {
+            List<ProductDto> saved = productService.upsertProducts(products);
+            return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<ProductDto> getProductById(@PathVariable UUID id) {
         return productService.getProductById(id)
@@ -43,6 +59,31 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
     
+    @PostMapping("/multi-get")
+    public ResponseEntity<List<ProductDto>> getProductsByIds(@RequestBody List<UUID> ids) {
+        try {
+            return ResponseEntity.ok(productService.getProductsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/page")
+    public ResponseEntity<PageDto<ProductDto>> getProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(productService.getProductsPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductDto> streamAllProducts() {
+        return productService.streamAllProducts();
+    }
+    
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<List<ProductDto>> getProductsByCategoryId(@PathVariable UUID categoryId) {
         List<ProductDto> products = productService.getProductsByCategoryId(categoryId);
@@ -70,9 +111,14 @@ public class ProductController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<ProductDto>> searchProducts(@RequestParam String q) {
-        List<ProductDto> products = productService.searchProducts(q);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDto>> searchProducts(@RequestParam String q,
+                                                           @RequestParam(required = false) Integer limit) {
+        try {
+            List<ProductDto> products = productService.searchProducts(q, limit);
+            return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/exists/sku")
@@ -80,4 +126,21 @@ public class ProductController {
         boolean exists = productService.existsBySku(sku);
         return ResponseEntity.ok(exists);
     }
+    
+    @GetMapping("/reactive/{id}")
+    public Mono<ResponseEntity<ProductDto>> getProductByIdReactive(@PathVariable UUID id) {
+        return reactiveCatalogService.getProductById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/reactive")
+    public Flux<ProductDto> getAllProductsReactive() {
+        return reactiveCatalogService.getAllProducts();
+    }
+    
+    @GetMapping("/reactive/category/{categoryId}")
+    public Flux<ProductDto> getProductsByCategoryIdReactive(@PathVariable UUID categoryId) {
+        return reactiveCatalogService.getProductsByCategoryId(categoryId);
+    }
 }
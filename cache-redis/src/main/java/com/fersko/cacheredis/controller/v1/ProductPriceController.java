@@ -1,11 +1,17 @@
 package com.fersko.cacheredis.controller.v1;
 
+import com.fersko.cacheredis.dto.PageDto;
 import com.fersko.cacheredis.dto.ProductPriceDto;
 import com.fersko.cacheredis.service.ProductPriceService;
+import com.fersko.cacheredis.service.ReactiveCatalogService;
+import com.fersko.cacheredis.writebehind.WriteBehindOverloadedException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.UUID;
@@ -16,6 +22,7 @@ import java.util.UUID;
 public class ProductPriceController {
     
     private final ProductPriceService productPriceService;
+    private final ReactiveCatalogService reactiveCatalogService;
     
     @PostMapping
     public ResponseEntity<ProductPriceDto> createProductPrice(@RequestBody ProductPriceDto productPriceDto) {
@@ -23,6 +30,16 @@ public class ProductPriceController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProductPrice);
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProductPriceDto>> upsertProductPrices(@RequestBody List<ProductPriceDto> prices) {
+        try {
+            List<ProductPriceDto> saved = productPriceService.upsertProductPrices(prices);
+            return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/product/{productId}/currency/{currency}")
     public ResponseEntity<ProductPriceDto> getProductPrice(@PathVariable UUID productId, @PathVariable String currency) {
         return productPriceService.getProductPrice(productId, currency)
@@ -42,6 +59,33 @@ public class ProductPriceController {
         return ResponseEntity.ok(prices);
     }
     
+    @PostMapping("/currency/{currency}/multi-get")
+    public ResponseEntity<List<ProductPriceDto>> getPricesByProductIds(@PathVariable String currency,
+                                                                       @RequestBody List<UUID> productIds) {
+        try {
+            return ResponseEntity.ok(productPriceService.getPricesByProductIds(productIds, currency));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/currency/{currency}/page")
+    public ResponseEntity<PageDto<ProductPriceDto>> getPricesByCurrencyPage(
+            @PathVariable String currency,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(productPriceService.getPricesByCurrencyPage(currency, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping(value = "/currency/{currency}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductPriceDto> streamPricesByCurrency(@PathVariable String currency) {
+        return productPriceService.streamPricesByCurrency(currency);
+    }
+    
     @PutMapping("/product/{productId}/currency/{currency}")
     public ResponseEntity<ProductPriceDto> updateProductPrice(
             @PathVariable UUID productId,
@@ -55,6 +99,23 @@ public class ProductPriceController {
         }
     }
     
+    @PutMapping("/product/{productId}/currency/{currency}/write-behind")
+    public ResponseEntity<ProductPriceDto> updateProductPriceWriteBehind(
+            @PathVariable UUID productId,
+            @PathVariable String currency,
+            @RequestBody ProductPriceDto productPriceDto) {
+        try {
+            ProductPriceDto acceptedPrice = productPriceService.updateProductPriceWriteBehind(productId, currency, productPriceDto);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(acceptedPrice);
+        } catch (WriteBehindOverloadedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @DeleteMapping("/product/{productId}/currency/{currency}")
     public ResponseEntity<Void> deleteProductPrice(@PathVariable UUID productId, @PathVariable String currency) {
         try {
@@ -72,4 +133,23 @@ public class ProductPriceController {
         boolean exists = productPriceService.existsByProductIdAndCurrency(productId, currency);
         return ResponseEntity.ok(exists);
     }
+    
+    @GetMapping("/reactive/product/{productId}/currency/{currency}")
+    public Mono<ResponseEntity<ProductPriceDto>> getProductPriceReactive(
+            @PathVariable UUID productId,
+            @PathVariable String currency) {
+        return reactiveCatalogService.getProductPrice(productId, currency)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/reactive/product/{productId}")
+    public Flux<ProductPriceDto> getProductPricesReactive(@PathVariable UUID productId) {
+        return reactiveCatalogService.getProductPrices(productId);
+    }
+    
+    @GetMapping("/reactive/currency/{currency}")
+    public Flux<ProductPriceDto> getPricesByCurrencyReactive(@PathVariable String currency) {
+        return reactiveCatalogService.getPricesByCurrency(currency);
+    }
 }
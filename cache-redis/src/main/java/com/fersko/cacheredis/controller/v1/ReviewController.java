@@ -1,11 +1,15 @@
 package com.fersko.cacheredis.controller.v1;
 
+import com.fersko.cacheredis.dto.PageDto;
+import com.fersko.cacheredis.dto.RatingSummaryDto;
 import com.fersko.cacheredis.dto.ReviewDto;
 import com.fersko.cacheredis.service.ReviewService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.UUID;
@@ -23,6 +27,16 @@ public class ReviewController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdReview);
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<List<ReviewDto>> createReviews(@RequestBody List<ReviewDto> reviews) {
+        try {
+            List<ReviewDto> saved = reviewService.createReviews(reviews);
+            return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<ReviewDto> getReviewById(@PathVariable UUID id) {
         return reviewService.getReviewById(id)
@@ -42,6 +56,23 @@ public class ReviewController {
         return ResponseEntity.ok(reviews);
     }
     
+    @GetMapping("/rating/{rating}/page")
+    public ResponseEntity<PageDto<ReviewDto>> getReviewsByRatingPage(
+            @PathVariable Short rating,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(reviewService.getReviewsByRatingPage(rating, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping(value = "/rating/{rating}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReviewDto> streamReviewsByRating(@PathVariable Short rating) {
+        return reviewService.streamReviewsByRating(rating);
+    }
+    
     @GetMapping("/product/{productId}/min-rating/{minRating}")
     public ResponseEntity<List<ReviewDto>> getReviewsByProductIdAndMinRating(
             @PathVariable UUID productId,
@@ -82,4 +113,23 @@ public class ReviewController {
         Long count = reviewService.countReviewsByProductId(productId);
         return ResponseEntity.ok(count);
     }
+    
+    @GetMapping("/product/{productId}/summary")
+    public ResponseEntity<RatingSummaryDto> getRatingSummary(@PathVariable UUID productId) {
+        return ResponseEntity.ok(reviewService.getRatingSummary(productId));
+    }
+    
+    @PostMapping("/summaries/multi-get")
+    public ResponseEntity<List<RatingSummaryDto>> getRatingSummaries(@RequestBody List<UUID> productIds) {
+        try {
+            return ResponseEntity.ok(reviewService.getRatingSummaries(productIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/summaries/rebuild")
+    public ResponseEntity<Integer> rebuildRatingSummaries() {
+        return ResponseEntity.ok(reviewService.rebuildRatingSummaries());
+    }
 }
@@ -0,0 +1,13 @@
+package com.fersko.cacheredis.dto;
+
+import java.util.UUID;
+
+public sealed interface InventoryAdjustment {
+    
+    record Applied(InventoryDto inventory) implements InventoryAdjustment {}
+    
+    record InsufficientStock(UUID productId, Long warehouseId, int available, int requested)
+            implements InventoryAdjustment {}
+    
+    record NotFound(UUID productId, Long warehouseId) implements InventoryAdjustment {}
+}
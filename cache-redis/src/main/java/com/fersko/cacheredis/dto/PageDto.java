@@ -0,0 +1,18 @@
+package com.fersko.cacheredis.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record PageDto<T>(
+        List<T> items,
+        String nextCursor
+) {
+    
+    public static <T> PageDto<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new PageDto<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new PageDto<>(List.copyOf(items), cursorOf.apply(items.getLast()));
+    }
+}
@@ -0,0 +1,11 @@
+package com.fersko.cacheredis.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record ProductAvailabilityDto(
+        UUID productId,
+        Long totalQuantity,
+        Integer warehousesInStock,
+        OffsetDateTime updatedAt
+) {}
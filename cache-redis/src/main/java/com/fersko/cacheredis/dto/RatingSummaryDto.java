@@ -0,0 +1,29 @@
+package com.fersko.cacheredis.dto;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public record RatingSummaryDto(
+        UUID productId,
+        Long reviewCount,
+        Long ratingSum,
+        Double averageRating,
+        List<Long> histogram,
+        OffsetDateTime updatedAt
+) {
+    
+    public static RatingSummaryDto empty(UUID productId) {
+        return new RatingSummaryDto(productId, 0L, 0L, null, histogram(0, 0, 0, 0, 0), null);
+    }
+    
+    public static List<Long> histogram(long... counts) {
+        // ArrayList, а не List.of: вложенные ImmutableCollections Jackson не восстанавливает из Redis
+        List<Long> histogram = new ArrayList<>(counts.length);
+        for (long count : counts) {
+            histogram.add(count);
+        }
+        return histogram;
+    }
+}
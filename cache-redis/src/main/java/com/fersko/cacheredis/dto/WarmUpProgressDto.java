@@ -0,0 +1,14 @@
+package com.fersko.cacheredis.dto;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+public record WarmUpProgressDto(
+        String state,
+        OffsetDateTime startedAt,
+        OffsetDateTime finishedAt,
+        Map<String, Long> entriesByCache,
+        long totalEntries,
+        double entriesPerSecond,
+        String error
+) {}
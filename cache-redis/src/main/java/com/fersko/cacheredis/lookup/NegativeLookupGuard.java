@@ -0,0 +1,190 @@
+package com.fersko.cacheredis.lookup;
+
+import com.fersko.cacheredis.config.ChangeNotificationProperties;
+import com.fersko.cacheredis.config.NegativeLookupProperties;
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+public class NegativeLookupGuard {
+    
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final NegativeLookupProperties properties;
+    private final ChangeNotificationProperties changeNotifications;
+    
+    private final Object rebuildLock = new Object();
+    private final Map<KeySpace, LongAdder> rejected = new EnumMap<>(KeySpace.class);
+    private final AtomicLong subscriptionChanges = new AtomicLong();
+    private volatile Map<KeySpace, ScalableBloomFilter> filters = Map.of();
+    private volatile Map<KeySpace, ScalableBloomFilter> building;
+    private volatile boolean ready;
+    private volatile boolean changesSubscribed;
+    private volatile boolean coversSubscription;
+    
+    public NegativeLookupGuard(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               NegativeLookupProperties properties,
+                               ChangeNotificationProperties changeNotifications) {
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(properties.fetchSize());
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.changeNotifications = changeNotifications;
+        for (KeySpace keySpace : KeySpace.values()) {
+            rejected.put(keySpace, new LongAdder());
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildIfBehind();
+    }
+    
+    public boolean isReady() {
+        return ready && properties.enabled();
+    }
+    
+    public boolean isServing() {
+        return isReady() && changeNotifications.enabled() && coversSubscription;
+    }
+    
+    public synchronized void onChangesSubscription(boolean subscribed) {
+        if (changesSubscribed == subscribed) {
+            return;
+        }
+        // вставки других узлов между подписками не видны, фильтр снова обслуживает только после rebuild
+        subscriptionChanges.incrementAndGet();
+        changesSubscribed = subscribed;
+        coversSubscription = false;
+    }
+    
+    public void rebuildIfBehind() {
+        if (!properties.enabled()) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            if (!ready || !coversSubscription) {
+                rebuild();
+            }
+        }
+    }
+    
+    public void rebuild() {
+        long start = System.nanoTime();
+        synchronized (rebuildLock) {
+            long subscription = subscriptionChanges.get();
+            boolean subscribedAtStart = changesSubscribed;
+            Map<KeySpace, ScalableBloomFilter> fresh = new EnumMap<>(KeySpace.class);
+            for (KeySpace keySpace : KeySpace.values()) {
+                fresh.put(keySpace, new ScalableBloomFilter(properties.initialCapacity(),
+                        properties.falsePositiveRate()));
+            }
+            building = fresh;
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    streamingJdbcTemplate.query("SELECT id, sku FROM product", (RowCallbackHandler) rs -> {
+                        fresh.get(KeySpace.PRODUCT_ID).add(rs.getString(1));
+                        fresh.get(KeySpace.PRODUCT_SKU).add(rs.getString(2));
+                    });
+                    streamingJdbcTemplate.query("SELECT slug FROM category",
+                            (RowCallbackHandler) rs -> fresh.get(KeySpace.CATEGORY_SLUG).add(rs.getString(1)));
+                });
+                filters = fresh;
+                ready = true;
+                coversSubscription = subscribedAtStart && subscriptionChanges.get() == subscription;
+            } finally {
+                building = null;
+            }
+        }
+        
+        Map<KeySpace, Stats> stats = stats();
+        log.info("Фильтры отсутствующих ключей построены за {} мс: {}", (System.nanoTime() - start) / 1_000_000, stats);
+    }
+    
+    public boolean mightContainProduct(UUID id) {
+        return mightContain(KeySpace.PRODUCT_ID, id.toString());
+    }
+    
+    public boolean mightContainSku(String sku) {
+        return mightContain(KeySpace.PRODUCT_SKU, sku);
+    }
+    
+    public boolean mightContainSlug(String slug) {
+        return mightContain(KeySpace.CATEGORY_SLUG, slug);
+    }
+    
+    public void recordProducts(Collection<ProductDto> products) {
+        for (ProductDto product : products) {
+            add(KeySpace.PRODUCT_ID, product.id().toString());
+            add(KeySpace.PRODUCT_SKU, product.sku());
+        }
+    }
+    
+    public void recordCategories(Collection<CategoryDto> categories) {
+        categories.forEach(category -> recordSlug(category.slug()));
+    }
+    
+    public void recordSlug(String slug) {
+        add(KeySpace.CATEGORY_SLUG, slug);
+    }
+    
+    public Map<KeySpace, Stats> stats() {
+        Map<KeySpace, ScalableBloomFilter> current = filters;
+        Map<KeySpace, Stats> stats = new EnumMap<>(KeySpace.class);
+        current.forEach((keySpace, filter) -> stats.put(keySpace, new Stats(filter.insertions(),
+                filter.stageCount(), filter.sizeInBytes(), rejected.get(keySpace).sum())));
+        return stats;
+    }
+    
+    private boolean mightContain(KeySpace keySpace, String value) {
+        if (value == null || !isServing()) {
+            return true;
+        }
+        if (filters.get(keySpace).mightContain(value)) {
+            return true;
+        }
+        rejected.get(keySpace).increment();
+        return false;
+    }
+    
+    private void add(KeySpace keySpace, String value) {
+        if (value == null) {
+            return;
+        }
+        Map<KeySpace, ScalableBloomFilter> pending = building;
+        if (pending != null) {
+            pending.get(keySpace).add(value);
+        }
+        ScalableBloomFilter filter = filters.get(keySpace);
+        if (filter != null) {
+            filter.add(value);
+        }
+    }
+    
+    public enum KeySpace {
+        PRODUCT_ID,
+        PRODUCT_SKU,
+        CATEGORY_SLUG
+    }
+    
+    public record Stats(long insertions, int stages, long bytes, long rejected) {
+    }
+}
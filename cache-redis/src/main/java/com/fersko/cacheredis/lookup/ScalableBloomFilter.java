@@ -0,0 +1,152 @@
+package com.fersko.cacheredis.lookup;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class ScalableBloomFilter {
+    
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+    
+    private volatile Stage[] stages;
+    
+    ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be in (0, 1)");
+        }
+        this.stages = new Stage[]{new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO))};
+    }
+    
+    boolean mightContain(String value) {
+        long hash1 = hash(value);
+        return mightContain(hash1, secondHash(hash1));
+    }
+    
+    void add(String value) {
+        long hash1 = hash(value);
+        long hash2 = secondHash(hash1);
+        if (mightContain(hash1, hash2)) {
+            return;
+        }
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (last.isFull()) {
+            last = grow();
+        }
+        last.add(hash1, hash2);
+    }
+    
+    int stageCount() {
+        return stages.length;
+    }
+    
+    long insertions() {
+        long insertions = 0;
+        for (Stage stage : stages) {
+            insertions += stage.insertions.get();
+        }
+        return insertions;
+    }
+    
+    long sizeInBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += (long) stage.bits.length() * Long.BYTES;
+        }
+        return bytes;
+    }
+    
+    private boolean mightContain(long hash1, long hash2) {
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private synchronized Stage grow() {
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (!last.isFull()) {
+            return last;
+        }
+        Stage next = new Stage(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+        Stage[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = next;
+        stages = grown;
+        return next;
+    }
+    
+    static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+    
+    private static long secondHash(long hash1) {
+        return mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+    }
+    
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+    
+    private static final class Stage {
+        
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray bits;
+        private final AtomicLong insertions = new AtomicLong();
+        
+        private Stage(long capacity, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long words = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2) / Long.SIZE);
+            if (words > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Bloom filter stage for " + capacity + " keys is too large");
+            }
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            this.bits = new AtomicLongArray((int) Math.max(1, words));
+            this.bitCount = (long) bits.length() * Long.SIZE;
+            this.hashCount = (int) Math.max(1, Math.round((double) bitCount / capacity * ln2));
+        }
+        
+        private boolean isFull() {
+            return insertions.get() >= capacity;
+        }
+        
+        private boolean mightContain(long hash1, long hash2) {
+            long combined = hash1;
+            for (int i = 0; i < hashCount; i++) {
+                long index = (combined & Long.MAX_VALUE) % bitCount;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+                combined += hash2;
+            }
+            return true;
+        }
+        
+        private void add(long hash1, long hash2) {
+            long combined = hash1;
+            for (int i = 0; i < hashCount; i++) {
+                long index = (combined & Long.MAX_VALUE) % bitCount;
+                long mask = 1L << index;
+                bits.getAndAccumulate((int) (index >>> 6), mask, (word, bit) -> word | bit);
+                combined += hash2;
+            }
+            insertions.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.fersko.cacheredis.pricing;
+
+import com.fersko.cacheredis.cache.CacheTransactions;
+import com.fersko.cacheredis.config.ChangeNotificationProperties;
+import com.fersko.cacheredis.config.PriceCatalogProperties;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import com.fersko.cacheredis.repository.ProductPriceKeysetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class PriceCatalog {
+    
+    private static final String SELECT_PRICES = "SELECT product_id, currency, amount, updated_at FROM product_price";
+    
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final PriceCatalogProperties properties;
+    private final ChangeNotificationProperties changeNotifications;
+    
+    private final Object writeLock = new Object();
+    private final AtomicLong versions = new AtomicLong();
+    private volatile Map<String, PriceSnapshot> snapshots = Map.of();
+    private volatile boolean ready;
+    private volatile boolean changesSubscribed;
+    
+    public PriceCatalog(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        PriceCatalogProperties properties,
+                        ChangeNotificationProperties changeNotifications) {
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(properties.fetchSize());
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.changeNotifications = changeNotifications;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.enabled()) {
+            rebuild();
+        }
+    }
+    
+    public boolean isReady() {
+        return ready && properties.enabled();
+    }
+    
+    public boolean isServing() {
+        return isReady() && changeNotifications.enabled() && changesSubscribed;
+    }
+    
+    public void onChangesSubscription(boolean subscribed) {
+        changesSubscribed = subscribed;
+    }
+    
+    public void rebuild() {
+        long start = System.nanoTime();
+        synchronized (writeLock) {
+            Map<String, List<ProductPriceDto>> pricesByCurrency = new HashMap<>();
+            readOnlyTransaction.executeWithoutResult(status -> streamingJdbcTemplate.query(SELECT_PRICES,
+                    (RowCallbackHandler) rs -> {
+                        ProductPriceDto price = ProductPriceKeysetRepository.mapRow(rs, 0);
+                        pricesByCurrency.computeIfAbsent(price.currency(), currency -> new ArrayList<>()).add(price);
+                    }));
+            
+            Map<String, PriceSnapshot> built = new HashMap<>();
+            pricesByCurrency.forEach((currency, prices) ->
+                    built.put(currency, PriceSnapshot.of(currency, prices, versions.incrementAndGet())));
+            snapshots = Map.copyOf(built);
+            ready = true;
+        }
+        
+        Stats stats = stats();
+        log.info("Каталог цен построен за {} мс: валют={}, цен={}, размер={} КБ",
+                (System.nanoTime() - start) / 1_000_000, stats.currencies(), stats.prices(), stats.bytes() / 1024);
+    }
+    
+    public Optional<ProductPriceDto> find(UUID productId, String currency) {
+        PriceSnapshot snapshot = snapshots.get(currency);
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        int index = snapshot.indexOf(productId);
+        return index < 0 ? Optional.empty() : Optional.of(snapshot.priceAt(index));
+    }
+    
+    public List<ProductPriceDto> findAll(String currency) {
+        PriceSnapshot snapshot = snapshots.get(currency);
+        if (snapshot == null) {
+            return List.of();
+        }
+        List<ProductPriceDto> prices = new ArrayList<>(snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            prices.add(snapshot.priceAt(i));
+        }
+        return prices;
+    }
+    
+    public List<ProductPriceDto> findAll(String currency, Collection<UUID> productIds) {
+        PriceSnapshot snapshot = snapshots.get(currency);
+        if (snapshot == null) {
+            return List.of();
+        }
+        List<ProductPriceDto> prices = new ArrayList<>(productIds.size());
+        for (UUID productId : productIds) {
+            int index = snapshot.indexOf(productId);
+            if (index >= 0) {
+                prices.add(snapshot.priceAt(index));
+            }
+        }
+        return prices;
+    }
+    
+    public long version(String currency) {
+        PriceSnapshot snapshot = snapshots.get(currency);
+        return snapshot == null ? 0 : snapshot.version();
+    }
+    
+    public void upsertAll(Collection<ProductPriceDto> prices) {
+        Map<String, List<ProductPriceDto>> upserts = new HashMap<>();
+        prices.forEach(price -> upserts.computeIfAbsent(price.currency(), currency -> new ArrayList<>()).add(price));
+        CacheTransactions.afterCommit(() -> update(upserts, Map.of()));
+    }
+    
+    public void remove(UUID productId, String currency) {
+        CacheTransactions.afterCommit(() -> update(Map.of(), Map.of(currency, Set.of(productId))));
+    }
+    
+    public void removeProduct(UUID productId) {
+        CacheTransactions.afterCommit(() -> {
+            Map<String, Set<UUID>> removals = new HashMap<>();
+            snapshots.keySet().forEach(currency -> removals.put(currency, Set.of(productId)));
+            update(Map.of(), removals);
+        });
+    }
+    
+    public void refresh(Map<String, List<ProductPriceDto>> found, Map<String, Set<UUID>> missing) {
+        if (ready) {
+            update(found, missing);
+        }
+    }
+    
+    public Stats stats() {
+        Map<String, PriceSnapshot> current = snapshots;
+        long prices = 0;
+        long bytes = 0;
+        for (PriceSnapshot snapshot : current.values()) {
+            prices += snapshot.size();
+            bytes += snapshot.sizeInBytes();
+        }
+        return new Stats(current.size(), prices, bytes);
+    }
+    
+    private void update(Map<String, List<ProductPriceDto>> upserts, Map<String, Set<UUID>> removals) {
+        synchronized (writeLock) {
+            if (!ready) {
+                return;
+            }
+            Map<String, PriceSnapshot> next = new HashMap<>(snapshots);
+            Set<String> currencies = new HashSet<>(upserts.keySet());
+            currencies.addAll(removals.keySet());
+            for (String currency : currencies) {
+                PriceSnapshot current = next.getOrDefault(currency, PriceSnapshot.of(currency, List.of(), 0));
+                PriceSnapshot updated = current.apply(upserts.getOrDefault(currency, List.of()),
+                        removals.getOrDefault(currency, Set.of()), versions.incrementAndGet());
+                if (updated.size() == 0) {
+                    next.remove(currency);
+                } else {
+                    next.put(currency, updated);
+                }
+            }
+            snapshots = Map.copyOf(next);
+        }
+    }
+    
+    public record Stats(int currencies, long prices, long bytes) {
+    }
+}
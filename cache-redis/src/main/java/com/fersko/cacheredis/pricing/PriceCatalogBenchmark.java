@@ -0,0 +1,74 @@
+package com.fersko.cacheredis.pricing;
+
+import com.fersko.cacheredis.benchmark.BenchmarkTimings;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import com.fersko.cacheredis.repository.CatalogBatchRepository;
+import com.fersko.cacheredis.repository.ProductPriceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+@Slf4j
+@Component
+@Profile("benchmark")
+@RequiredArgsConstructor
+public class PriceCatalogBenchmark {
+    
+    private static final int MAX_ITERATIONS = 1_000;
+    
+    private final PriceCatalog priceCatalog;
+    private final ProductPriceRepository productPriceRepository;
+    
+    public String run(String currency, int iterations, int batchSize) {
+        if (iterations <= 0 || iterations > MAX_ITERATIONS
+                || batchSize <= 0 || batchSize > CatalogBatchRepository.MAX_MULTI_GET_SIZE) {
+            throw new IllegalArgumentException("iterations must be between 1 and " + MAX_ITERATIONS
+                    + " and batchSize between 1 and " + CatalogBatchRepository.MAX_MULTI_GET_SIZE);
+        }
+        if (!priceCatalog.isReady()) {
+            throw new IllegalStateException("Price catalog is not built");
+        }
+        List<UUID> productIds = priceCatalog.findAll(currency).stream()
+                .limit(batchSize)
+                .map(ProductPriceDto::productId)
+                .toList();
+        if (productIds.isEmpty()) {
+            throw new IllegalArgumentException("No prices found for currency " + currency);
+        }
+        
+        PriceCatalog.Stats stats = priceCatalog.stats();
+        StringBuilder result = new StringBuilder("""
+                СРАВНЕНИЕ ЦЕН: SQL vs СНИМОК В ПАМЯТИ
+                =====================================
+                """);
+        result.append(String.format("снимок: валют=%d, цен=%d, размер=%d КБ, версия %s=%d%n",
+                stats.currencies(), stats.prices(), stats.bytes() / 1024, currency, priceCatalog.version(currency)));
+        result.append("iterations=").append(iterations).append(", batchSize=").append(productIds.size())
+                .append("\n\n");
+        
+        int[] cursor = new int[1];
+        IntSupplier sqlSingle = () -> productPriceRepository
+                .findDtoByProductIdAndCurrency(productIds.get(cursor[0]++ % productIds.size()), currency)
+                .isPresent() ? 1 : 0;
+        IntSupplier catalogSingle = () -> priceCatalog
+                .find(productIds.get(cursor[0]++ % productIds.size()), currency)
+                .isPresent() ? 1 : 0;
+        IntSupplier sqlBulk = () -> productPriceRepository.findDtosByProductIdsAndCurrency(productIds, currency).size();
+        IntSupplier catalogBulk = () -> priceCatalog.findAll(currency, productIds).size();
+        
+        result.append("одна цена\n");
+        BenchmarkTimings.append(result, "sql", sqlSingle, iterations);
+        BenchmarkTimings.append(result, "memory", catalogSingle, iterations);
+        result.append("\nпакет из ").append(productIds.size()).append(" цен\n");
+        BenchmarkTimings.append(result, "sql", sqlBulk, iterations);
+        BenchmarkTimings.append(result, "memory", catalogBulk, iterations);
+        
+        log.info("Сравнение каталога цен выполнено: валюта={}, {} итераций", currency, iterations);
+        return result.toString();
+    }
+}
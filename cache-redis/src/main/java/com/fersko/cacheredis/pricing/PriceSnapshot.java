@@ -0,0 +1,190 @@
+package com.fersko.cacheredis.pricing;
+
+import com.fersko.cacheredis.dto.ProductPriceDto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+final class PriceSnapshot {
+    
+    static final int AMOUNT_SCALE = 2;
+    
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    
+    private static final Comparator<ProductPriceDto> ORDER = Comparator
+            .comparingLong((ProductPriceDto price) -> price.productId().getMostSignificantBits())
+            .thenComparingLong(price -> price.productId().getLeastSignificantBits());
+    
+    private final String currency;
+    private final long version;
+    private final long[] mostSignificantBits;
+    private final long[] leastSignificantBits;
+    private final long[] amounts;
+    private final long[] updatedAtMicros;
+    
+    private PriceSnapshot(String currency, long version, long[] mostSignificantBits, long[] leastSignificantBits,
+                          long[] amounts, long[] updatedAtMicros) {
+        this.currency = currency;
+        this.version = version;
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+        this.amounts = amounts;
+        this.updatedAtMicros = updatedAtMicros;
+    }
+    
+    static PriceSnapshot of(String currency, List<ProductPriceDto> prices, long version) {
+        List<ProductPriceDto> sorted = new ArrayList<>(prices);
+        sorted.sort(ORDER);
+        int size = sorted.size();
+        PriceSnapshot snapshot = new PriceSnapshot(currency, version,
+                new long[size], new long[size], new long[size], new long[size]);
+        for (int i = 0; i < size; i++) {
+            snapshot.set(i, sorted.get(i));
+        }
+        return snapshot;
+    }
+    
+    String currency() {
+        return currency;
+    }
+    
+    long version() {
+        return version;
+    }
+    
+    int size() {
+        return amounts.length;
+    }
+    
+    long sizeInBytes() {
+        return 4L * Long.BYTES * amounts.length;
+    }
+    
+    int indexOf(UUID productId) {
+        return indexOf(productId.getMostSignificantBits(), productId.getLeastSignificantBits());
+    }
+    
+    long amountAt(int index) {
+        return amounts[index];
+    }
+    
+    ProductPriceDto priceAt(int index) {
+        return new ProductPriceDto(
+                new UUID(mostSignificantBits[index], leastSignificantBits[index]),
+                currency,
+                BigDecimal.valueOf(amounts[index], AMOUNT_SCALE),
+                updatedAtMicros[index] == NO_TIMESTAMP
+                        ? null
+                        : OffsetDateTime.ofInstant(Instant.EPOCH.plus(updatedAtMicros[index], ChronoUnit.MICROS),
+                        ZoneOffset.UTC));
+    }
+    
+    PriceSnapshot apply(Collection<ProductPriceDto> upserts, Collection<UUID> removals, long nextVersion) {
+        List<ProductPriceDto> sortedUpserts = new ArrayList<>(upserts);
+        sortedUpserts.sort(ORDER);
+        BitSet removed = new BitSet(size());
+        for (UUID productId : removals) {
+            int index = indexOf(productId);
+            if (index >= 0) {
+                removed.set(index);
+            }
+        }
+        
+        int capacity = size() + sortedUpserts.size();
+        PriceSnapshot next = new PriceSnapshot(currency, nextVersion,
+                new long[capacity], new long[capacity], new long[capacity], new long[capacity]);
+        int existing = 0;
+        int upsert = 0;
+        int written = 0;
+        while (existing < size() || upsert < sortedUpserts.size()) {
+            int order;
+            if (existing == size()) {
+                order = 1;
+            } else if (upsert == sortedUpserts.size()) {
+                order = -1;
+            } else {
+                UUID productId = sortedUpserts.get(upsert).productId();
+                order = compare(mostSignificantBits[existing], leastSignificantBits[existing],
+                        productId.getMostSignificantBits(), productId.getLeastSignificantBits());
+            }
+            
+            if (order < 0) {
+                if (!removed.get(existing)) {
+                    next.copy(written++, this, existing);
+                }
+                existing++;
+            } else {
+                if (order == 0) {
+                    existing++;
+                }
+                ProductPriceDto price = sortedUpserts.get(upsert++);
+                while (upsert < sortedUpserts.size()
+                        && sortedUpserts.get(upsert).productId().equals(price.productId())) {
+                    price = sortedUpserts.get(upsert++);
+                }
+                next.set(written++, price);
+            }
+        }
+        return written == capacity ? next : next.truncate(written);
+    }
+    
+    private int indexOf(long mostSignificant, long leastSignificant) {
+        int low = 0;
+        int high = amounts.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = compare(mostSignificantBits[middle], leastSignificantBits[middle],
+                    mostSignificant, leastSignificant);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+    
+    private void set(int index, ProductPriceDto price) {
+        mostSignificantBits[index] = price.productId().getMostSignificantBits();
+        leastSignificantBits[index] = price.productId().getLeastSignificantBits();
+        amounts[index] = toMinorUnits(price.amount());
+        updatedAtMicros[index] = price.updatedAt() == null
+                ? NO_TIMESTAMP
+                : ChronoUnit.MICROS.between(Instant.EPOCH, price.updatedAt().toInstant());
+    }
+    
+    private void copy(int index, PriceSnapshot source, int sourceIndex) {
+        mostSignificantBits[index] = source.mostSignificantBits[sourceIndex];
+        leastSignificantBits[index] = source.leastSignificantBits[sourceIndex];
+        amounts[index] = source.amounts[sourceIndex];
+        updatedAtMicros[index] = source.updatedAtMicros[sourceIndex];
+    }
+    
+    private PriceSnapshot truncate(int size) {
+        return new PriceSnapshot(currency, version,
+                Arrays.copyOf(mostSignificantBits, size), Arrays.copyOf(leastSignificantBits, size),
+                Arrays.copyOf(amounts, size), Arrays.copyOf(updatedAtMicros, size));
+    }
+    
+    static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    private static int compare(long leftMost, long leftLeast, long rightMost, long rightLeast) {
+        int order = Long.compare(leftMost, rightMost);
+        return order != 0 ? order : Long.compare(leftLeast, rightLeast);
+    }
+}
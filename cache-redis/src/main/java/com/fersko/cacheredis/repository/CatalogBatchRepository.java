@@ -0,0 +1,211 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.InventoryDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import com.fersko.cacheredis.dto.ReviewDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Repository
+@RequiredArgsConstructor
+public class CatalogBatchRepository {
+    
+    public static final int MAX_BATCH_SIZE = 10_000;
+    
+    public static final int MAX_MULTI_GET_SIZE = 500;
+    
+    private static final int CHUNK_SIZE = 1_000;
+    
+    private static final String UPSERT_CATEGORIES = """
+            INSERT INTO category (name, slug)
+            SELECT * FROM unnest(?::text[], ?::text[])
+            ON CONFLICT (slug) DO UPDATE SET name = EXCLUDED.name
+            RETURNING id, name, slug, created_at
+            """;
+    
+    private static final String UPSERT_PRODUCTS = """
+            INSERT INTO product (sku, name, description, category_id)
+            SELECT * FROM unnest(?::text[], ?::text[], ?::text[], ?::uuid[])
+            ON CONFLICT (sku) DO UPDATE
+            SET name = EXCLUDED.name,
+                description = EXCLUDED.description,
+                category_id = EXCLUDED.category_id,
+                updated_at = NOW()
+            RETURNING id, sku, name, description, category_id, updated_at
+            """;
+    
+    private static final String UPSERT_PRICES = """
+            INSERT INTO product_price (product_id, currency, amount, updated_at)
+            SELECT p.*, ?::timestamptz FROM unnest(?::uuid[], ?::varchar[], ?::numeric[]) AS p
+            ON CONFLICT (product_id, currency) DO UPDATE
+            SET amount = EXCLUDED.amount,
+                updated_at = EXCLUDED.updated_at
+            RETURNING product_id, currency, amount, updated_at
+            """;
+    
+    private static final String UPSERT_INVENTORY = """
+            INSERT INTO inventory (product_id, warehouse_id, quantity, updated_at)
+            SELECT i.*, ?::timestamptz FROM unnest(?::uuid[], ?::bigint[], ?::int[]) AS i
+            ON CONFLICT (product_id, warehouse_id) DO UPDATE
+            SET quantity = EXCLUDED.quantity,
+                updated_at = EXCLUDED.updated_at
+            RETURNING product_id, warehouse_id, quantity, updated_at
+            """;
+    
+    private static final String INSERT_REVIEWS = """
+            INSERT INTO review (product_id, rating, text)
+            SELECT * FROM unnest(?::uuid[], ?::smallint[], ?::text[])
+            RETURNING id, product_id, rating, text, updated_at
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public Map<UUID, String> findCategoryNames(Collection<UUID> categoryIds) {
+        Map<UUID, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM category WHERE id = ANY(?)",
+                statement -> statement.setArray(1, array(statement, "uuid", categoryIds.toArray())),
+                rs -> {
+                    names.put(rs.getObject("id", UUID.class), rs.getString("name"));
+                });
+        return names;
+    }
+    
+    public Set<UUID> findExistingProductIds(Collection<UUID> productIds) {
+        Set<UUID> existing = new HashSet<>();
+        jdbcTemplate.query("SELECT id FROM product WHERE id = ANY(?)",
+                statement -> statement.setArray(1, array(statement, "uuid", productIds.toArray())),
+                rs -> {
+                    existing.add(rs.getObject("id", UUID.class));
+                });
+        return existing;
+    }
+    
+    public List<CategoryDto> upsertCategories(List<CategoryDto> categories) {
+        return inChunks(categories, chunk -> jdbcTemplate.query(UPSERT_CATEGORIES, statement -> {
+            statement.setArray(1, array(statement, "text", chunk.stream().map(CategoryDto::name).toArray()));
+            statement.setArray(2, array(statement, "text", chunk.stream().map(CategoryDto::slug).toArray()));
+        }, CatalogSearchRepository::mapCategory));
+    }
+    
+    public List<ProductDto> upsertProducts(List<ProductDto> products, Map<UUID, String> categoryNames) {
+        RowMapper<ProductDto> rowMapper = (rs, rowNum) -> {
+            UUID categoryId = rs.getObject("category_id", UUID.class);
+            return new ProductDto(
+                    rs.getObject("id", UUID.class),
+                    rs.getString("sku"),
+                    rs.getString("name"),
+                    rs.getString("description"),
+                    categoryId,
+                    categoryNames.get(categoryId),
+                    rs.getObject("updated_at", OffsetDateTime.class)
+            );
+        };
+        return inChunks(products, chunk -> jdbcTemplate.query(UPSERT_PRODUCTS, statement -> {
+            statement.setArray(1, array(statement, "text", chunk.stream().map(ProductDto::sku).toArray()));
+            statement.setArray(2, array(statement, "text", chunk.stream().map(ProductDto::name).toArray()));
+            statement.setArray(3, array(statement, "text", chunk.stream().map(ProductDto::description).toArray()));
+            statement.setArray(4, array(statement, "uuid", chunk.stream().map(ProductDto::categoryId).toArray()));
+        }, rowMapper));
+    }
+    
+    public List<ProductPriceDto> upsertPrices(List<ProductPriceDto> prices) {
+        return inChunks(prices, chunk -> jdbcTemplate.query(UPSERT_PRICES, statement -> {
+            statement.setObject(1, OffsetDateTime.now());
+            statement.setArray(2, array(statement, "uuid", chunk.stream().map(ProductPriceDto::productId).toArray()));
+            statement.setArray(3, array(statement, "varchar", chunk.stream().map(ProductPriceDto::currency).toArray()));
+            statement.setArray(4, array(statement, "numeric", chunk.stream().map(ProductPriceDto::amount).toArray()));
+        }, (rs, rowNum) -> new ProductPriceDto(
+                rs.getObject("product_id", UUID.class),
+                rs.getString("currency"),
+                rs.getBigDecimal("amount"),
+                rs.getObject("updated_at", OffsetDateTime.class)
+        )));
+    }
+    
+    public List<InventoryDto> upsertInventory(List<InventoryDto> inventory) {
+        return inChunks(inventory, chunk -> jdbcTemplate.query(UPSERT_INVENTORY, statement -> {
+            statement.setObject(1, OffsetDateTime.now());
+            statement.setArray(2, array(statement, "uuid", chunk.stream().map(InventoryDto::productId).toArray()));
+            statement.setArray(3, array(statement, "int8", chunk.stream().map(InventoryDto::warehouseId).toArray()));
+            statement.setArray(4, array(statement, "int4", chunk.stream().map(InventoryDto::quantity).toArray()));
+        }, InventoryKeysetRepository::mapRow));
+    }
+    
+    public List<ReviewDto> insertReviews(List<ReviewDto> reviews) {
+        return inChunks(reviews, chunk -> jdbcTemplate.query(INSERT_REVIEWS, statement -> {
+            statement.setArray(1, array(statement, "uuid", chunk.stream().map(ReviewDto::productId).toArray()));
+            statement.setArray(2, array(statement, "int2", chunk.stream().map(ReviewDto::rating).toArray()));
+            statement.setArray(3, array(statement, "text", chunk.stream().map(ReviewDto::text).toArray()));
+        }, ReviewKeysetRepository::mapRow));
+    }
+    
+    public static <T> List<T> deduplicate(List<T> rows, Function<T, ?> key) {
+        requireBatchSize(rows);
+        Map<Object, T> unique = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            T row = rows.get(i);
+            Object rowKey = row == null ? null : key.apply(row);
+            require(rowKey != null, "Row " + i + " has no key");
+            unique.remove(rowKey);
+            unique.put(rowKey, row);
+        }
+        return List.copyOf(unique.values());
+    }
+    
+    public static void requireBatchSize(List<?> rows) {
+        require(rows != null && !rows.isEmpty() && rows.size() <= MAX_BATCH_SIZE,
+                "Batch must contain between 1 and " + MAX_BATCH_SIZE + " rows");
+    }
+    
+    public static void requireMultiGetSize(List<?> ids) {
+        require(ids != null && !ids.isEmpty() && ids.size() <= MAX_MULTI_GET_SIZE,
+                "Multi-get must contain between 1 and " + MAX_MULTI_GET_SIZE + " ids");
+        require(ids.stream().allMatch(Objects::nonNull), "Multi-get ids must not be null");
+    }
+    
+    public static void requireAllFound(Collection<UUID> requested, Collection<UUID> found, String entity) {
+        if (found.size() < requested.size()) {
+            Set<UUID> missing = new HashSet<>(requested);
+            missing.removeAll(found);
+            throw new IllegalArgumentException(entity + " not found: " + missing);
+        }
+    }
+    
+    public static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+    
+    private static <T, R> List<R> inChunks(List<T> rows, Function<List<T>, List<R>> writer) {
+        List<R> written = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += CHUNK_SIZE) {
+            written.addAll(writer.apply(rows.subList(from, Math.min(rows.size(), from + CHUNK_SIZE))));
+        }
+        return written;
+    }
+    
+    private static Array array(PreparedStatement statement, String type, Object[] values) throws SQLException {
+        return statement.getConnection().createArrayOf(type, values);
+    }
+}
@@ -0,0 +1,93 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class CatalogSearchRepository {
+    
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+    
+    private static final String SEARCH_PRODUCTS = """
+            SELECT p.id, p.sku, p.name, p.description, p.category_id, c.name AS category_name, p.updated_at
+            FROM product p
+            JOIN category c ON c.id = p.category_id,
+                 websearch_to_tsquery('simple', ?) AS query
+            WHERE p.search_vector @@ query
+               OR p.name ILIKE ? ESCAPE '\\'
+               OR p.sku ILIKE ? ESCAPE '\\'
+            ORDER BY ts_rank_cd(p.search_vector, query) + similarity(p.name, ?) DESC, p.id
+            LIMIT ?
+            """;
+    
+    private static final String SEARCH_CATEGORIES = """
+            SELECT c.id, c.name, c.slug, c.created_at
+            FROM category c,
+                 websearch_to_tsquery('simple', ?) AS query
+            WHERE c.search_vector @@ query
+               OR c.name ILIKE ? ESCAPE '\\'
+               OR c.slug ILIKE ? ESCAPE '\\'
+            ORDER BY ts_rank_cd(c.search_vector, query) + similarity(c.name, ?) DESC, c.id
+            LIMIT ?
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public List<ProductDto> searchProducts(String term, int limit) {
+        String pattern = containsPattern(term);
+        return jdbcTemplate.query(SEARCH_PRODUCTS, ProductKeysetRepository::mapRow,
+                term, pattern, pattern, term, limit);
+    }
+    
+    public List<CategoryDto> searchCategories(String term, int limit) {
+        String pattern = containsPattern(term);
+        return jdbcTemplate.query(SEARCH_CATEGORIES, CatalogSearchRepository::mapCategory,
+                term, pattern, pattern, term, limit);
+    }
+    
+    public static String normalize(String term) {
+        if (term == null || term.isBlank()) {
+            throw new IllegalArgumentException("Search term must not be blank");
+        }
+        return term.strip().toLowerCase();
+    }
+    
+    public static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (requested < 1 || requested > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return requested;
+    }
+    
+    public static String cacheKey(String term, Integer limit) {
+        return limit(limit) + ":" + normalize(term);
+    }
+    
+    private static String containsPattern(String term) {
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+    
+    static CategoryDto mapCategory(ResultSet rs, int rowNum) throws SQLException {
+        return new CategoryDto(
+                rs.getObject("id", UUID.class),
+                rs.getString("name"),
+                rs.getString("slug"),
+                rs.getObject("created_at", OffsetDateTime.class)
+        );
+    }
+}
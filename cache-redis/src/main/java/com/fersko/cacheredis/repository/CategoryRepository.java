@@ -2,8 +2,6 @@ package com.fersko.cacheredis.repository;
 
 import com.fersko.cacheredis.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,8 +15,5 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
     
     List<Category> findByNameContainingIgnoreCase(String name);
     
-    @Query("SELECT c FROM Category c WHERE c.name LIKE %:searchTerm% OR c.slug LIKE %:searchTerm%")
-    List<Category> findBySearchTerm(@Param("searchTerm") String searchTerm);
-    
     boolean existsBySlug(String slug);
 }
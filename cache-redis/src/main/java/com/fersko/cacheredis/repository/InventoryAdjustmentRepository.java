@@ -0,0 +1,94 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.InventoryAdjustment;
+import com.fersko.cacheredis.dto.InventoryDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class InventoryAdjustmentRepository {
+    
+    private static final String RETURNING = " RETURNING product_id, warehouse_id, quantity, updated_at";
+    
+    private static final String SET_QUANTITY = """
+            UPDATE inventory
+            SET quantity = ?, updated_at = ?
+            WHERE product_id = ? AND warehouse_id = ?
+            """ + RETURNING;
+    
+    private static final String ADJUST_QUANTITY = """
+            UPDATE inventory
+            SET quantity = quantity + ?, updated_at = ?
+            WHERE product_id = ? AND warehouse_id = ? AND quantity + ? >= 0
+            """ + RETURNING;
+    
+    private static final String RESERVE_FROM_ANY_WAREHOUSE = """
+            UPDATE inventory
+            SET quantity = quantity - ?, updated_at = ?
+            WHERE (product_id, warehouse_id) = (
+                SELECT product_id, warehouse_id FROM inventory
+                WHERE product_id = ? AND quantity >= ?
+                ORDER BY quantity DESC, warehouse_id
+                LIMIT 1
+                %s)
+              AND quantity >= ?
+            """ + RETURNING;
+    
+    private static final String SELECT_QUANTITY =
+            "SELECT quantity FROM inventory WHERE product_id = ? AND warehouse_id = ?";
+    
+    private static final String SELECT_MAX_QUANTITY =
+            "SELECT MAX(quantity) FROM inventory WHERE product_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public Optional<InventoryDto> setQuantity(UUID productId, Long warehouseId, int quantity) {
+        return first(jdbcTemplate.query(SET_QUANTITY, InventoryKeysetRepository::mapRow,
+                quantity, OffsetDateTime.now(), productId, warehouseId));
+    }
+    
+    public InventoryAdjustment adjust(UUID productId, Long warehouseId, int delta) {
+        Optional<InventoryDto> adjusted = first(jdbcTemplate.query(ADJUST_QUANTITY, InventoryKeysetRepository::mapRow,
+                delta, OffsetDateTime.now(), productId, warehouseId, delta));
+        if (adjusted.isPresent()) {
+            return new InventoryAdjustment.Applied(adjusted.get());
+        }
+        
+        Optional<Integer> available = first(jdbcTemplate.queryForList(SELECT_QUANTITY, Integer.class,
+                productId, warehouseId));
+        if (available.isEmpty()) {
+            return new InventoryAdjustment.NotFound(productId, warehouseId);
+        }
+        return new InventoryAdjustment.InsufficientStock(productId, warehouseId, available.get(), -delta);
+    }
+    
+    public InventoryAdjustment reserveFromAnyWarehouse(UUID productId, int quantity) {
+        Optional<InventoryDto> reserved = reserve(productId, quantity, "FOR UPDATE SKIP LOCKED")
+                .or(() -> reserve(productId, quantity, "FOR UPDATE"));
+        if (reserved.isPresent()) {
+            return new InventoryAdjustment.Applied(reserved.get());
+        }
+        
+        Integer available = jdbcTemplate.queryForObject(SELECT_MAX_QUANTITY, Integer.class, productId);
+        if (available == null) {
+            return new InventoryAdjustment.NotFound(productId, null);
+        }
+        return new InventoryAdjustment.InsufficientStock(productId, null, available, quantity);
+    }
+    
+    private Optional<InventoryDto> reserve(UUID productId, int quantity, String lockClause) {
+        return first(jdbcTemplate.query(RESERVE_FROM_ANY_WAREHOUSE.formatted(lockClause),
+                InventoryKeysetRepository::mapRow, quantity, OffsetDateTime.now(), productId, quantity, quantity));
+    }
+    
+    private static <T> Optional<T> first(List<T> rows) {
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+}
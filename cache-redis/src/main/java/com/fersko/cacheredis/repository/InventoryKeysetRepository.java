@@ -0,0 +1,57 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.InventoryDto;
+import com.fersko.cacheredis.dto.PageDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class InventoryKeysetRepository {
+    
+    private static final String SELECT_AVAILABLE = """
+            SELECT product_id, warehouse_id, quantity, updated_at
+            FROM inventory
+            WHERE quantity > 0
+            """;
+    
+    private static final String ORDER = " ORDER BY product_id, warehouse_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcRowStreamer rowStreamer;
+    
+    public PageDto<InventoryDto> findAvailablePage(String cursor, int limit) {
+        List<InventoryDto> rows;
+        if (cursor == null) {
+            rows = jdbcTemplate.query(SELECT_AVAILABLE + ORDER + " LIMIT ?",
+                    InventoryKeysetRepository::mapRow, limit + 1);
+        } else {
+            List<String> keys = KeysetCursor.decode(cursor, 2);
+            rows = jdbcTemplate.query(SELECT_AVAILABLE + " AND (product_id, warehouse_id) > (?, ?)" + ORDER + " LIMIT ?",
+                    InventoryKeysetRepository::mapRow,
+                    KeysetCursor.uuidKey(keys.get(0)), KeysetCursor.longKey(keys.get(1)), limit + 1);
+        }
+        return PageDto.of(rows, limit, last -> KeysetCursor.encode(last.productId(), last.warehouseId()));
+    }
+    
+    public Flux<InventoryDto> streamAvailable() {
+        return rowStreamer.stream(SELECT_AVAILABLE + ORDER, statement -> { }, InventoryKeysetRepository::mapRow);
+    }
+    
+    static InventoryDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new InventoryDto(
+                rs.getObject("product_id", UUID.class),
+                rs.getLong("warehouse_id"),
+                rs.getInt("quantity"),
+                rs.getObject("updated_at", OffsetDateTime.class)
+        );
+    }
+}
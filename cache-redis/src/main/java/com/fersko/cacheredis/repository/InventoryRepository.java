@@ -1,11 +1,13 @@
 package com.fersko.cacheredis.repository;
 
+import com.fersko.cacheredis.dto.InventoryDto;
 import com.fersko.cacheredis.entity.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,6 +15,10 @@ import java.util.UUID;
 @Repository
 public interface InventoryRepository extends JpaRepository<Inventory, Inventory.InventoryId> {
     
+    String DTO_SELECT = "SELECT new com.fersko.cacheredis.dto.InventoryDto("
+            + "i.id.productId, i.id.warehouseId, i.quantity, i.updatedAt) "
+            + "FROM Inventory i";
+    
     List<Inventory> findByProductId(UUID productId);
     
     List<Inventory> findByWarehouseId(Long warehouseId);
@@ -29,4 +35,24 @@ public interface InventoryRepository extends JpaRepository<Inventory, Inventory.
     List<Inventory> findAvailableInventoryByProductId(@Param("productId") UUID productId);
     
     boolean existsByProductIdAndWarehouseId(UUID productId, Long warehouseId);
+    
+    @Query(DTO_SELECT + " WHERE i.id.productId = :productId AND i.id.warehouseId = :warehouseId")
+    Optional<InventoryDto> findDtoByProductIdAndWarehouseId(@Param("productId") UUID productId,
+                                                            @Param("warehouseId") Long warehouseId);
+    
+    @Query(DTO_SELECT + " WHERE i.id.productId = :productId")
+    List<InventoryDto> findDtosByProductId(@Param("productId") UUID productId);
+    
+    @Query(DTO_SELECT + " WHERE i.id.warehouseId = :warehouseId")
+    List<InventoryDto> findDtosByWarehouseId(@Param("warehouseId") Long warehouseId);
+    
+    @Query(DTO_SELECT + " WHERE i.id.productId IN :productIds AND i.id.warehouseId = :warehouseId")
+    List<InventoryDto> findDtosByProductIdsAndWarehouseId(@Param("productIds") Collection<UUID> productIds,
+                                                          @Param("warehouseId") Long warehouseId);
+    
+    @Query(DTO_SELECT + " WHERE i.quantity > 0")
+    List<InventoryDto> findAvailableDtos();
+    
+    @Query(DTO_SELECT + " WHERE i.id.productId = :productId AND i.quantity > 0")
+    List<InventoryDto> findAvailableDtosByProductId(@Param("productId") UUID productId);
 }
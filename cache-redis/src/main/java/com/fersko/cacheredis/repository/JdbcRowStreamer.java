@@ -0,0 +1,96 @@
+package com.fersko.cacheredis.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JdbcRowStreamer {
+    
+    private static final int FETCH_SIZE = 500;
+    
+    private final DataSource dataSource;
+    
+    public <T> Flux<T> stream(String sql, PreparedStatementSetter parameters, RowMapper<T> rowMapper) {
+        return Flux.using(
+                        () -> open(sql, parameters),
+                        cursor -> Flux.<T>generate(sink -> {
+                            try {
+                                if (cursor.resultSet.next()) {
+                                    sink.next(rowMapper.mapRow(cursor.resultSet, cursor.rowNum++));
+                                } else {
+                                    sink.complete();
+                                }
+                            } catch (SQLException e) {
+                                sink.error(new DataRetrievalFailureException("Cursor read failed: " + sql, e));
+                            }
+                        }),
+                        JdbcRowStreamer::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    private Cursor open(String sql, PreparedStatementSetter parameters) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        PreparedStatement statement = null;
+        try {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            parameters.setValues(statement);
+            return new Cursor(connection, statement, statement.executeQuery());
+        } catch (SQLException | RuntimeException e) {
+            close(new Cursor(connection, statement, null));
+            throw e;
+        }
+    }
+    
+    private static void close(Cursor cursor) {
+        try {
+            if (cursor.resultSet != null) {
+                cursor.resultSet.close();
+            }
+            if (cursor.statement != null) {
+                cursor.statement.close();
+            }
+            cursor.connection.rollback();
+            cursor.connection.setReadOnly(false);
+            cursor.connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.warn("Не удалось корректно закрыть курсор", e);
+        } finally {
+            try {
+                cursor.connection.close();
+            } catch (SQLException e) {
+                log.warn("Не удалось вернуть соединение в пул", e);
+            }
+        }
+    }
+    
+    private static final class Cursor {
+        
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private int rowNum;
+        
+        private Cursor(Connection connection, PreparedStatement statement, ResultSet resultSet) {
+            this.connection = connection;
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.fersko.cacheredis.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+public final class KeysetCursor {
+    
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+    
+    private static final String SEPARATOR = "|";
+    
+    private KeysetCursor() {
+    }
+    
+    public static String encode(Object... keys) {
+        String joined = Arrays.stream(keys).map(String::valueOf).collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static List<String> decode(String cursor, int expectedKeys) {
+        String joined;
+        try {
+            joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        List<String> keys = List.of(joined.split("\\" + SEPARATOR, -1));
+        if (keys.size() != expectedKeys) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return keys;
+    }
+    
+    public static UUID uuidKey(String key) {
+        try {
+            return UUID.fromString(key);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor key: " + key, e);
+        }
+    }
+    
+    public static OffsetDateTime timestampKey(String key) {
+        try {
+            return OffsetDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor key: " + key, e);
+        }
+    }
+    
+    public static long longKey(String key) {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor key: " + key, e);
+        }
+    }
+    
+    public static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (requested < 1 || requested > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return requested;
+    }
+}
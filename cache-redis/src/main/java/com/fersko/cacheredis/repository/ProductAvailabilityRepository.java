@@ -0,0 +1,56 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.ProductAvailabilityDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class ProductAvailabilityRepository {
+    
+    private static final String SELECT_AVAILABILITY = """
+            SELECT p.id AS product_id,
+                   COALESCE(pa.total_quantity, 0) AS total_quantity,
+                   COALESCE(pa.warehouses_in_stock, 0) AS warehouses_in_stock,
+                   pa.updated_at
+            FROM product p
+            LEFT JOIN product_availability pa ON pa.product_id = p.id
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public Optional<ProductAvailabilityDto> findByProductId(UUID productId) {
+        return jdbcTemplate.query(SELECT_AVAILABILITY + " WHERE p.id = ?",
+                ProductAvailabilityRepository::mapRow, productId).stream().findFirst();
+    }
+    
+    public List<ProductAvailabilityDto> findByProductIds(Collection<UUID> productIds) {
+        return jdbcTemplate.query(SELECT_AVAILABILITY + " WHERE p.id = ANY(?)",
+                statement -> statement.setArray(1,
+                        statement.getConnection().createArrayOf("uuid", productIds.toArray())),
+                ProductAvailabilityRepository::mapRow);
+    }
+    
+    public List<UUID> findProductIdsByCategoryId(UUID categoryId) {
+        return jdbcTemplate.queryForList("SELECT id FROM product WHERE category_id = ? ORDER BY name, id",
+                UUID.class, categoryId);
+    }
+    
+    static ProductAvailabilityDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new ProductAvailabilityDto(
+                rs.getObject("product_id", UUID.class),
+                rs.getLong("total_quantity"),
+                rs.getInt("warehouses_in_stock"),
+                rs.getObject("updated_at", OffsetDateTime.class)
+        );
+    }
+}
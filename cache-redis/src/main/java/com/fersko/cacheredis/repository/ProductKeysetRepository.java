@@ -0,0 +1,60 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.PageDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class ProductKeysetRepository {
+    
+    private static final String SELECT_PRODUCT = """
+            SELECT p.id, p.sku, p.name, p.description, p.category_id, c.name AS category_name, p.updated_at
+            FROM product p
+            JOIN category c ON c.id = p.category_id
+            """;
+    
+    private static final String ORDER = " ORDER BY p.updated_at, p.id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcRowStreamer rowStreamer;
+    
+    public PageDto<ProductDto> findPage(String cursor, int limit) {
+        List<ProductDto> rows;
+        if (cursor == null) {
+            rows = jdbcTemplate.query(SELECT_PRODUCT + ORDER + " LIMIT ?",
+                    ProductKeysetRepository::mapRow, limit + 1);
+        } else {
+            List<String> keys = KeysetCursor.decode(cursor, 2);
+            rows = jdbcTemplate.query(SELECT_PRODUCT + " WHERE (p.updated_at, p.id) > (?, ?)" + ORDER + " LIMIT ?",
+                    ProductKeysetRepository::mapRow,
+                    KeysetCursor.timestampKey(keys.get(0)), KeysetCursor.uuidKey(keys.get(1)), limit + 1);
+        }
+        return PageDto.of(rows, limit, last -> KeysetCursor.encode(last.updatedAt(), last.id()));
+    }
+    
+    public Flux<ProductDto> streamAll() {
+        return rowStreamer.stream(SELECT_PRODUCT + ORDER, statement -> { }, ProductKeysetRepository::mapRow);
+    }
+    
+    static ProductDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new ProductDto(
+                rs.getObject("id", UUID.class),
+                rs.getString("sku"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getObject("category_id", UUID.class),
+                rs.getString("category_name"),
+                rs.getObject("updated_at", OffsetDateTime.class)
+        );
+    }
+}
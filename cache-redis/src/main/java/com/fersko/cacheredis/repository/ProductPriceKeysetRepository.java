@@ -0,0 +1,58 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.PageDto;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class ProductPriceKeysetRepository {
+    
+    private static final String SELECT_BY_CURRENCY = """
+            SELECT product_id, currency, amount, updated_at
+            FROM product_price
+            WHERE currency = ?
+            """;
+    
+    private static final String ORDER = " ORDER BY product_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcRowStreamer rowStreamer;
+    
+    public PageDto<ProductPriceDto> findPageByCurrency(String currency, String cursor, int limit) {
+        List<ProductPriceDto> rows;
+        if (cursor == null) {
+            rows = jdbcTemplate.query(SELECT_BY_CURRENCY + ORDER + " LIMIT ?",
+                    ProductPriceKeysetRepository::mapRow, currency, limit + 1);
+        } else {
+            List<String> keys = KeysetCursor.decode(cursor, 1);
+            rows = jdbcTemplate.query(SELECT_BY_CURRENCY + " AND product_id > ?" + ORDER + " LIMIT ?",
+                    ProductPriceKeysetRepository::mapRow, currency, KeysetCursor.uuidKey(keys.get(0)), limit + 1);
+        }
+        return PageDto.of(rows, limit, last -> KeysetCursor.encode(last.productId()));
+    }
+    
+    public Flux<ProductPriceDto> streamByCurrency(String currency) {
+        return rowStreamer.stream(SELECT_BY_CURRENCY + ORDER,
+                statement -> statement.setString(1, currency),
+                ProductPriceKeysetRepository::mapRow);
+    }
+    
+    public static ProductPriceDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new ProductPriceDto(
+                rs.getObject("product_id", UUID.class),
+                rs.getString("currency"),
+                rs.getBigDecimal("amount"),
+                rs.getObject("updated_at", OffsetDateTime.class)
+        );
+    }
+}
@@ -1,11 +1,13 @@
 package com.fersko.cacheredis.repository;
 
+import com.fersko.cacheredis.dto.ProductPriceDto;
 import com.fersko.cacheredis.entity.ProductPrice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,6 +15,10 @@ import java.util.UUID;
 @Repository
 public interface ProductPriceRepository extends JpaRepository<ProductPrice, ProductPrice.ProductPriceId> {
     
+    String DTO_SELECT = "SELECT new com.fersko.cacheredis.dto.ProductPriceDto("
+            + "pp.id.productId, pp.id.currency, pp.amount, pp.updatedAt) "
+            + "FROM ProductPrice pp";
+    
     List<ProductPrice> findByProductId(UUID productId);
     
     Optional<ProductPrice> findByProductIdAndCurrency(UUID productId, String currency);
@@ -24,4 +30,18 @@ public interface ProductPriceRepository extends JpaRepository<ProductPrice, Prod
     List<ProductPrice> findByCurrency(@Param("currency") String currency);
     
     boolean existsByProductIdAndCurrency(UUID productId, String currency);
+    
+    @Query(DTO_SELECT + " WHERE pp.id.productId = :productId AND pp.id.currency = :currency")
+    Optional<ProductPriceDto> findDtoByProductIdAndCurrency(@Param("productId") UUID productId,
+                                                            @Param("currency") String currency);
+    
+    @Query(DTO_SELECT + " WHERE pp.id.productId = :productId")
+    List<ProductPriceDto> findDtosByProductId(@Param("productId") UUID productId);
+    
+    @Query(DTO_SELECT + " WHERE pp.id.productId IN :productIds AND pp.id.currency = :currency")
+    List<ProductPriceDto> findDtosByProductIdsAndCurrency(@Param("productIds") Collection<UUID> productIds,
+                                                          @Param("currency") String currency);
+    
+    @Query(DTO_SELECT + " WHERE pp.id.currency = :currency")
+    List<ProductPriceDto> findDtosByCurrency(@Param("currency") String currency);
 }
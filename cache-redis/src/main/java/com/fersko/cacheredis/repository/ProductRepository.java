@@ -1,11 +1,13 @@
 package com.fersko.cacheredis.repository;
 
+import com.fersko.cacheredis.dto.ProductDto;
 import com.fersko.cacheredis.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,17 +15,33 @@ import java.util.UUID;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, UUID> {
     
+    String DTO_SELECT = "SELECT new com.fersko.cacheredis.dto.ProductDto("
+            + "p.id, p.sku, p.name, p.description, c.id, c.name, p.updatedAt) "
+            + "FROM Product p JOIN p.category c";
+    
     Optional<Product> findBySku(String sku);
     
     List<Product> findByCategoryId(UUID categoryId);
     
     List<Product> findByNameContainingIgnoreCase(String name);
     
-    @Query("SELECT p FROM Product p WHERE p.name LIKE %:searchTerm% OR p.description LIKE %:searchTerm%")
-    List<Product> findBySearchTerm(@Param("searchTerm") String searchTerm);
-    
     @Query("SELECT p FROM Product p JOIN p.category c WHERE c.id = :categoryId")
     List<Product> findByCategoryIdWithCategory(@Param("categoryId") UUID categoryId);
     
     boolean existsBySku(String sku);
+    
+    @Query(DTO_SELECT + " WHERE p.id = :id")
+    Optional<ProductDto> findDtoById(@Param("id") UUID id);
+    
+    @Query(DTO_SELECT + " WHERE p.sku = :sku")
+    Optional<ProductDto> findDtoBySku(@Param("sku") String sku);
+    
+    @Query(DTO_SELECT)
+    List<ProductDto> findAllDtos();
+    
+    @Query(DTO_SELECT + " WHERE p.id IN :ids")
+    List<ProductDto> findDtosByIds(@Param("ids") Collection<UUID> ids);
+    
+    @Query(DTO_SELECT + " WHERE c.id = :categoryId")
+    List<ProductDto> findDtosByCategoryId(@Param("categoryId") UUID categoryId);
 }
@@ -0,0 +1,124 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.RatingSummaryDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class RatingSummaryRepository {
+    
+    private static final String COLUMNS = """
+            product_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5, updated_at
+            """;
+    
+    private static final String APPLY_DELTAS = """
+            INSERT INTO review_rating_summary AS s
+                (product_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5)
+            SELECT product_id,
+                   SUM(delta),
+                   SUM(delta * rating),
+                   COALESCE(SUM(delta) FILTER (WHERE rating = 1), 0),
+                   COALESCE(SUM(delta) FILTER (WHERE rating = 2), 0),
+                   COALESCE(SUM(delta) FILTER (WHERE rating = 3), 0),
+                   COALESCE(SUM(delta) FILTER (WHERE rating = 4), 0),
+                   COALESCE(SUM(delta) FILTER (WHERE rating = 5), 0)
+            FROM unnest(?::uuid[], ?::int4[], ?::int4[]) AS d(product_id, rating, delta)
+            GROUP BY product_id
+            ORDER BY product_id
+            ON CONFLICT (product_id) DO UPDATE
+            SET review_count = s.review_count + EXCLUDED.review_count,
+                rating_sum = s.rating_sum + EXCLUDED.rating_sum,
+                rating_1 = s.rating_1 + EXCLUDED.rating_1,
+                rating_2 = s.rating_2 + EXCLUDED.rating_2,
+                rating_3 = s.rating_3 + EXCLUDED.rating_3,
+                rating_4 = s.rating_4 + EXCLUDED.rating_4,
+                rating_5 = s.rating_5 + EXCLUDED.rating_5,
+                updated_at = NOW()
+            """;
+    
+    private static final String REBUILD = """
+            INSERT INTO review_rating_summary AS s
+                (product_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5)
+            SELECT product_id,
+                   COUNT(*),
+                   SUM(rating),
+                   COUNT(*) FILTER (WHERE rating = 1),
+                   COUNT(*) FILTER (WHERE rating = 2),
+                   COUNT(*) FILTER (WHERE rating = 3),
+                   COUNT(*) FILTER (WHERE rating = 4),
+                   COUNT(*) FILTER (WHERE rating = 5)
+            FROM review
+            GROUP BY product_id
+            ON CONFLICT (product_id) DO UPDATE
+            SET review_count = EXCLUDED.review_count,
+                rating_sum = EXCLUDED.rating_sum,
+                rating_1 = EXCLUDED.rating_1,
+                rating_2 = EXCLUDED.rating_2,
+                rating_3 = EXCLUDED.rating_3,
+                rating_4 = EXCLUDED.rating_4,
+                rating_5 = EXCLUDED.rating_5,
+                updated_at = NOW()
+            WHERE (s.review_count, s.rating_sum, s.rating_1, s.rating_2, s.rating_3, s.rating_4, s.rating_5)
+                IS DISTINCT FROM (EXCLUDED.review_count, EXCLUDED.rating_sum, EXCLUDED.rating_1,
+                                  EXCLUDED.rating_2, EXCLUDED.rating_3, EXCLUDED.rating_4, EXCLUDED.rating_5)
+            """;
+    
+    private static final String DELETE_ORPHANS = """
+            DELETE FROM review_rating_summary s
+            WHERE NOT EXISTS (SELECT 1 FROM review r WHERE r.product_id = s.product_id)
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public void applyDeltas(List<RatingDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(APPLY_DELTAS, statement -> {
+            statement.setArray(1, statement.getConnection().createArrayOf("uuid",
+                    deltas.stream().map(RatingDelta::productId).toArray()));
+            statement.setArray(2, statement.getConnection().createArrayOf("int4",
+                    deltas.stream().map(RatingDelta::rating).toArray()));
+            statement.setArray(3, statement.getConnection().createArrayOf("int4",
+                    deltas.stream().map(RatingDelta::delta).toArray()));
+        });
+    }
+    
+    public List<RatingSummaryDto> findByProductIds(Collection<UUID> productIds) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM review_rating_summary WHERE product_id = ANY(?)",
+                statement -> statement.setArray(1,
+                        statement.getConnection().createArrayOf("uuid", productIds.toArray())),
+                RatingSummaryRepository::mapRow);
+    }
+    
+    public int rebuild() {
+        jdbcTemplate.execute("LOCK TABLE review_rating_summary IN SHARE ROW EXCLUSIVE MODE");
+        int changed = jdbcTemplate.update(REBUILD);
+        return changed + jdbcTemplate.update(DELETE_ORPHANS);
+    }
+    
+    static RatingSummaryDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        long reviewCount = rs.getLong("review_count");
+        long ratingSum = rs.getLong("rating_sum");
+        return new RatingSummaryDto(
+                rs.getObject("product_id", UUID.class),
+                reviewCount,
+                ratingSum,
+                reviewCount > 0 ? (double) ratingSum / reviewCount : null,
+                RatingSummaryDto.histogram(rs.getLong("rating_1"), rs.getLong("rating_2"), rs.getLong("rating_3"),
+                        rs.getLong("rating_4"), rs.getLong("rating_5")),
+                rs.getObject("updated_at", OffsetDateTime.class)
+        );
+    }
+    
+    public record RatingDelta(UUID productId, int rating, int delta) {}
+}
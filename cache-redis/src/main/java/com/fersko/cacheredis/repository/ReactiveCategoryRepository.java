@@ -0,0 +1,50 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.CategoryDto;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class ReactiveCategoryRepository {
+    
+    private static final String SELECT_CATEGORY = "SELECT id, name, slug, created_at FROM category";
+    
+    private final DatabaseClient databaseClient;
+    
+    public Mono<CategoryDto> findById(UUID id) {
+        return databaseClient.sql(SELECT_CATEGORY + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveCategoryRepository::toDto)
+                .one();
+    }
+    
+    public Mono<CategoryDto> findBySlug(String slug) {
+        return databaseClient.sql(SELECT_CATEGORY + " WHERE slug = :slug")
+                .bind("slug", slug)
+                .map(ReactiveCategoryRepository::toDto)
+                .one();
+    }
+    
+    public Flux<CategoryDto> findAll() {
+        return databaseClient.sql(SELECT_CATEGORY)
+                .map(ReactiveCategoryRepository::toDto)
+                .all();
+    }
+    
+    private static CategoryDto toDto(Readable row) {
+        return new CategoryDto(
+                row.get("id", UUID.class),
+                row.get("name", String.class),
+                row.get("slug", String.class),
+                row.get("created_at", OffsetDateTime.class)
+        );
+    }
+}
@@ -0,0 +1,52 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.InventoryDto;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class ReactiveInventoryRepository {
+    
+    private static final String SELECT_INVENTORY = "SELECT product_id, warehouse_id, quantity, updated_at FROM inventory";
+    
+    private final DatabaseClient databaseClient;
+    
+    public Mono<InventoryDto> findByProductIdAndWarehouseId(UUID productId, Long warehouseId) {
+        return databaseClient.sql(SELECT_INVENTORY + " WHERE product_id = :productId AND warehouse_id = :warehouseId")
+                .bind("productId", productId)
+                .bind("warehouseId", warehouseId)
+                .map(ReactiveInventoryRepository::toDto)
+                .one();
+    }
+    
+    public Flux<InventoryDto> findByProductId(UUID productId) {
+        return databaseClient.sql(SELECT_INVENTORY + " WHERE product_id = :productId")
+                .bind("productId", productId)
+                .map(ReactiveInventoryRepository::toDto)
+                .all();
+    }
+    
+    public Flux<InventoryDto> findAvailableByProductId(UUID productId) {
+        return databaseClient.sql(SELECT_INVENTORY + " WHERE product_id = :productId AND quantity > 0")
+                .bind("productId", productId)
+                .map(ReactiveInventoryRepository::toDto)
+                .all();
+    }
+    
+    private static InventoryDto toDto(Readable row) {
+        return new InventoryDto(
+                row.get("product_id", UUID.class),
+                row.get("warehouse_id", Long.class),
+                row.get("quantity", Integer.class),
+                row.get("updated_at", OffsetDateTime.class)
+        );
+    }
+}
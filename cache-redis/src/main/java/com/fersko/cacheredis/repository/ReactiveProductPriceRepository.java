@@ -0,0 +1,53 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class ReactiveProductPriceRepository {
+    
+    private static final String SELECT_PRICE = "SELECT product_id, currency, amount, updated_at FROM product_price";
+    
+    private final DatabaseClient databaseClient;
+    
+    public Mono<ProductPriceDto> findByProductIdAndCurrency(UUID productId, String currency) {
+        return databaseClient.sql(SELECT_PRICE + " WHERE product_id = :productId AND currency = :currency")
+                .bind("productId", productId)
+                .bind("currency", currency)
+                .map(ReactiveProductPriceRepository::toDto)
+                .one();
+    }
+    
+    public Flux<ProductPriceDto> findByProductId(UUID productId) {
+        return databaseClient.sql(SELECT_PRICE + " WHERE product_id = :productId")
+                .bind("productId", productId)
+                .map(ReactiveProductPriceRepository::toDto)
+                .all();
+    }
+    
+    public Flux<ProductPriceDto> findByCurrency(String currency) {
+        return databaseClient.sql(SELECT_PRICE + " WHERE currency = :currency")
+                .bind("currency", currency)
+                .map(ReactiveProductPriceRepository::toDto)
+                .all();
+    }
+    
+    private static ProductPriceDto toDto(Readable row) {
+        return new ProductPriceDto(
+                row.get("product_id", UUID.class),
+                row.get("currency", String.class),
+                row.get("amount", BigDecimal.class),
+                row.get("updated_at", OffsetDateTime.class)
+        );
+    }
+}
@@ -0,0 +1,57 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.ProductDto;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class ReactiveProductRepository {
+    
+    private static final String SELECT_PRODUCT = """
+            SELECT p.id, p.sku, p.name, p.description, p.category_id, c.name AS category_name, p.updated_at
+            FROM product p
+            JOIN category c ON c.id = p.category_id
+            """;
+    
+    private final DatabaseClient databaseClient;
+    
+    public Mono<ProductDto> findById(UUID id) {
+        return databaseClient.sql(SELECT_PRODUCT + " WHERE p.id = :id")
+                .bind("id", id)
+                .map(ReactiveProductRepository::toDto)
+                .one();
+    }
+    
+    public Flux<ProductDto> findByCategoryId(UUID categoryId) {
+        return databaseClient.sql(SELECT_PRODUCT + " WHERE p.category_id = :categoryId")
+                .bind("categoryId", categoryId)
+                .map(ReactiveProductRepository::toDto)
+                .all();
+    }
+    
+    public Flux<ProductDto> findAll() {
+        return databaseClient.sql(SELECT_PRODUCT)
+                .map(ReactiveProductRepository::toDto)
+                .all();
+    }
+    
+    private static ProductDto toDto(Readable row) {
+        return new ProductDto(
+                row.get("id", UUID.class),
+                row.get("sku", String.class),
+                row.get("name", String.class),
+                row.get("description", String.class),
+                row.get("category_id", UUID.class),
+                row.get("category_name", String.class),
+                row.get("updated_at", OffsetDateTime.class)
+        );
+    }
+}
@@ -0,0 +1,60 @@
+package com.fersko.cacheredis.repository;
+
+import com.fersko.cacheredis.dto.PageDto;
+import com.fersko.cacheredis.dto.ReviewDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class ReviewKeysetRepository {
+    
+    private static final String SELECT_BY_RATING = """
+            SELECT id, product_id, rating, text, updated_at
+            FROM review
+            WHERE rating = ?
+            """;
+    
+    private static final String ORDER = " ORDER BY updated_at, id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcRowStreamer rowStreamer;
+    
+    public PageDto<ReviewDto> findPageByRating(short rating, String cursor, int limit) {
+        List<ReviewDto> rows;
+        if (cursor == null) {
+            rows = jdbcTemplate.query(SELECT_BY_RATING + ORDER + " LIMIT ?",
+                    ReviewKeysetRepository::mapRow, rating, limit + 1);
+        } else {
+            List<String> keys = KeysetCursor.decode(cursor, 2);
+            rows = jdbcTemplate.query(SELECT_BY_RATING + " AND (updated_at, id) > (?, ?)" + ORDER + " LIMIT ?",
+                    ReviewKeysetRepository::mapRow,
+                    rating, KeysetCursor.timestampKey(keys.get(0)), KeysetCursor.uuidKey(keys.get(1)), limit + 1);
+        }
+        return PageDto.of(rows, limit, last -> KeysetCursor.encode(last.updatedAt(), last.id()));
+    }
+    
+    public Flux<ReviewDto> streamByRating(short rating) {
+        return rowStreamer.stream(SELECT_BY_RATING + ORDER,
+                statement -> statement.setShort(1, rating),
+                ReviewKeysetRepository::mapRow);
+    }
+    
+    static ReviewDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new ReviewDto(
+                rs.getObject("id", UUID.class),
+                rs.getObject("product_id", UUID.class),
+                rs.getShort("rating"),
+                rs.getString("text"),
+                rs.getObject("updated_at", OffsetDateTime.class)
+        );
+    }
+}
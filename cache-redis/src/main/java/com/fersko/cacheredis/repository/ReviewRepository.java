@@ -1,5 +1,6 @@
 package com.fersko.cacheredis.repository;
 
+import com.fersko.cacheredis.dto.ReviewDto;
 import com.fersko.cacheredis.entity.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -13,6 +14,10 @@ import java.util.UUID;
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, UUID> {
     
+    String DTO_SELECT = "SELECT new com.fersko.cacheredis.dto.ReviewDto("
+            + "r.id, r.product.id, r.rating, r.text, r.updatedAt) "
+            + "FROM Review r";
+    
     List<Review> findByProductId(UUID productId);
     
     List<Review> findByRating(Short rating);
@@ -28,4 +33,17 @@ public interface ReviewRepository extends JpaRepository<Review, UUID> {
     
     @Query("SELECT COUNT(r) FROM Review r WHERE r.product.id = :productId")
     Long countByProductId(@Param("productId") UUID productId);
+    
+    @Query(DTO_SELECT + " WHERE r.id = :id")
+    Optional<ReviewDto> findDtoById(@Param("id") UUID id);
+    
+    @Query(DTO_SELECT + " WHERE r.product.id = :productId")
+    List<ReviewDto> findDtosByProductId(@Param("productId") UUID productId);
+    
+    @Query(DTO_SELECT + " WHERE r.rating = :rating")
+    List<ReviewDto> findDtosByRating(@Param("rating") Short rating);
+    
+    @Query(DTO_SELECT + " WHERE r.product.id = :productId AND r.rating >= :minRating")
+    List<ReviewDto> findDtosByProductIdAndMinRating(@Param("productId") UUID productId,
+                                                    @Param("minRating") Short minRating);
 }
@@ -0,0 +1,82 @@
+package com.fersko.cacheredis.search;
+
+import java.util.Arrays;
+
+final class PostingList {
+    
+    private byte[] buffer = new byte[8];
+    private int length;
+    private int size;
+    private int lastDocId = -1;
+    
+    void add(int docId) {
+        if (docId <= lastDocId) {
+            if (docId == lastDocId) {
+                return;
+            }
+            throw new IllegalArgumentException("Doc ids must be appended in ascending order: " + docId + " <= " + lastDocId);
+        }
+        int delta = docId - lastDocId;
+        ensureCapacity(length + 5);
+        while ((delta & ~0x7F) != 0) {
+            buffer[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        buffer[length++] = (byte) delta;
+        lastDocId = docId;
+        size++;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int sizeInBytes() {
+        return length;
+    }
+    
+    Cursor cursor() {
+        return new Cursor();
+    }
+    
+    void trim() {
+        buffer = Arrays.copyOf(buffer, length);
+    }
+    
+    private void ensureCapacity(int required) {
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length + (buffer.length >> 1)));
+        }
+    }
+    
+    final class Cursor {
+        
+        private int position;
+        private int docId = -1;
+        private boolean exhausted;
+        
+        int next() {
+            if (position >= length) {
+                exhausted = true;
+                return -1;
+            }
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            docId += delta;
+            return docId;
+        }
+        
+        int advance(int target) {
+            while (!exhausted && docId < target) {
+                next();
+            }
+            return exhausted ? -1 : docId;
+        }
+    }
+}
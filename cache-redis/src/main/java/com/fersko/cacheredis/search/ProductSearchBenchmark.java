@@ -0,0 +1,58 @@
+package com.fersko.cacheredis.search;
+
+import com.fersko.cacheredis.benchmark.BenchmarkTimings;
+import com.fersko.cacheredis.repository.CatalogSearchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+@Slf4j
+@Component
+@Profile("benchmark")
+@RequiredArgsConstructor
+public class ProductSearchBenchmark {
+    
+    private static final int MAX_TERMS = 10;
+    private static final int MAX_ITERATIONS = 1_000;
+    
+    private final CatalogSearchRepository catalogSearchRepository;
+    private final ProductSearchIndex productSearchIndex;
+    
+    public String run(List<String> terms, int iterations, Integer limit) {
+        if (terms.isEmpty() || terms.size() > MAX_TERMS || iterations <= 0 || iterations > MAX_ITERATIONS) {
+            throw new IllegalArgumentException("terms must contain between 1 and " + MAX_TERMS
+                    + " entries and iterations must be between 1 and " + MAX_ITERATIONS);
+        }
+        List<String> normalizedTerms = terms.stream().map(CatalogSearchRepository::normalize).toList();
+        int resolvedLimit = CatalogSearchRepository.limit(limit);
+        if (!productSearchIndex.isReady()) {
+            throw new IllegalStateException("Product search index is not built");
+        }
+        
+        ProductSearchIndex.Stats stats = productSearchIndex.stats();
+        StringBuilder result = new StringBuilder("""
+                СРАВНЕНИЕ ПОИСКА: SQL vs IN-MEMORY ИНДЕКС
+                ==========================================
+                """);
+        result.append(String.format("индекс: документов=%d, n-грамм=%d, posting-списки=%d КБ%n",
+                stats.liveDocuments(), stats.grams(), stats.postingBytes() / 1024));
+        result.append("iterations=").append(iterations).append(", limit=").append(resolvedLimit).append("\n\n");
+        
+        for (String term : normalizedTerms) {
+            IntSupplier sql = () -> catalogSearchRepository.searchProducts(term, resolvedLimit).size();
+            IntSupplier index = () -> productSearchIndex.search(term, resolvedLimit).size();
+            
+            result.append('\'').append(term).append("'\n");
+            BenchmarkTimings.append(result, "sql", sql, iterations);
+            BenchmarkTimings.append(result, "index", index, iterations);
+            result.append('\n');
+        }
+        
+        log.info("Сравнение поиска выполнено: {} запросов, {} итераций", normalizedTerms.size(), iterations);
+        return result.toString();
+    }
+}
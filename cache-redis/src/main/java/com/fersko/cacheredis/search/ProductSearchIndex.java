@@ -0,0 +1,325 @@
+package com.fersko.cacheredis.search;
+
+import com.fersko.cacheredis.cache.CacheTransactions;
+import com.fersko.cacheredis.config.ProductSearchProperties;
+import com.fersko.cacheredis.dto.ProductDto;
+import com.fersko.cacheredis.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+    
+    static final int GRAM_SIZE = 3;
+    
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int NAME_MATCH = 0;
+    private static final int SKU_MATCH = 1;
+    private static final int DESCRIPTION_MATCH = 2;
+    private static final int NO_MATCH = 3;
+    
+    private final ProductRepository productRepository;
+    private final ProductSearchProperties properties;
+    
+    private final Object rebuildLock = new Object();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<UUID, Integer> docIds = new HashMap<>();
+    private final List<ProductDto> documents = new ArrayList<>();
+    private int deletedDocuments;
+    private List<Runnable> buffered;
+    private volatile boolean ready;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.engine() == ProductSearchProperties.Engine.INDEX) {
+            rebuild();
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public boolean isServing() {
+        return ready && properties.engine() == ProductSearchProperties.Engine.INDEX;
+    }
+    
+    public void rebuild() {
+        long start = System.nanoTime();
+        synchronized (rebuildLock) {
+            withWriteLock(() -> buffered = new ArrayList<>());
+            try {
+                List<ProductDto> products = productRepository.findAllDtos();
+                withWriteLock(() -> {
+                    reindex(products);
+                    buffered.forEach(Runnable::run);
+                    compactIfNeeded();
+                    ready = true;
+                });
+            } finally {
+                withWriteLock(() -> buffered = null);
+            }
+        }
+        
+        Stats stats = stats();
+        log.info("Поисковый индекс товаров построен за {} мс: документов={}, n-грамм={}, размер posting-списков={} КБ",
+                (System.nanoTime() - start) / 1_000_000, stats.liveDocuments(), stats.grams(),
+                stats.postingBytes() / 1024);
+    }
+    
+    public void index(ProductDto product) {
+        indexAll(List.of(product));
+    }
+    
+    public void indexAll(Collection<ProductDto> products) {
+        CacheTransactions.afterCommit(() -> applyChange(() -> {
+            for (ProductDto product : products) {
+                delete(product.id());
+                append(product);
+            }
+            compactIfNeeded();
+        }));
+    }
+    
+    public void remove(UUID productId) {
+        CacheTransactions.afterCommit(() -> applyChange(() -> {
+            delete(productId);
+            compactIfNeeded();
+        }));
+    }
+    
+    public void renameCategories(Map<UUID, String> categoryNames) {
+        CacheTransactions.afterCommit(() -> applyChange(() ->
+                documents.replaceAll(product -> product == null || !categoryNames.containsKey(product.categoryId())
+                        ? product
+                        : new ProductDto(product.id(), product.sku(), product.name(), product.description(),
+                        product.categoryId(), categoryNames.get(product.categoryId()), product.updatedAt()))));
+    }
+    
+    public List<ProductDto> search(String term, int limit) {
+        List<String> queryTokens = tokens(term);
+        Set<String> queryGrams = new LinkedHashSet<>();
+        queryTokens.forEach(token -> addGrams(token, queryGrams));
+        if (queryGrams.isEmpty()) {
+            return List.of();
+        }
+        
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[queryGrams.size()];
+            int i = 0;
+            for (String gram : queryGrams) {
+                PostingList list = postings.get(gram);
+                if (list == null) {
+                    return List.of();
+                }
+                lists[i++] = list;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+            return collect(cursors(lists), queryTokens, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            long postingBytes = 0;
+            for (PostingList list : postings.values()) {
+                postingBytes += list.sizeInBytes();
+            }
+            return new Stats(documents.size() - deletedDocuments, deletedDocuments, postings.size(), postingBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private List<ProductDto> collect(PostingList.Cursor[] cursors, List<String> queryTokens, int limit) {
+        List<List<ProductDto>> byRank = new ArrayList<>(NO_MATCH);
+        for (int rank = 0; rank < NO_MATCH; rank++) {
+            byRank.add(new ArrayList<>());
+        }
+        
+        int docId = nextCommon(cursors, 0);
+        while (docId != -1 && byRank.get(NAME_MATCH).size() < limit) {
+            ProductDto product = documents.get(docId);
+            if (product != null) {
+                int rank = rank(product, queryTokens);
+                if (rank != NO_MATCH) {
+                    byRank.get(rank).add(product);
+                }
+            }
+            docId = nextCommon(cursors, docId + 1);
+        }
+        
+        return byRank.stream()
+                .flatMap(List::stream)
+                .limit(limit)
+                .toList();
+    }
+    
+    private static PostingList.Cursor[] cursors(PostingList[] lists) {
+        PostingList.Cursor[] cursors = new PostingList.Cursor[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            cursors[i] = lists[i].cursor();
+        }
+        return cursors;
+    }
+    
+    private static int nextCommon(PostingList.Cursor[] cursors, int from) {
+        int candidate = from;
+        int agreed = 0;
+        int i = 0;
+        while (true) {
+            int docId = cursors[i].advance(candidate);
+            if (docId == -1) {
+                return -1;
+            }
+            if (docId != candidate) {
+                candidate = docId;
+                agreed = 0;
+            }
+            if (++agreed == cursors.length) {
+                return candidate;
+            }
+            i = (i + 1) % cursors.length;
+        }
+    }
+    
+    private static int rank(ProductDto product, List<String> queryTokens) {
+        List<String> nameTokens = tokens(product.name());
+        List<String> skuTokens = tokens(product.sku());
+        List<String> descriptionTokens = null;
+        int rank = NAME_MATCH;
+        for (String queryToken : queryTokens) {
+            int tokenRank;
+            if (hasPrefix(nameTokens, queryToken)) {
+                tokenRank = NAME_MATCH;
+            } else if (hasPrefix(skuTokens, queryToken)) {
+                tokenRank = SKU_MATCH;
+            } else {
+                if (descriptionTokens == null) {
+                    descriptionTokens = tokens(product.description());
+                }
+                tokenRank = hasPrefix(descriptionTokens, queryToken) ? DESCRIPTION_MATCH : NO_MATCH;
+            }
+            rank = Math.max(rank, tokenRank);
+            if (rank == NO_MATCH) {
+                break;
+            }
+        }
+        return rank;
+    }
+    
+    private static boolean hasPrefix(List<String> tokens, String prefix) {
+        for (String token : tokens) {
+            if (token.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void applyChange(Runnable change) {
+        withWriteLock(() -> {
+            if (buffered != null) {
+                buffered.add(change);
+            }
+            if (ready) {
+                change.run();
+            }
+        });
+    }
+    
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void reindex(List<ProductDto> products) {
+        postings.clear();
+        docIds.clear();
+        documents.clear();
+        deletedDocuments = 0;
+        products.forEach(this::append);
+        postings.values().forEach(PostingList::trim);
+    }
+    
+    private void append(ProductDto product) {
+        int docId = documents.size();
+        documents.add(product);
+        docIds.put(product.id(), docId);
+        
+        Set<String> grams = new LinkedHashSet<>();
+        for (String text : new String[]{product.name(), product.sku(), product.description()}) {
+            tokens(text).forEach(token -> addGrams(token, grams));
+        }
+        grams.forEach(gram -> postings.computeIfAbsent(gram, key -> new PostingList()).add(docId));
+    }
+    
+    private void delete(UUID productId) {
+        Integer docId = docIds.remove(productId);
+        if (docId != null) {
+            documents.set(docId, null);
+            deletedDocuments++;
+        }
+    }
+    
+    private void compactIfNeeded() {
+        if (deletedDocuments > 0 && deletedDocuments > documents.size() * properties.compactionRatio()) {
+            List<ProductDto> live = documents.stream().filter(Objects::nonNull).toList();
+            reindex(live);
+            log.info("Поисковый индекс товаров уплотнён: документов={}", live.size());
+        }
+    }
+    
+    static List<String> tokens(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+    
+    static void addGrams(String token, Set<String> grams) {
+        String padded = " " + token;
+        for (int i = 0; i + GRAM_SIZE <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM_SIZE));
+        }
+    }
+    
+    public record Stats(
+            long liveDocuments,
+            long deletedDocuments,
+            long grams,
+            long postingBytes
+    ) {}
+}
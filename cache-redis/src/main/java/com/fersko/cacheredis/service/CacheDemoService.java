@@ -14,8 +14,6 @@ public interface CacheDemoService {
     
     CategoryDto updateCategoryWithWriteBehind(UUID id, CategoryDto categoryDto);
     
-    void warmUpCache();
-    
     String demonstrateCacheHitMiss(UUID categoryId);
     
     String slowOperation(String input);
@@ -0,0 +1,12 @@
+package com.fersko.cacheredis.service;
+
+import com.fersko.cacheredis.dto.WarmUpProgressDto;
+
+public interface CacheWarmUpService {
+
+    WarmUpProgressDto startWarmUp();
+
+    WarmUpProgressDto getProgress();
+
+    boolean isWarm();
+}
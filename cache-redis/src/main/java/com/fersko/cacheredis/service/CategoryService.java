@@ -11,6 +11,8 @@ public interface CategoryService {
 
     CategoryDto createCategory(CategoryDto categoryDto);
 
+    List<CategoryDto> upsertCategories(List<CategoryDto> categories);
+
     Optional<CategoryDto> getCategoryById(UUID id);
 
     Optional<CategoryDto> getCategoryBySlug(String slug);
@@ -21,7 +23,7 @@ public interface CategoryService {
 
     void deleteCategory(UUID id);
 
-    List<CategoryDto> searchCategories(String searchTerm);
+    List<CategoryDto> searchCategories(String searchTerm, Integer limit);
 
     boolean existsBySlug(String slug);
 }
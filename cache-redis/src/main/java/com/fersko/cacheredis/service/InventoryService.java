@@ -1,6 +1,10 @@
 package com.fersko.cacheredis.service;
 
+import com.fersko.cacheredis.dto.InventoryAdjustment;
 import com.fersko.cacheredis.dto.InventoryDto;
+import com.fersko.cacheredis.dto.PageDto;
+import com.fersko.cacheredis.dto.ProductAvailabilityDto;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,18 +16,38 @@ public interface InventoryService {
 
     InventoryDto createInventory(InventoryDto inventoryDto);
 
+    List<InventoryDto> upsertInventory(List<InventoryDto> inventory);
+
     Optional<InventoryDto> getInventory(UUID productId, Long warehouseId);
 
     List<InventoryDto> getInventoryByProductId(UUID productId);
 
     List<InventoryDto> getInventoryByWarehouseId(Long warehouseId);
 
+    List<InventoryDto> getInventoryByProductIds(List<UUID> productIds, Long warehouseId);
+
     List<InventoryDto> getAvailableInventory();
 
+    PageDto<InventoryDto> getAvailableInventoryPage(String cursor, Integer limit);
+
+    Flux<InventoryDto> streamAvailableInventory();
+
     List<InventoryDto> getAvailableInventoryByProductId(UUID productId);
 
+    Optional<ProductAvailabilityDto> getProductAvailability(UUID productId);
+
+    List<ProductAvailabilityDto> getAvailabilityByCategoryId(UUID categoryId);
+
     InventoryDto updateInventory(UUID productId, Long warehouseId, InventoryDto inventoryDto);
 
+    InventoryDto updateInventoryWriteBehind(UUID productId, Long warehouseId, InventoryDto inventoryDto);
+
+    InventoryAdjustment incrementInventory(UUID productId, Long warehouseId, int quantity);
+
+    InventoryAdjustment decrementInventory(UUID productId, Long warehouseId, int quantity);
+
+    InventoryAdjustment reserveInventory(UUID productId, int quantity);
+
     void deleteInventory(UUID productId, Long warehouseId);
 
     boolean existsByProductIdAndWarehouseId(UUID productId, Long warehouseId);
@@ -1,6 +1,8 @@
 package com.fersko.cacheredis.service;
 
+import com.fersko.cacheredis.dto.PageDto;
 import com.fersko.cacheredis.dto.ProductPriceDto;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,14 +12,24 @@ public interface ProductPriceService {
 
     ProductPriceDto createProductPrice(ProductPriceDto productPriceDto);
 
+    List<ProductPriceDto> upsertProductPrices(List<ProductPriceDto> prices);
+
     Optional<ProductPriceDto> getProductPrice(UUID productId, String currency);
 
     List<ProductPriceDto> getProductPrices(UUID productId);
 
     List<ProductPriceDto> getPricesByCurrency(String currency);
 
+    List<ProductPriceDto> getPricesByProductIds(List<UUID> productIds, String currency);
+
+    PageDto<ProductPriceDto> getPricesByCurrencyPage(String currency, String cursor, Integer limit);
+
+    Flux<ProductPriceDto> streamPricesByCurrency(String currency);
+
     ProductPriceDto updateProductPrice(UUID productId, String currency, ProductPriceDto productPriceDto);
 
+    ProductPriceDto updateProductPriceWriteBehind(UUID productId, String currency, ProductPriceDto productPriceDto);
+
     void deleteProductPrice(UUID productId, String currency);
 
     boolean existsByProductIdAndCurrency(UUID productId, String currency);
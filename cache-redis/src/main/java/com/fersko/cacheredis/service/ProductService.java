@@ -1,6 +1,8 @@
 package com.fersko.cacheredis.service;
 
+import com.fersko.cacheredis.dto.PageDto;
 import com.fersko.cacheredis.dto.ProductDto;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,19 +13,27 @@ public interface ProductService {
 
     ProductDto createProduct(ProductDto productDto);
 
+    List<ProductDto> upsertProducts(List<ProductDto> products);
+
     Optional<ProductDto> getProductById(UUID id);
 
     Optional<ProductDto> getProductBySku(String sku);
 
     List<ProductDto> getAllProducts();
 
+    List<ProductDto> getProductsByIds(List<UUID> ids);
+
+    PageDto<ProductDto> getProductsPage(String cursor, Integer limit);
+
+    Flux<ProductDto> streamAllProducts();
+
     List<ProductDto> getProductsByCategoryId(UUID categoryId);
 
     ProductDto updateProduct(UUID id, ProductDto productDto);
 
     void deleteProduct(UUID id);
 
-    List<ProductDto> searchProducts(String searchTerm);
+    List<ProductDto> searchProducts(String searchTerm, Integer limit);
 
     boolean existsBySku(String sku);
 }
@@ -0,0 +1,37 @@
+package com.fersko.cacheredis.service;
+
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.InventoryDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface ReactiveCatalogService {
+
+    Mono<CategoryDto> getCategoryById(UUID id);
+
+    Mono<CategoryDto> getCategoryBySlug(String slug);
+
+    Flux<CategoryDto> getAllCategories();
+
+    Mono<ProductDto> getProductById(UUID id);
+
+    Flux<ProductDto> getAllProducts();
+
+    Flux<ProductDto> getProductsByCategoryId(UUID categoryId);
+
+    Mono<ProductPriceDto> getProductPrice(UUID productId, String currency);
+
+    Flux<ProductPriceDto> getProductPrices(UUID productId);
+
+    Flux<ProductPriceDto> getPricesByCurrency(String currency);
+
+    Mono<InventoryDto> getInventory(UUID productId, Long warehouseId);
+
+    Flux<InventoryDto> getInventoryByProductId(UUID productId);
+
+    Flux<InventoryDto> getAvailableInventoryByProductId(UUID productId);
+}
@@ -1,6 +1,9 @@
 package com.fersko.cacheredis.service;
 
+import com.fersko.cacheredis.dto.PageDto;
+import com.fersko.cacheredis.dto.RatingSummaryDto;
 import com.fersko.cacheredis.dto.ReviewDto;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,12 +14,18 @@ public interface ReviewService {
 
     ReviewDto createReview(ReviewDto reviewDto);
 
+    List<ReviewDto> createReviews(List<ReviewDto> reviews);
+
     Optional<ReviewDto> getReviewById(UUID id);
 
     List<ReviewDto> getReviewsByProductId(UUID productId);
 
     List<ReviewDto> getReviewsByRating(Short rating);
 
+    PageDto<ReviewDto> getReviewsByRatingPage(Short rating, String cursor, Integer limit);
+
+    Flux<ReviewDto> streamReviewsByRating(Short rating);
+
     List<ReviewDto> getReviewsByProductIdAndMinRating(UUID productId, Short minRating);
 
     ReviewDto updateReview(UUID id, ReviewDto reviewDto);
@@ -26,4 +35,10 @@ public interface ReviewService {
     Optional<Double> getAverageRatingByProductId(UUID productId);
 
     Long countReviewsByProductId(UUID productId);
+
+    RatingSummaryDto getRatingSummary(UUID productId);
+
+    List<RatingSummaryDto> getRatingSummaries(List<UUID> productIds);
+
+    int rebuildRatingSummaries();
 }
@@ -1,23 +1,27 @@
 package com.fersko.cacheredis.service.impl;
 
+import com.fersko.cacheredis.cache.CatalogCacheTags;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
 import com.fersko.cacheredis.dto.CategoryDto;
 import com.fersko.cacheredis.entity.Category;
+import com.fersko.cacheredis.lookup.NegativeLookupGuard;
 import com.fersko.cacheredis.mappers.CategoryMapper;
 import com.fersko.cacheredis.repository.CategoryRepository;
 import com.fersko.cacheredis.service.CacheDemoService;
+import com.fersko.cacheredis.web.ResponseBodyCache;
+import com.fersko.cacheredis.writebehind.CategoryWriteBehindTarget;
+import com.fersko.cacheredis.writebehind.WriteBehindEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -26,9 +30,13 @@ public class CacheDemoServiceImpl implements CacheDemoService {
     
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final TwoLevelCacheManager cacheManager;
+    private final WriteBehindEngine writeBehindEngine;
+    private final NegativeLookupGuard lookupGuard;
+    private final ResponseBodyCache responseBodyCache;
     
     @Override
-    @Cacheable(value = "categories", key = "#id", cacheManager = "localCacheManager")
+    @Cacheable(value = "categories", key = "#id", sync = true)
     public CategoryDto getCategoryWithCacheAside(UUID id) {
         log.info("Cache-Aside: Загрузка категории {} из БД (Cache Miss)", id);
         
@@ -41,66 +49,41 @@ public class CacheDemoServiceImpl implements CacheDemoService {
     }
     
     @Override
-    @CachePut(value = "categories", key = "#result.id", cacheManager = "localCacheManager")
+    @CachePut(value = "categories", key = "#result.id")
     @Transactional
     public CategoryDto createCategoryWithWriteThrough(CategoryDto categoryDto) {
         log.info("Write-Through: Создание категории {} с записью в кэш и БД", categoryDto.name());
         
         Category category = categoryMapper.toEntity(categoryDto);
         Category savedCategory = categoryRepository.save(category);
+        lookupGuard.recordSlug(savedCategory.getSlug());
         
         log.info("Write-Through: Категория {} сохранена в БД и кэше", savedCategory.getId());
         return categoryMapper.toDto(savedCategory);
     }
     
     @Override
-    @CachePut(value = "categories", key = "#id", cacheManager = "localCacheManager")
+    @CachePut(value = "categories", key = "#id")
     public CategoryDto updateCategoryWithWriteBehind(UUID id, CategoryDto categoryDto) {
         log.info("Write-Behind: Обновление категории {} в кэше", id);
         
+        Category existing = categoryRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
+        
         CategoryDto updatedDto = new CategoryDto(
                 id,
                 categoryDto.name(),
                 categoryDto.slug(),
-                categoryDto.createdAt()
+                existing.getCreatedAt()
         );
         
-        updateCategoryInDatabaseAsync(id, categoryDto);
+        writeBehindEngine.enqueue(CategoryWriteBehindTarget.NAME, updatedDto);
+        cacheManager.evictByTags(List.of(CatalogCacheTags.category(id)));
         
-        log.info("Write-Behind: Категория {} обновлена в кэше, БД обновляется асинхронно", id);
+        log.info("Write-Behind: Категория {} обновлена в кэше, БД обновится пакетом из очереди", id);
         return updatedDto;
     }
     
-    @Async
-    public CompletableFuture<Void> updateCategoryInDatabaseAsync(UUID id, CategoryDto categoryDto) {
-        log.info("Write-Behind: Асинхронное обновление категории {} в БД", id);
-        
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Category not found"));
-        
-        category.setName(categoryDto.name());
-        category.setSlug(categoryDto.slug());
-        categoryRepository.save(category);
-        
-        log.info("Write-Behind: Категория {} обновлена в БД", id);
-        return CompletableFuture.completedFuture(null);
-    }
-    
-    @Override
-    @Cacheable(value = "categories", key = "'all'", cacheManager = "localCacheManager")
-    public void warmUpCache() {
-        log.info("Cache Warming: Предварительное заполнение кэша");
-        
-        List<Category> categories = categoryRepository.findAll();
-        log.info("Cache Warming: Загружено {} категорий в кэш", categories.size());
-    }
-    
     @Override
     public String demonstrateCacheHitMiss(UUID categoryId) {
         StringBuilder result = new StringBuilder();
@@ -147,24 +130,69 @@ public class CacheDemoServiceImpl implements CacheDemoService {
     }
     
     @Override
-    @CacheEvict(value = "categories", allEntries = true, cacheManager = "localCacheManager")
+    @CacheEvict(value = "categories", allEntries = true)
     public void demonstrateCacheEviction() {
         log.info("Cache Eviction: Очистка всех записей из кэша categories");
     }
     
     @Override
     public String getCacheStatistics() {
-        return """
+        StringBuilder result = new StringBuilder("""
                 СТАТИСТИКА КЭШИРОВАНИЯ
                 =========================
-                Cache-Aside: Lazy Loading
-                Write-Through: Синхронная запись
-                Write-Behind: Асинхронная запись
-                Cache Warming: Предварительное заполнение
-                TTL: Время жизни записей
-                Cache Eviction: Очистка кэша
-                Multi-Level: L1 (Caffeine) + L2 (Redis)
-                """;
+                Полные метрики: /actuator/prometheus
+                
+                """);
+        
+        cacheManager.getLoadStatistics().forEach((cacheName, stats) -> result
+                .append(cacheName).append(": ")
+                .append("hitRatio=").append(String.format("%.3f", stats.hitRatio()))
+                .append(", l1Hits=").append(stats.localHits())
+                .append(", l2Hits=").append(stats.remoteHits())
+                .append(", misses=").append(stats.misses())
+                .append(", puts=").append(stats.puts())
+                .append(", evictions=").append(stats.evictions())
+                .append(", loads=").append(stats.loads())
+                .append(", coalesced=").append(stats.coalescedLoads())
+                .append(", lockAcquired=").append(stats.lockAcquired())
+                .append(", lockContended=").append(stats.lockContended())
+                .append(", staleServed=").append(stats.staleServed())
+                .append(", lockWaitTimeouts=").append(stats.lockWaitTimeouts())
+                .append(", earlyRefreshes=").append(stats.earlyRefreshes())
+                .append('\n'));
+        
+        WriteBehindEngine.Statistics writeBehind = writeBehindEngine.getStatistics();
+        result.append("\nWRITE-BEHIND\n=========================\n")
+                .append("pending=").append(writeBehind.pending())
+                .append(", inFlight=").append(writeBehind.inFlight())
+                .append(", enqueued=").append(writeBehind.enqueued())
+                .append(", coalesced=").append(writeBehind.coalesced())
+                .append(", flushed=").append(writeBehind.flushed())
+                .append(", batches=").append(writeBehind.batches())
+                .append(", dropped=").append(writeBehind.dropped())
+                .append('\n');
+        
+        result.append("\nNEGATIVE LOOKUP\n=========================\n")
+                .append("serving=").append(lookupGuard.isServing())
+                .append('\n');
+        lookupGuard.stats().forEach((keySpace, stats) -> result
+                .append(keySpace).append(": ")
+                .append("insertions=").append(stats.insertions())
+                .append(", stages=").append(stats.stages())
+                .append(", bytes=").append(stats.bytes())
+                .append(", rejected=").append(stats.rejected())
+                .append('\n'));
+        
+        ResponseBodyCache.Stats responses = responseBodyCache.stats();
+        result.append("\nRESPONSE CACHE\n=========================\n")
+                .append("enabled=").append(responseBodyCache.isEnabled())
+                .append(", entries=").append(responses.entries())
+                .append(", bytes=").append(responses.bytes())
+                .append(", hits=").append(responses.hits())
+                .append(", misses=").append(responses.misses())
+                .append('\n');
+        
+        return result.toString();
     }
     
     private void simulateSlowOperation() {
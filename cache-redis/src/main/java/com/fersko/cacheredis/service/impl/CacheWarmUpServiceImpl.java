@@ -0,0 +1,256 @@
+package com.fersko.cacheredis.service.impl;
+
+import com.fersko.cacheredis.cache.TwoLevelCache;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
+import com.fersko.cacheredis.config.WarmUpProperties;
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import com.fersko.cacheredis.dto.WarmUpProgressDto;
+import com.fersko.cacheredis.service.CacheWarmUpService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Slf4j
+@Service
+public class CacheWarmUpServiceImpl implements CacheWarmUpService {
+    
+    private static final String CATEGORIES_SQL = "SELECT id, name, slug, created_at FROM category";
+    
+    private static final String PRODUCTS_SQL = """
+            SELECT p.id, p.sku, p.name, p.description, p.category_id, c.name AS category_name, p.updated_at
+            FROM product p
+            JOIN category c ON c.id = p.category_id
+            """;
+    
+    private static final String PRICES_SQL = "SELECT product_id, currency, amount, updated_at FROM product_price";
+    
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TwoLevelCacheManager cacheManager;
+    private final WarmUpProperties properties;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, LongAdder> entriesByCache = new ConcurrentHashMap<>();
+    private volatile boolean warm;
+    private volatile OffsetDateTime startedAt;
+    private volatile OffsetDateTime finishedAt;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile String error;
+    
+    public CacheWarmUpServiceImpl(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  TwoLevelCacheManager cacheManager,
+                                  WarmUpProperties properties) {
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(properties.fetchSize());
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.warm = !properties.enabled();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.enabled()) {
+            startWarmUp();
+        }
+    }
+    
+    @Override
+    public WarmUpProgressDto startWarmUp() {
+        if (!running.compareAndSet(false, true)) {
+            return getProgress();
+        }
+        
+        entriesByCache.clear();
+        error = null;
+        finishedAt = null;
+        startedAt = OffsetDateTime.now();
+        startedNanos = System.nanoTime();
+        
+        Thread.ofPlatform().name("cache-warm-up").daemon().start(this::runWarmUp);
+        return getProgress();
+    }
+    
+    @Override
+    public WarmUpProgressDto getProgress() {
+        Map<String, Long> entries = new TreeMap<>();
+        entriesByCache.forEach((cacheName, counter) -> entries.put(cacheName, counter.sum()));
+        long total = entries.values().stream().mapToLong(Long::longValue).sum();
+        
+        long endNanos = running.get() ? System.nanoTime() : finishedNanos;
+        double elapsedSeconds = startedAt == null ? 0 : (endNanos - startedNanos) / 1_000_000_000.0;
+        double throughput = elapsedSeconds > 0 ? total / elapsedSeconds : 0;
+        
+        return new WarmUpProgressDto(state(), startedAt, finishedAt, entries, total, throughput, error);
+    }
+    
+    @Override
+    public boolean isWarm() {
+        return warm;
+    }
+    
+    private void runWarmUp() {
+        log.info("Cache Warming: старт прогрева {}", properties.caches());
+        ExecutorService workers = Executors.newFixedThreadPool(properties.parallelism(),
+                Thread.ofPlatform().name("cache-warm-up-", 0).daemon().factory());
+        try {
+            for (String cacheName : properties.caches()) {
+                switch (cacheName) {
+                    case "categories" -> warmCategories(workers);
+                    case "products" -> streamIntoCache(cacheName, PRODUCTS_SQL, this::mapProduct,
+                            product -> Map.of(product.id(), product), product -> { }, workers);
+                    case "prices" -> streamIntoCache(cacheName, PRICES_SQL, this::mapPrice,
+                            price -> Map.of(price.productId() + ":" + price.currency(), price), price -> { }, workers);
+                    default -> log.warn("Cache Warming: нет источника данных для кэша {}", cacheName);
+                }
+            }
+            finish(null);
+        } catch (RuntimeException e) {
+            log.error("Cache Warming: прогрев прерван, кэши будут заполняться по запросам", e);
+            finish(Objects.toString(e.getMessage(), e.getClass().getName()));
+        } finally {
+            workers.shutdown();
+        }
+    }
+    
+    private void warmCategories(ExecutorService workers) {
+        List<CategoryDto> allCategories = new ArrayList<>();
+        streamIntoCache("categories", CATEGORIES_SQL, this::mapCategory,
+                category -> Map.of(category.id(), category, "slug:" + category.slug(), category),
+                allCategories::add, workers);
+        cacheManager.getCache("categories").putAll(Map.of("all", allCategories));
+        entriesByCache.get("categories").increment();
+    }
+    
+    private <T> void streamIntoCache(String cacheName,
+                                     String sql,
+                                     RowMapper<T> rowMapper,
+                                     Function<T, Map<Object, Object>> toEntries,
+                                     Consumer<T> onRow,
+                                     ExecutorService workers) {
+        TwoLevelCache cache = cacheManager.getCache(cacheName);
+        LongAdder counter = entriesByCache.computeIfAbsent(cacheName, name -> new LongAdder());
+        Semaphore chunksInFlight = new Semaphore(properties.parallelism() * 2);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(properties.chunkSize());
+        long started = System.nanoTime();
+        
+        readOnlyTransaction.executeWithoutResult(status -> streamingJdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            T row = rowMapper.mapRow(rs, rs.getRow());
+            onRow.accept(row);
+            chunk.add(row);
+            if (chunk.size() >= properties.chunkSize()) {
+                writes.add(writeChunk(cache, List.copyOf(chunk), toEntries, counter, chunksInFlight, workers));
+                chunk.clear();
+            }
+        }));
+        if (!chunk.isEmpty()) {
+            writes.add(writeChunk(cache, List.copyOf(chunk), toEntries, counter, chunksInFlight, workers));
+        }
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        
+        double seconds = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)) / 1000.0;
+        log.info("Cache Warming: {} — {} записей за {} с ({} записей/с)",
+                cacheName, counter.sum(), seconds, String.format("%.0f", counter.sum() / seconds));
+    }
+    
+    private <T> CompletableFuture<Void> writeChunk(TwoLevelCache cache,
+                                                   List<T> rows,
+                                                   Function<T, Map<Object, Object>> toEntries,
+                                                   LongAdder counter,
+                                                   Semaphore chunksInFlight,
+                                                   ExecutorService workers) {
+        chunksInFlight.acquireUninterruptibly();
+        return CompletableFuture.runAsync(() -> {
+                    Map<Object, Object> entries = new LinkedHashMap<>();
+                    rows.forEach(row -> entries.putAll(toEntries.apply(row)));
+                    cache.putAll(entries);
+                    counter.add(entries.size());
+                }, workers)
+                .whenComplete((result, failure) -> chunksInFlight.release());
+    }
+    
+    private void finish(String failure) {
+        finishedNanos = System.nanoTime();
+        finishedAt = OffsetDateTime.now();
+        error = failure;
+        warm = failure == null;
+        running.set(false);
+        
+        WarmUpProgressDto progress = getProgress();
+        log.info("Cache Warming: завершено — {} записей, {} записей/с", progress.totalEntries(),
+                String.format("%.0f", progress.entriesPerSecond()));
+    }
+    
+    private String state() {
+        if (running.get()) {
+            return "RUNNING";
+        }
+        if (startedAt == null) {
+            return "IDLE";
+        }
+        return error == null ? "COMPLETED" : "FAILED";
+    }
+    
+    private CategoryDto mapCategory(ResultSet rs, int rowNum) throws SQLException {
+        return new CategoryDto(
+                rs.getObject("id", UUID.class),
+                rs.getString("name"),
+                rs.getString("slug"),
+                rs.getObject("created_at", OffsetDateTime.class)
+        );
+    }
+    
+    private ProductDto mapProduct(ResultSet rs, int rowNum) throws SQLException {
+        return new ProductDto(
+                rs.getObject("id", UUID.class),
+                rs.getString("sku"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getObject("category_id", UUID.class),
+                rs.getString("category_name"),
+                rs.getObject("updated_at", OffsetDateTime.class)
+        );
+    }
+    
+    private ProductPriceDto mapPrice(ResultSet rs, int rowNum) throws SQLException {
+        return new ProductPriceDto(
+                rs.getObject("product_id", UUID.class),
+                rs.getString("currency"),
+                rs.getBigDecimal("amount"),
+                rs.getObject("updated_at", OffsetDateTime.class)
+        );
+    }
+}
@@ -1,21 +1,35 @@
 package com.fersko.cacheredis.service.impl;
 
+import com.fersko.cacheredis.cache.CacheTransactions;
+import com.fersko.cacheredis.cache.CatalogCacheTags;
+import com.fersko.cacheredis.cache.TwoLevelCache;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
 import com.fersko.cacheredis.dto.CategoryDto;
 import com.fersko.cacheredis.entity.Category;
+import com.fersko.cacheredis.lookup.NegativeLookupGuard;
 import com.fersko.cacheredis.mappers.CategoryMapper;
+import com.fersko.cacheredis.repository.CatalogBatchRepository;
+import com.fersko.cacheredis.repository.CatalogSearchRepository;
 import com.fersko.cacheredis.repository.CategoryRepository;
+import com.fersko.cacheredis.search.ProductSearchIndex;
 import com.fersko.cacheredis.service.CategoryService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -23,15 +37,52 @@ public class CategoryServiceImpl implements CategoryService {
     
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final CatalogSearchRepository catalogSearchRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogBatchRepository catalogBatchRepository;
+    private final TwoLevelCacheManager cacheManager;
+    private final NegativeLookupGuard lookupGuard;
     
     @Override
-    @CachePut(value = "categories", key = "#result.id", cacheManager = "localCacheManager")
+    @Caching(
+            put = @CachePut(value = "categories", key = "#result.id"),
+            evict = @CacheEvict(value = "categories", key = "'all'")
+    )
     public CategoryDto createCategory(CategoryDto categoryDto) {
         Category category = categoryMapper.toEntity(categoryDto);
         Category savedCategory = categoryRepository.save(category);
+        lookupGuard.recordSlug(savedCategory.getSlug());
         return categoryMapper.toDto(savedCategory);
     }
     
+    @Override
+    public List<CategoryDto> upsertCategories(List<CategoryDto> categories) {
+        List<CategoryDto> rows = CatalogBatchRepository.deduplicate(categories, CategoryDto::slug);
+        rows.forEach(category -> CatalogBatchRepository.require(category.name() != null,
+                "Category name is required: " + category.slug()));
+        
+        List<CategoryDto> saved = catalogBatchRepository.upsertCategories(rows);
+        lookupGuard.recordCategories(saved);
+        
+        Map<String, CategoryDto> entries = new LinkedHashMap<>();
+        saved.forEach(category -> {
+            entries.put(category.id().toString(), category);
+            entries.put("slug:" + category.slug(), category);
+        });
+        List<String> tags = saved.stream().map(category -> CatalogCacheTags.category(category.id())).toList();
+        CacheTransactions.afterCommit(() -> {
+            cacheManager.evictByTags(tags);
+            TwoLevelCache cache = cacheManager.getCache("categories");
+            cache.evict("all");
+            cache.putAll(entries);
+        });
+        productSearchIndex.renameCategories(saved.stream()
+                .collect(Collectors.toMap(CategoryDto::id, CategoryDto::name)));
+        
+        log.info("Пакетная запись категорий: {} строк, {} ключей кэша", saved.size(), entries.size());
+        return saved;
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Optional<CategoryDto> getCategoryById(UUID id) {
@@ -41,15 +92,18 @@ public class CategoryServiceImpl implements CategoryService {
     
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "categories", key = "'slug:' + #slug", cacheManager = "localCacheManager")
+    @Cacheable(value = "categories", key = "'slug:' + #slug", sync = true)
     public Optional<CategoryDto> getCategoryBySlug(String slug) {
+        if (!lookupGuard.mightContainSlug(slug)) {
+            return Optional.empty();
+        }
         return categoryRepository.findBySlug(slug)
                 .map(categoryMapper::toDto);
     }
     
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "categories", key = "'all'", cacheManager = "localCacheManager")
+    @Cacheable(value = "categories", key = "'all'", sync = true)
     public List<CategoryDto> getAllCategories() {
         return categoryRepository.findAll()
                 .stream()
@@ -58,7 +112,6 @@ public class CategoryServiceImpl implements CategoryService {
     }
     
     @Override
-    @CacheEvict(value = "categories", allEntries = true, cacheManager = "localCacheManager")
     public CategoryDto updateCategory(UUID id, CategoryDto categoryDto) {
         Category existingCategory = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
@@ -67,33 +120,43 @@ public class CategoryServiceImpl implements CategoryService {
         existingCategory.setSlug(categoryDto.slug());
         
         Category updatedCategory = categoryRepository.save(existingCategory);
+        lookupGuard.recordSlug(updatedCategory.getSlug());
+        productSearchIndex.renameCategories(Map.of(id, updatedCategory.getName()));
+        evictCategoryTag(id);
         
         return categoryMapper.toDto(updatedCategory);
     }
     
     @Override
-    @CacheEvict(value = "categories", allEntries = true, cacheManager = "localCacheManager")
     public void deleteCategory(UUID id) {
         if (!categoryRepository.existsById(id)) {
             throw new RuntimeException("Category not found with id: " + id);
         }
         
         categoryRepository.deleteById(id);
+        evictCategoryTag(id);
     }
     
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "categories", key = "'search:' + #searchTerm", cacheManager = "localCacheManager")
-    public List<CategoryDto> searchCategories(String searchTerm) {
-        return categoryRepository.findBySearchTerm(searchTerm)
-                .stream()
-                .map(categoryMapper::toDto)
-                .toList();
+    @Cacheable(value = "searchResults",
+            key = "'categories:' + T(com.fersko.cacheredis.repository.CatalogSearchRepository).cacheKey(#searchTerm, #limit)",
+            sync = true)
+    public List<CategoryDto> searchCategories(String searchTerm, Integer limit) {
+        return catalogSearchRepository.searchCategories(
+                CatalogSearchRepository.normalize(searchTerm), CatalogSearchRepository.limit(limit));
     }
     
     @Override
     @Transactional(readOnly = true)
     public boolean existsBySlug(String slug) {
+        if (!lookupGuard.mightContainSlug(slug)) {
+            return false;
+        }
         return categoryRepository.existsBySlug(slug);
     }
+    
+    private void evictCategoryTag(UUID id) {
+        CacheTransactions.afterCommit(() -> cacheManager.evictByTags(List.of(CatalogCacheTags.category(id))));
+    }
 }
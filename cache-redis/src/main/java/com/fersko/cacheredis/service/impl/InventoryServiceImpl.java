@@ -1,20 +1,45 @@
 package com.fersko.cacheredis.service.impl;
 
+import com.fersko.cacheredis.cache.CacheTransactions;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
+import com.fersko.cacheredis.dto.InventoryAdjustment;
 import com.fersko.cacheredis.dto.InventoryDto;
+import com.fersko.cacheredis.dto.PageDto;
+import com.fersko.cacheredis.dto.ProductAvailabilityDto;
 import com.fersko.cacheredis.entity.Inventory;
-import com.fersko.cacheredis.entity.Product;
 import com.fersko.cacheredis.mappers.InventoryMapper;
+import com.fersko.cacheredis.repository.CatalogBatchRepository;
+import com.fersko.cacheredis.repository.InventoryAdjustmentRepository;
+import com.fersko.cacheredis.repository.InventoryKeysetRepository;
 import com.fersko.cacheredis.repository.InventoryRepository;
+import com.fersko.cacheredis.repository.KeysetCursor;
+import com.fersko.cacheredis.repository.ProductAvailabilityRepository;
 import com.fersko.cacheredis.repository.ProductRepository;
 import com.fersko.cacheredis.service.InventoryService;
+import com.fersko.cacheredis.writebehind.InventoryWriteBehindTarget;
+import com.fersko.cacheredis.writebehind.WriteBehindEngine;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -23,79 +48,170 @@ public class InventoryServiceImpl implements InventoryService {
     private final InventoryRepository inventoryRepository;
     private final ProductRepository productRepository;
     private final InventoryMapper inventoryMapper;
+    private final InventoryKeysetRepository inventoryKeysetRepository;
+    private final InventoryAdjustmentRepository inventoryAdjustmentRepository;
+    private final ProductAvailabilityRepository productAvailabilityRepository;
+    private final WriteBehindEngine writeBehindEngine;
+    private final CatalogBatchRepository catalogBatchRepository;
+    private final TwoLevelCacheManager cacheManager;
     
     @Override
     public InventoryDto createInventory(InventoryDto inventoryDto) {
         Inventory inventory = inventoryMapper.toEntity(inventoryDto);
         
-        Product product = productRepository.findById(inventoryDto.productId())
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + inventoryDto.productId()));
-        inventory.setProduct(product);
+        inventory.setProduct(productRepository.getReferenceById(inventoryDto.productId()));
         
         Inventory savedInventory = inventoryRepository.save(inventory);
+        evictAvailability(Set.of(inventoryDto.productId()));
         return inventoryMapper.toDto(savedInventory);
     }
     
+    @Override
+    public List<InventoryDto> upsertInventory(List<InventoryDto> inventory) {
+        List<InventoryDto> rows = CatalogBatchRepository.deduplicate(inventory,
+                item -> item.productId() == null || item.warehouseId() == null
+                        ? null
+                        : item.productId() + ":" + item.warehouseId());
+        rows.forEach(item -> CatalogBatchRepository.require(item.quantity() != null && item.quantity() >= 0,
+                "Inventory quantity must be non-negative: " + item.productId() + ":" + item.warehouseId()));
+        
+        Set<UUID> productIds = rows.stream().map(InventoryDto::productId).collect(Collectors.toSet());
+        Set<UUID> existingProductIds = catalogBatchRepository.findExistingProductIds(productIds);
+        CatalogBatchRepository.requireAllFound(productIds, existingProductIds, "Products");
+        
+        List<InventoryDto> saved = catalogBatchRepository.upsertInventory(rows);
+        
+        Map<String, InventoryDto> entries = new LinkedHashMap<>();
+        saved.forEach(item -> entries.put(item.productId() + ":" + item.warehouseId(), item));
+        CacheTransactions.afterCommit(() -> cacheManager.getCache("inventory").putAll(entries));
+        evictAvailability(productIds);
+        
+        log.info("Пакетная запись остатков: {} строк", saved.size());
+        return saved;
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Optional<InventoryDto> getInventory(UUID productId, Long warehouseId) {
-        return inventoryRepository.findByProductIdAndWarehouseId(productId, warehouseId)
-                .map(inventoryMapper::toDto);
+        return inventoryRepository.findDtoByProductIdAndWarehouseId(productId, warehouseId);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<InventoryDto> getInventoryByProductId(UUID productId) {
-        return inventoryRepository.findByProductId(productId)
-                .stream()
-                .map(inventoryMapper::toDto)
-                .toList();
+        return inventoryRepository.findDtosByProductId(productId);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<InventoryDto> getInventoryByWarehouseId(Long warehouseId) {
-        return inventoryRepository.findByWarehouseId(warehouseId)
-                .stream()
-                .map(inventoryMapper::toDto)
-                .toList();
+        return inventoryRepository.findDtosByWarehouseId(warehouseId);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<InventoryDto> getInventoryByProductIds(List<UUID> productIds, Long warehouseId) {
+        CatalogBatchRepository.requireMultiGetSize(productIds);
+        Map<String, UUID> keys = new LinkedHashMap<>();
+        productIds.forEach(productId -> keys.put(productId + ":" + warehouseId, productId));
+        Map<String, InventoryDto> found = cacheManager.getCache("inventory").getAll(keys.keySet(),
+                misses -> inventoryRepository.findDtosByProductIdsAndWarehouseId(
+                                misses.stream().map(keys::get).toList(), warehouseId).stream()
+                        .collect(Collectors.toMap(item -> item.productId() + ":" + warehouseId, Function.identity())));
+        return keys.keySet().stream().map(found::get).filter(Objects::nonNull).toList();
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<InventoryDto> getAvailableInventory() {
-        return inventoryRepository.findAvailableInventory()
-                .stream()
-                .map(inventoryMapper::toDto)
-                .toList();
+        return inventoryRepository.findAvailableDtos();
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public PageDto<InventoryDto> getAvailableInventoryPage(String cursor, Integer limit) {
+        return inventoryKeysetRepository.findAvailablePage(cursor, KeysetCursor.limit(limit));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<InventoryDto> streamAvailableInventory() {
+        return inventoryKeysetRepository.streamAvailable();
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<InventoryDto> getAvailableInventoryByProductId(UUID productId) {
-        return inventoryRepository.findAvailableInventoryByProductId(productId)
-                .stream()
-                .map(inventoryMapper::toDto)
-                .toList();
+        return inventoryRepository.findAvailableDtosByProductId(productId);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Cacheable(value = "availability", key = "#productId", sync = true)
+    public Optional<ProductAvailabilityDto> getProductAvailability(UUID productId) {
+        return productAvailabilityRepository.findByProductId(productId);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductAvailabilityDto> getAvailabilityByCategoryId(UUID categoryId) {
+        List<UUID> productIds = productAvailabilityRepository.findProductIdsByCategoryId(categoryId);
+        Map<UUID, ProductAvailabilityDto> found = cacheManager.getCache("availability").getAll(productIds,
+                misses -> productAvailabilityRepository.findByProductIds(misses).stream()
+                        .collect(Collectors.toMap(ProductAvailabilityDto::productId, Function.identity())));
+        return productIds.stream().map(found::get).filter(Objects::nonNull).toList();
     }
     
     @Override
+    @CachePut(value = "inventory", key = "#productId + ':' + #warehouseId")
     public InventoryDto updateInventory(UUID productId, Long warehouseId, InventoryDto inventoryDto) {
-        Inventory existingInventory = inventoryRepository.findByProductIdAndWarehouseId(productId, warehouseId)
+        evictAvailability(Set.of(productId));
+        return inventoryAdjustmentRepository.setQuantity(productId, warehouseId, inventoryDto.quantity())
                 .orElseThrow(() -> new RuntimeException("Inventory not found for product: " + productId + " and warehouse: " + warehouseId));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @CachePut(value = "inventory", key = "#productId + ':' + #warehouseId")
+    public InventoryDto updateInventoryWriteBehind(UUID productId, Long warehouseId, InventoryDto inventoryDto) {
+        if (inventoryDto.quantity() == null || inventoryDto.quantity() < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative for product: " + productId + " and warehouse: " + warehouseId);
+        }
+        if (!inventoryRepository.existsByProductIdAndWarehouseId(productId, warehouseId)) {
+            throw new RuntimeException("Inventory not found for product: " + productId + " and warehouse: " + warehouseId);
+        }
         
-        existingInventory.setQuantity(inventoryDto.quantity());
-        
-        Inventory updatedInventory = inventoryRepository.save(existingInventory);
-        return inventoryMapper.toDto(updatedInventory);
+        InventoryDto updatedInventory = new InventoryDto(productId, warehouseId, inventoryDto.quantity(), OffsetDateTime.now());
+        writeBehindEngine.enqueue(InventoryWriteBehindTarget.NAME, updatedInventory);
+        return updatedInventory;
     }
     
     @Override
+    public InventoryAdjustment incrementInventory(UUID productId, Long warehouseId, int quantity) {
+        requirePositive(quantity);
+        return applyAdjustment(inventoryAdjustmentRepository.adjust(productId, warehouseId, quantity));
+    }
+    
+    @Override
+    public InventoryAdjustment decrementInventory(UUID productId, Long warehouseId, int quantity) {
+        requirePositive(quantity);
+        return applyAdjustment(inventoryAdjustmentRepository.adjust(productId, warehouseId, -quantity));
+    }
+    
+    @Override
+    public InventoryAdjustment reserveInventory(UUID productId, int quantity) {
+        requirePositive(quantity);
+        return applyAdjustment(inventoryAdjustmentRepository.reserveFromAnyWarehouse(productId, quantity));
+    }
+    
+    @Override
+    @CacheEvict(value = "inventory", key = "#productId + ':' + #warehouseId")
     public void deleteInventory(UUID productId, Long warehouseId) {
         Inventory inventory = inventoryRepository.findByProductIdAndWarehouseId(productId, warehouseId)
                 .orElseThrow(() -> new RuntimeException("Inventory not found for product: " + productId + " and warehouse: " + warehouseId));
         
         inventoryRepository.delete(inventory);
+        evictAvailability(Set.of(productId));
     }
     
     @Override
@@ -103,4 +219,25 @@ public class InventoryServiceImpl implements InventoryService {
     public boolean existsByProductIdAndWarehouseId(UUID productId, Long warehouseId) {
         return inventoryRepository.existsByProductIdAndWarehouseId(productId, warehouseId);
     }
+    
+    private InventoryAdjustment applyAdjustment(InventoryAdjustment adjustment) {
+        if (adjustment instanceof InventoryAdjustment.Applied(InventoryDto inventory)) {
+            String key = inventory.productId() + ":" + inventory.warehouseId();
+            CacheTransactions.afterCommit(() -> cacheManager.getCache("inventory").put(key, inventory));
+            evictAvailability(Set.of(inventory.productId()));
+        } else {
+            log.info("Корректировка остатков отклонена: {}", adjustment);
+        }
+        return adjustment;
+    }
+    
+    private void evictAvailability(Set<UUID> productIds) {
+        CacheTransactions.afterCommit(() -> productIds.forEach(cacheManager.getCache("availability")::evict));
+    }
+    
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+    }
 }
@@ -1,20 +1,42 @@
 package com.fersko.cacheredis.service.impl;
 
+import com.fersko.cacheredis.cache.CacheTransactions;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
+import com.fersko.cacheredis.dto.PageDto;
 import com.fersko.cacheredis.dto.ProductPriceDto;
-import com.fersko.cacheredis.entity.Product;
 import com.fersko.cacheredis.entity.ProductPrice;
 import com.fersko.cacheredis.mappers.ProductPriceMapper;
+import com.fersko.cacheredis.pricing.PriceCatalog;
+import com.fersko.cacheredis.repository.CatalogBatchRepository;
+import com.fersko.cacheredis.repository.KeysetCursor;
+import com.fersko.cacheredis.repository.ProductPriceKeysetRepository;
 import com.fersko.cacheredis.repository.ProductPriceRepository;
 import com.fersko.cacheredis.repository.ProductRepository;
 import com.fersko.cacheredis.service.ProductPriceService;
+import com.fersko.cacheredis.writebehind.ProductPriceWriteBehindTarget;
+import com.fersko.cacheredis.writebehind.WriteBehindEngine;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -23,45 +45,102 @@ public class ProductPriceServiceImpl implements ProductPriceService {
     private final ProductPriceRepository productPriceRepository;
     private final ProductRepository productRepository;
     private final ProductPriceMapper productPriceMapper;
+    private final ProductPriceKeysetRepository productPriceKeysetRepository;
+    private final WriteBehindEngine writeBehindEngine;
+    private final CatalogBatchRepository catalogBatchRepository;
+    private final TwoLevelCacheManager cacheManager;
+    private final PriceCatalog priceCatalog;
     
     @Override
     public ProductPriceDto createProductPrice(ProductPriceDto productPriceDto) {
         ProductPrice productPrice = productPriceMapper.toEntity(productPriceDto);
         
-        Product product = productRepository.findById(productPriceDto.productId())
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productPriceDto.productId()));
-        productPrice.setProduct(product);
+        productPrice.setProduct(productRepository.getReferenceById(productPriceDto.productId()));
         
         ProductPrice savedProductPrice = productPriceRepository.save(productPrice);
-        return productPriceMapper.toDto(savedProductPrice);
+        ProductPriceDto savedDto = productPriceMapper.toDto(savedProductPrice);
+        priceCatalog.upsertAll(List.of(savedDto));
+        return savedDto;
     }
     
     @Override
-    @Transactional(readOnly = true)
+    public List<ProductPriceDto> upsertProductPrices(List<ProductPriceDto> prices) {
+        List<ProductPriceDto> rows = CatalogBatchRepository.deduplicate(prices,
+                price -> price.productId() == null || price.currency() == null
+                        ? null
+                        : price.productId() + ":" + price.currency());
+        rows.forEach(price -> CatalogBatchRepository.require(price.amount() != null,
+                "Price amount is required: " + price.productId() + ":" + price.currency()));
+        
+        Set<UUID> productIds = rows.stream().map(ProductPriceDto::productId).collect(Collectors.toSet());
+        Set<UUID> existingProductIds = catalogBatchRepository.findExistingProductIds(productIds);
+        CatalogBatchRepository.requireAllFound(productIds, existingProductIds, "Products");
+        
+        List<ProductPriceDto> saved = catalogBatchRepository.upsertPrices(rows);
+        
+        Map<String, ProductPriceDto> entries = new LinkedHashMap<>();
+        saved.forEach(price -> entries.put(price.productId() + ":" + price.currency(), price));
+        CacheTransactions.afterCommit(() -> cacheManager.getCache("prices").putAll(entries));
+        priceCatalog.upsertAll(saved);
+        
+        log.info("Пакетная запись цен: {} строк", saved.size());
+        return saved;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<ProductPriceDto> getProductPrice(UUID productId, String currency) {
-        return productPriceRepository.findByProductIdAndCurrency(productId, currency)
-                .map(productPriceMapper::toDto);
+        if (priceCatalog.isServing()) {
+            return priceCatalog.find(productId, currency);
+        }
+        return productPriceRepository.findDtoByProductIdAndCurrency(productId, currency);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<ProductPriceDto> getProductPrices(UUID productId) {
-        return productPriceRepository.findByProductId(productId)
-                .stream()
-                .map(productPriceMapper::toDto)
-                .toList();
+        return productPriceRepository.findDtosByProductId(productId);
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<ProductPriceDto> getPricesByCurrency(String currency) {
-        return productPriceRepository.findByCurrency(currency)
-                .stream()
-                .map(productPriceMapper::toDto)
-                .toList();
+        if (priceCatalog.isServing()) {
+            return priceCatalog.findAll(currency);
+        }
+        return productPriceRepository.findDtosByCurrency(currency);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductPriceDto> getPricesByProductIds(List<UUID> productIds, String currency) {
+        CatalogBatchRepository.requireMultiGetSize(productIds);
+        if (priceCatalog.isServing()) {
+            return priceCatalog.findAll(currency, new LinkedHashSet<>(productIds));
+        }
+        Map<String, UUID> keys = new LinkedHashMap<>();
+        productIds.forEach(productId -> keys.put(productId + ":" + currency, productId));
+        Map<String, ProductPriceDto> found = cacheManager.getCache("prices").getAll(keys.keySet(),
+                misses -> productPriceRepository.findDtosByProductIdsAndCurrency(
+                                misses.stream().map(keys::get).toList(), currency).stream()
+                        .collect(Collectors.toMap(price -> price.productId() + ":" + currency, Function.identity())));
+        return keys.keySet().stream().map(found::get).filter(Objects::nonNull).toList();
     }
     
     @Override
+    @Transactional(readOnly = true)
+    public PageDto<ProductPriceDto> getPricesByCurrencyPage(String currency, String cursor, Integer limit) {
+        return productPriceKeysetRepository.findPageByCurrency(currency, cursor, KeysetCursor.limit(limit));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<ProductPriceDto> streamPricesByCurrency(String currency) {
+        return productPriceKeysetRepository.streamByCurrency(currency);
+    }
+    
+    @Override
+    @CachePut(value = "prices", key = "#productId + ':' + #currency")
     public ProductPriceDto updateProductPrice(UUID productId, String currency, ProductPriceDto productPriceDto) {
         ProductPrice existingProductPrice = productPriceRepository.findByProductIdAndCurrency(productId, currency)
                 .orElseThrow(() -> new RuntimeException("Product price not found for product: " + productId + " and currency: " + currency));
@@ -69,15 +148,37 @@ public class ProductPriceServiceImpl implements ProductPriceService {
         existingProductPrice.setAmount(productPriceDto.amount());
         
         ProductPrice updatedProductPrice = productPriceRepository.save(existingProductPrice);
-        return productPriceMapper.toDto(updatedProductPrice);
+        ProductPriceDto updatedDto = productPriceMapper.toDto(updatedProductPrice);
+        priceCatalog.upsertAll(List.of(updatedDto));
+        return updatedDto;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @CachePut(value = "prices", key = "#productId + ':' + #currency")
+    public ProductPriceDto updateProductPriceWriteBehind(UUID productId, String currency, ProductPriceDto productPriceDto) {
+        if (productPriceDto.amount() == null) {
+            throw new IllegalArgumentException("Amount is required for product: " + productId + " and currency: " + currency);
+        }
+        if (!productPriceRepository.existsByProductIdAndCurrency(productId, currency)) {
+            throw new RuntimeException("Product price not found for product: " + productId + " and currency: " + currency);
+        }
+        
+        ProductPriceDto updatedPrice = new ProductPriceDto(productId, currency, productPriceDto.amount(), OffsetDateTime.now());
+        writeBehindEngine.enqueue(ProductPriceWriteBehindTarget.NAME, updatedPrice);
+        // каталог читается раньше кэша prices: без этого новая цена не видна до сброса очереди
+        priceCatalog.upsertAll(List.of(updatedPrice));
+        return updatedPrice;
     }
     
     @Override
+    @CacheEvict(value = "prices", key = "#productId + ':' + #currency")
     public void deleteProductPrice(UUID productId, String currency) {
         ProductPrice productPrice = productPriceRepository.findByProductIdAndCurrency(productId, currency)
                 .orElseThrow(() -> new RuntimeException("Product price not found for product: " + productId + " and currency: " + currency));
         
         productPriceRepository.delete(productPrice);
+        priceCatalog.remove(productId, currency);
     }
     
     @Override
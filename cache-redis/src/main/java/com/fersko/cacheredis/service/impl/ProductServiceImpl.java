@@ -1,20 +1,45 @@
 package com.fersko.cacheredis.service.impl;
 
+import com.fersko.cacheredis.cache.CacheTransactions;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
+import com.fersko.cacheredis.dto.PageDto;
 import com.fersko.cacheredis.dto.ProductDto;
 import com.fersko.cacheredis.entity.Category;
 import com.fersko.cacheredis.entity.Product;
+import com.fersko.cacheredis.lookup.NegativeLookupGuard;
 import com.fersko.cacheredis.mappers.ProductMapper;
+import com.fersko.cacheredis.pricing.PriceCatalog;
+import com.fersko.cacheredis.repository.CatalogBatchRepository;
+import com.fersko.cacheredis.repository.CatalogSearchRepository;
 import com.fersko.cacheredis.repository.CategoryRepository;
+import com.fersko.cacheredis.repository.KeysetCursor;
+import com.fersko.cacheredis.repository.ProductKeysetRepository;
 import com.fersko.cacheredis.repository.ProductRepository;
+import com.fersko.cacheredis.search.ProductSearchIndex;
 import com.fersko.cacheredis.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -23,6 +48,13 @@ public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductMapper productMapper;
+    private final CatalogSearchRepository catalogSearchRepository;
+    private final ProductKeysetRepository productKeysetRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogBatchRepository catalogBatchRepository;
+    private final TwoLevelCacheManager cacheManager;
+    private final PriceCatalog priceCatalog;
+    private final NegativeLookupGuard lookupGuard;
     
     @Override
     public ProductDto createProduct(ProductDto productDto) {
@@ -35,42 +67,89 @@ public class ProductServiceImpl implements ProductService {
         }
         
         Product savedProduct = productRepository.save(product);
-        return productMapper.toDto(savedProduct);
+        ProductDto savedDto = productMapper.toDto(savedProduct);
+        lookupGuard.recordProducts(List.of(savedDto));
+        productSearchIndex.index(savedDto);
+        return savedDto;
+    }
+    
+    @Override
+    public List<ProductDto> upsertProducts(List<ProductDto> products) {
+        List<ProductDto> rows = CatalogBatchRepository.deduplicate(products, ProductDto::sku);
+        rows.forEach(product -> CatalogBatchRepository.require(product.name() != null && product.categoryId() != null,
+                "Product name and categoryId are required: " + product.sku()));
+        
+        Set<UUID> categoryIds = rows.stream().map(ProductDto::categoryId).collect(Collectors.toSet());
+        Map<UUID, String> categoryNames = catalogBatchRepository.findCategoryNames(categoryIds);
+        CatalogBatchRepository.requireAllFound(categoryIds, categoryNames.keySet(), "Categories");
+        
+        List<ProductDto> saved = catalogBatchRepository.upsertProducts(rows, categoryNames);
+        lookupGuard.recordProducts(saved);
+        
+        Map<String, ProductDto> entries = new LinkedHashMap<>();
+        saved.forEach(product -> entries.put(product.id().toString(), product));
+        CacheTransactions.afterCommit(() -> cacheManager.getCache("products").putAll(entries));
+        productSearchIndex.indexAll(saved);
+        
+        log.info("Пакетная запись товаров: {} строк", saved.size());
+        return saved;
     }
     
     @Override
     @Transactional(readOnly = true)
     public Optional<ProductDto> getProductById(UUID id) {
-        return productRepository.findById(id)
-                .map(productMapper::toDto);
+        if (!lookupGuard.mightContainProduct(id)) {
+            return Optional.empty();
+        }
+        return productRepository.findDtoById(id);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Optional<ProductDto> getProductBySku(String sku) {
-        return productRepository.findBySku(sku)
-                .map(productMapper::toDto);
+        if (!lookupGuard.mightContainSku(sku)) {
+            return Optional.empty();
+        }
+        return productRepository.findDtoBySku(sku);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<ProductDto> getAllProducts() {
-        return productRepository.findAll()
-                .stream()
-                .map(productMapper::toDto)
-                .toList();
+        return productRepository.findAllDtos();
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductDto> getProductsByIds(List<UUID> ids) {
+        CatalogBatchRepository.requireMultiGetSize(ids);
+        Set<UUID> keys = new LinkedHashSet<>(ids);
+        Map<UUID, ProductDto> found = cacheManager.getCache("products").getAll(keys,
+                misses -> productRepository.findDtosByIds(misses).stream()
+                        .collect(Collectors.toMap(ProductDto::id, Function.identity())));
+        return keys.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public PageDto<ProductDto> getProductsPage(String cursor, Integer limit) {
+        return productKeysetRepository.findPage(cursor, KeysetCursor.limit(limit));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<ProductDto> streamAllProducts() {
+        return productKeysetRepository.streamAll();
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<ProductDto> getProductsByCategoryId(UUID categoryId) {
-        return productRepository.findByCategoryId(categoryId)
-                .stream()
-                .map(productMapper::toDto)
-                .toList();
+        return productRepository.findDtosByCategoryId(categoryId);
     }
     
     @Override
+    @CachePut(value = "products", key = "#id")
     public ProductDto updateProduct(UUID id, ProductDto productDto) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
@@ -86,29 +165,47 @@ public class ProductServiceImpl implements ProductService {
         }
         
         Product updatedProduct = productRepository.save(existingProduct);
-        return productMapper.toDto(updatedProduct);
+        ProductDto updatedDto = productMapper.toDto(updatedProduct);
+        lookupGuard.recordProducts(List.of(updatedDto));
+        productSearchIndex.index(updatedDto);
+        return updatedDto;
     }
     
     @Override
+    @Caching(evict = {
+            @CacheEvict(value = "products", key = "#id"),
+            @CacheEvict(value = "availability", key = "#id")
+    })
     public void deleteProduct(UUID id) {
         if (!productRepository.existsById(id)) {
             throw new RuntimeException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        productSearchIndex.remove(id);
+        priceCatalog.removeProduct(id);
     }
     
     @Override
-    @Transactional(readOnly = true)
-    public List<ProductDto> searchProducts(String searchTerm) {
-        return productRepository.findBySearchTerm(searchTerm)
-                .stream()
-                .map(productMapper::toDto)
-                .toList();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Cacheable(value = "searchResults",
+            key = "'products:' + T(com.fersko.cacheredis.repository.CatalogSearchRepository).cacheKey(#searchTerm, #limit)",
+            condition = "!@productSearchIndex.serving",
+            sync = true)
+    public List<ProductDto> searchProducts(String searchTerm, Integer limit) {
+        String term = CatalogSearchRepository.normalize(searchTerm);
+        int resolvedLimit = CatalogSearchRepository.limit(limit);
+        if (productSearchIndex.isServing()) {
+            return productSearchIndex.search(term, resolvedLimit);
+        }
+        return catalogSearchRepository.searchProducts(term, resolvedLimit);
     }
     
     @Override
     @Transactional(readOnly = true)
     public boolean existsBySku(String sku) {
+        if (!lookupGuard.mightContainSku(sku)) {
+            return false;
+        }
         return productRepository.existsBySku(sku);
     }
 }
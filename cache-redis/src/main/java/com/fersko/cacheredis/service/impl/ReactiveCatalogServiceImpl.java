@@ -0,0 +1,99 @@
+package com.fersko.cacheredis.service.impl;
+
+import com.fersko.cacheredis.cache.ReactiveTwoLevelCache;
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.InventoryDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import com.fersko.cacheredis.lookup.NegativeLookupGuard;
+import com.fersko.cacheredis.repository.ReactiveCategoryRepository;
+import com.fersko.cacheredis.repository.ReactiveInventoryRepository;
+import com.fersko.cacheredis.repository.ReactiveProductPriceRepository;
+import com.fersko.cacheredis.repository.ReactiveProductRepository;
+import com.fersko.cacheredis.service.ReactiveCatalogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class ReactiveCatalogServiceImpl implements ReactiveCatalogService {
+    
+    private final ReactiveCategoryRepository categoryRepository;
+    private final ReactiveProductRepository productRepository;
+    private final ReactiveProductPriceRepository productPriceRepository;
+    private final ReactiveInventoryRepository inventoryRepository;
+    private final ReactiveTwoLevelCache cache;
+    private final NegativeLookupGuard lookupGuard;
+    
+    @Override
+    public Mono<CategoryDto> getCategoryById(UUID id) {
+        return cache.get("categories", id, () -> categoryRepository.findById(id));
+    }
+    
+    @Override
+    public Mono<CategoryDto> getCategoryBySlug(String slug) {
+        if (!lookupGuard.mightContainSlug(slug)) {
+            return Mono.empty();
+        }
+        return cache.get("categories", "slug:" + slug, () -> categoryRepository.findBySlug(slug));
+    }
+    
+    @Override
+    public Flux<CategoryDto> getAllCategories() {
+        return cache.getList("categories", "all", categoryRepository::findAll);
+    }
+    
+    @Override
+    public Mono<ProductDto> getProductById(UUID id) {
+        if (!lookupGuard.mightContainProduct(id)) {
+            return Mono.empty();
+        }
+        return cache.get("products", id, () -> productRepository.findById(id));
+    }
+    
+    @Override
+    public Flux<ProductDto> getAllProducts() {
+        return productRepository.findAll();
+    }
+    
+    @Override
+    public Flux<ProductDto> getProductsByCategoryId(UUID categoryId) {
+        return productRepository.findByCategoryId(categoryId);
+    }
+    
+    @Override
+    public Mono<ProductPriceDto> getProductPrice(UUID productId, String currency) {
+        return cache.get("prices", productId + ":" + currency,
+                () -> productPriceRepository.findByProductIdAndCurrency(productId, currency));
+    }
+    
+    @Override
+    public Flux<ProductPriceDto> getProductPrices(UUID productId) {
+        return productPriceRepository.findByProductId(productId);
+    }
+    
+    @Override
+    public Flux<ProductPriceDto> getPricesByCurrency(String currency) {
+        return productPriceRepository.findByCurrency(currency);
+    }
+    
+    @Override
+    public Mono<InventoryDto> getInventory(UUID productId, Long warehouseId) {
+        return cache.get("inventory", productId + ":" + warehouseId,
+                () -> inventoryRepository.findByProductIdAndWarehouseId(productId, warehouseId));
+    }
+    
+    @Override
+    public Flux<InventoryDto> getInventoryByProductId(UUID productId) {
+        return inventoryRepository.findByProductId(productId);
+    }
+    
+    @Override
+    public Flux<InventoryDto> getAvailableInventoryByProductId(UUID productId) {
+        return inventoryRepository.findAvailableByProductId(productId);
+    }
+}
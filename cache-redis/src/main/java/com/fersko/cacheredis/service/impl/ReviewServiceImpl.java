@@ -1,20 +1,39 @@
 package com.fersko.cacheredis.service.impl;
 
+import com.fersko.cacheredis.cache.CacheTransactions;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
+import com.fersko.cacheredis.dto.PageDto;
+import com.fersko.cacheredis.dto.RatingSummaryDto;
 import com.fersko.cacheredis.dto.ReviewDto;
-import com.fersko.cacheredis.entity.Product;
 import com.fersko.cacheredis.entity.Review;
+import com.fersko.cacheredis.lookup.NegativeLookupGuard;
 import com.fersko.cacheredis.mappers.ReviewMapper;
+import com.fersko.cacheredis.repository.CatalogBatchRepository;
+import com.fersko.cacheredis.repository.KeysetCursor;
 import com.fersko.cacheredis.repository.ProductRepository;
+import com.fersko.cacheredis.repository.RatingSummaryRepository;
+import com.fersko.cacheredis.repository.RatingSummaryRepository.RatingDelta;
+import com.fersko.cacheredis.repository.ReviewKeysetRepository;
 import com.fersko.cacheredis.repository.ReviewRepository;
 import com.fersko.cacheredis.service.ReviewService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -23,51 +42,76 @@ public class ReviewServiceImpl implements ReviewService {
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
     private final ReviewMapper reviewMapper;
+    private final CatalogBatchRepository catalogBatchRepository;
+    private final ReviewKeysetRepository reviewKeysetRepository;
+    private final RatingSummaryRepository ratingSummaryRepository;
+    private final TwoLevelCacheManager cacheManager;
+    private final NegativeLookupGuard lookupGuard;
     
     @Override
     public ReviewDto createReview(ReviewDto reviewDto) {
         Review review = reviewMapper.toEntity(reviewDto);
         
-        Product product = productRepository.findById(reviewDto.productId())
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + reviewDto.productId()));
-        review.setProduct(product);
+        review.setProduct(productRepository.getReferenceById(reviewDto.productId()));
         
         Review savedReview = reviewRepository.save(review);
+        applyRatingDeltas(List.of(new RatingDelta(reviewDto.productId(), savedReview.getRating(), 1)));
         return reviewMapper.toDto(savedReview);
     }
     
+    @Override
+    public List<ReviewDto> createReviews(List<ReviewDto> reviews) {
+        CatalogBatchRepository.requireBatchSize(reviews);
+        reviews.forEach(review -> CatalogBatchRepository.require(review != null && review.productId() != null
+                        && review.rating() != null && review.rating() >= 1 && review.rating() <= 5,
+                "Review requires productId and a rating between 1 and 5"));
+        
+        Set<UUID> productIds = reviews.stream().map(ReviewDto::productId).collect(Collectors.toSet());
+        Set<UUID> existingProductIds = catalogBatchRepository.findExistingProductIds(productIds);
+        CatalogBatchRepository.requireAllFound(productIds, existingProductIds, "Products");
+        
+        List<ReviewDto> saved = catalogBatchRepository.insertReviews(reviews);
+        applyRatingDeltas(saved.stream()
+                .map(review -> new RatingDelta(review.productId(), review.rating(), 1))
+                .toList());
+        log.info("Пакетная запись отзывов: {} строк", saved.size());
+        return saved;
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Optional<ReviewDto> getReviewById(UUID id) {
-        return reviewRepository.findById(id)
-                .map(reviewMapper::toDto);
+        return reviewRepository.findDtoById(id);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<ReviewDto> getReviewsByProductId(UUID productId) {
-        return reviewRepository.findByProductId(productId)
-                .stream()
-                .map(reviewMapper::toDto)
-                .toList();
+        return reviewRepository.findDtosByProductId(productId);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<ReviewDto> getReviewsByRating(Short rating) {
-        return reviewRepository.findByRating(rating)
-                .stream()
-                .map(reviewMapper::toDto)
-                .toList();
+        return reviewRepository.findDtosByRating(rating);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public PageDto<ReviewDto> getReviewsByRatingPage(Short rating, String cursor, Integer limit) {
+        return reviewKeysetRepository.findPageByRating(rating, cursor, KeysetCursor.limit(limit));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<ReviewDto> streamReviewsByRating(Short rating) {
+        return reviewKeysetRepository.streamByRating(rating);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<ReviewDto> getReviewsByProductIdAndMinRating(UUID productId, Short minRating) {
-        return reviewRepository.findByProductIdAndMinRating(productId, minRating)
-                .stream()
-                .map(reviewMapper::toDto)
-                .toList();
+        return reviewRepository.findDtosByProductIdAndMinRating(productId, minRating);
     }
     
     @Override
@@ -75,30 +119,92 @@ public class ReviewServiceImpl implements ReviewService {
         Review existingReview = reviewRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Review not found with id: " + id));
         
+        Short previousRating = existingReview.getRating();
         existingReview.setRating(reviewDto.rating());
         existingReview.setText(reviewDto.text());
         
         Review updatedReview = reviewRepository.save(existingReview);
+        if (!previousRating.equals(updatedReview.getRating())) {
+            UUID productId = updatedReview.getProduct().getId();
+            applyRatingDeltas(List.of(
+                    new RatingDelta(productId, previousRating, -1),
+                    new RatingDelta(productId, updatedReview.getRating(), 1)));
+        }
         return reviewMapper.toDto(updatedReview);
     }
     
     @Override
     public void deleteReview(UUID id) {
-        if (!reviewRepository.existsById(id)) {
-            throw new RuntimeException("Review not found with id: " + id);
-        }
-        reviewRepository.deleteById(id);
+        Review review = reviewRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Review not found with id: " + id));
+        
+        reviewRepository.delete(review);
+        applyRatingDeltas(List.of(new RatingDelta(review.getProduct().getId(), review.getRating(), -1)));
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Double> getAverageRatingByProductId(UUID productId) {
-        return reviewRepository.findAverageRatingByProductId(productId);
+        return Optional.ofNullable(getRatingSummary(productId).averageRating());
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Long countReviewsByProductId(UUID productId) {
-        return reviewRepository.countByProductId(productId);
+        return getRatingSummary(productId).reviewCount();
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public RatingSummaryDto getRatingSummary(UUID productId) {
+        return loadRatingSummaries(List.of(productId)).get(0);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<RatingSummaryDto> getRatingSummaries(List<UUID> productIds) {
+        CatalogBatchRepository.requireMultiGetSize(productIds);
+        return loadRatingSummaries(productIds);
+    }
+    
+    @Override
+    public int rebuildRatingSummaries() {
+        long startedAt = System.nanoTime();
+        int changed = ratingSummaryRepository.rebuild();
+        CacheTransactions.afterCommit(() -> cacheManager.getCache("ratingSummaries").clear());
+        log.info("Пересчёт сводок рейтингов: изменено {} строк за {} мс",
+                changed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        return changed;
+    }
+    
+    private List<RatingSummaryDto> loadRatingSummaries(List<UUID> productIds) {
+        Set<UUID> keys = new LinkedHashSet<>(productIds);
+        Map<UUID, RatingSummaryDto> found = cacheManager.getCache("ratingSummaries").getAll(keys, misses -> {
+            Set<UUID> candidates = misses.stream()
+                    .filter(lookupGuard::mightContainProduct)
+                    .collect(Collectors.toSet());
+            Map<UUID, RatingSummaryDto> loaded = new HashMap<>();
+            if (candidates.isEmpty()) {
+                return loaded;
+            }
+            ratingSummaryRepository.findByProductIds(candidates)
+                    .forEach(summary -> loaded.put(summary.productId(), summary));
+            candidates.removeAll(loaded.keySet());
+            if (!candidates.isEmpty()) {
+                // пустую сводку кэшируем только для существующих товаров, иначе случайные id забьют L1 и L2
+                catalogBatchRepository.findExistingProductIds(candidates)
+                        .forEach(productId -> loaded.put(productId, RatingSummaryDto.empty(productId)));
+            }
+            return loaded;
+        });
+        return keys.stream()
+                .map(productId -> found.getOrDefault(productId, RatingSummaryDto.empty(productId)))
+                .toList();
+    }
+    
+    private void applyRatingDeltas(List<RatingDelta> deltas) {
+        ratingSummaryRepository.applyDeltas(deltas);
+        Set<UUID> productIds = deltas.stream().map(RatingDelta::productId).collect(Collectors.toSet());
+        CacheTransactions.afterCommit(() -> productIds.forEach(cacheManager.getCache("ratingSummaries")::evict));
     }
 }
@@ -0,0 +1,258 @@
+package com.fersko.cacheredis.web;
+
+import com.fersko.cacheredis.cache.DatabaseChangeListener;
+import com.fersko.cacheredis.config.ConditionalGetProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConditionalGetFilter implements WebFilter {
+    
+    private static final String UUID = "{%s:[0-9a-fA-F-]+}";
+    private static final String GZIP = "gzip";
+    
+    private static final List<Route> ROUTES = List.of(
+            route("/api/v1/products/" + uuid("id"), vars -> List.of("product:" + vars.get("id"), "category")),
+            route("/api/v1/products/reactive/" + uuid("id"),
+                    vars -> List.of("product:" + vars.get("id"), "category")),
+            route("/api/v1/products/**", vars -> List.of("product", "category")),
+            route("/api/v1/categories/" + uuid("id"), vars -> List.of("category:" + vars.get("id"))),
+            route("/api/v1/categories/reactive/" + uuid("id"), vars -> List.of("category:" + vars.get("id"))),
+            route("/api/v1/categories/**", vars -> List.of("category")),
+            route("/api/v1/product-prices/product/" + uuid("productId") + "/**",
+                    vars -> List.of("product_price:" + vars.get("productId"))),
+            route("/api/v1/product-prices/reactive/product/" + uuid("productId") + "/**",
+                    vars -> List.of("product_price:" + vars.get("productId"))),
+            route("/api/v1/product-prices/**", vars -> List.of("product_price")),
+            route("/api/v1/inventory/availability/product/" + uuid("productId"),
+                    vars -> List.of("product_availability:" + vars.get("productId"))),
+            route("/api/v1/inventory/availability/**", vars -> List.of("product_availability", "product")),
+            route("/api/v1/inventory/product/" + uuid("productId") + "/**",
+                    vars -> List.of("inventory:" + vars.get("productId"))),
+            route("/api/v1/inventory/available/product/" + uuid("productId"),
+                    vars -> List.of("inventory:" + vars.get("productId"))),
+            route("/api/v1/inventory/reactive/product/" + uuid("productId") + "/**",
+                    vars -> List.of("inventory:" + vars.get("productId"))),
+            route("/api/v1/inventory/reactive/available/product/" + uuid("productId"),
+                    vars -> List.of("inventory:" + vars.get("productId"))),
+            route("/api/v1/inventory/**", vars -> List.of("inventory")),
+            route("/api/v1/reviews/product/" + uuid("productId") + "/summary",
+                    vars -> List.of("review_rating_summary:" + vars.get("productId"))),
+            route("/api/v1/reviews/product/" + uuid("productId") + "/**",
+                    vars -> List.of("review:" + vars.get("productId"),
+                            "review_rating_summary:" + vars.get("productId"))),
+            route("/api/v1/reviews/**", vars -> List.of("review"))
+    );
+    
+    private final ResourceVersions resourceVersions;
+    private final ConditionalGetProperties properties;
+    private final ResponseBodyCache bodyCache;
+    private final DatabaseChangeListener changeListener;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (!properties.enabled() || !changeListener.isSubscribed()
+                || (method != HttpMethod.GET && method != HttpMethod.HEAD)) {
+            return chain.filter(exchange);
+        }
+        List<String> resources = resourcesOf(exchange.getRequest().getPath().pathWithinApplication());
+        if (resources == null) {
+            return chain.filter(exchange);
+        }
+        
+        return resourceVersions.resolve(resources)
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    log.warn("Не удалось получить версии {}, ответ без ETag", resources, e);
+                    return Mono.just(Optional.empty());
+                })
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(version -> version.isPresent()
+                        ? respond(exchange, chain, resources, version.get())
+                        : chain.filter(exchange));
+    }
+    
+    private Mono<Void> respond(ServerWebExchange exchange,
+                               WebFilterChain chain,
+                               List<String> resources,
+                               ResourceVersions.Version version) {
+        ServerHttpRequest request = exchange.getRequest();
+        boolean acceptsGzip = bodyCache.isEnabled() && acceptsGzip(request);
+        String gzipEtag = gzipEtag(version.etag());
+        String clientEtag = acceptsGzip && request.getHeaders().getOrEmpty(HttpHeaders.IF_NONE_MATCH).stream()
+                .anyMatch(value -> value.contains(gzipEtag)) ? gzipEtag : version.etag();
+        if (exchange.checkNotModified(clientEtag)) {
+            return exchange.getResponse().setComplete();
+        }
+        
+        if (!bodyCache.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            addValidators(exchange.getResponse(), version);
+            return chain.filter(exchange);
+        }
+        
+        String key = bodyKey(request, version);
+        ResponseBodyCache.CachedBody cached = bodyCache.get(key);
+        if (cached != null) {
+            return writeCached(exchange.getResponse(), cached, version, acceptsGzip);
+        }
+        ServerHttpResponse response = new CapturingResponse(exchange.getResponse(), key, resources, version.etag());
+        addValidators(response, version);
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+    
+    private void addValidators(ServerHttpResponse response, ResourceVersions.Version version) {
+        response.beforeCommit(() -> {
+            HttpStatusCode status = response.getStatusCode();
+            if (status == null || status.is2xxSuccessful()) {
+                response.getHeaders().setETag(version.etag());
+                if (bodyCache.isEnabled()) {
+                    response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                }
+            }
+            return Mono.empty();
+        });
+    }
+    
+    private Mono<Void> writeCached(ServerHttpResponse response,
+                                   ResponseBodyCache.CachedBody cached,
+                                   ResourceVersions.Version version,
+                                   boolean acceptsGzip) {
+        boolean gzip = acceptsGzip && cached.gzip() != null;
+        byte[] bytes = gzip ? cached.gzip() : cached.identity();
+        HttpHeaders headers = response.getHeaders();
+        response.setStatusCode(HttpStatus.OK);
+        headers.setContentType(cached.contentType());
+        headers.setContentLength(bytes.length);
+        headers.setETag(gzip ? gzipEtag(version.etag()) : version.etag());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+    }
+    
+    // тело кэшируется, только если за время запроса версия не сменилась: иначе оно могло быть
+    // прочитано из L1, который этот узел ещё не очистил, и попало бы в кэш под новым ETag
+    private void storeIfCurrent(String key, byte[] body, MediaType contentType, List<String> resources, String etag) {
+        resourceVersions.resolve(resources)
+                .filter(current -> current.etag().equals(etag))
+                .subscribe(current -> bodyCache.put(key, body, contentType),
+                        e -> log.debug("Не удалось перепроверить версии {}, ответ не кэшируется", resources, e));
+    }
+    
+    private static String bodyKey(ServerHttpRequest request, ResourceVersions.Version version) {
+        String query = request.getURI().getRawQuery();
+        return request.getURI().getRawPath() + (query != null ? "?" + query : "") + '|' + version.etag();
+    }
+    
+    private static boolean acceptsGzip(ServerHttpRequest request) {
+        return request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING).stream()
+                .anyMatch(value -> value.toLowerCase(Locale.ROOT).contains(GZIP));
+    }
+    
+    private static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+    
+    static List<String> resourcesOf(PathContainer path) {
+        for (Route route : ROUTES) {
+            PathPattern.PathMatchInfo match = route.pattern().matchAndExtract(path);
+            if (match != null) {
+                return route.resources().apply(match.getUriVariables());
+            }
+        }
+        return null;
+    }
+    
+    private static String uuid(String variable) {
+        return UUID.formatted(variable);
+    }
+    
+    private static Route route(String pattern, Function<Map<String, String>, List<String>> resources) {
+        return new Route(PathPatternParser.defaultInstance.parse(pattern), resources);
+    }
+    
+    private final class CapturingResponse extends ServerHttpResponseDecorator {
+        
+        private final String key;
+        private final List<String> resources;
+        private final String etag;
+        
+        private CapturingResponse(ServerHttpResponse delegate, String key, List<String> resources, String etag) {
+            super(delegate);
+            this.key = key;
+            this.resources = resources;
+            this.etag = etag;
+        }
+        
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            MediaType contentType = getHeaders().getContentType();
+            long maxBodySize = bodyCache.maxBodySize();
+            if ((status != null && status.value() != HttpStatus.OK.value())
+                    || contentType == null
+                    || !MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                    || getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)
+                    || getHeaders().getContentLength() > maxBodySize) {
+                return super.writeWith(body);
+            }
+            
+            ByteArrayOutputStream captured = new ByteArrayOutputStream();
+            AtomicBoolean overflow = new AtomicBoolean();
+            Flux<DataBuffer> tapped = Flux.<DataBuffer>from(body)
+                    .doOnNext(buffer -> {
+                        int length = buffer.readableByteCount();
+                        if (overflow.get() || captured.size() + length > maxBodySize) {
+                            overflow.set(true);
+                            captured.reset();
+                            return;
+                        }
+                        byte[] chunk = new byte[length];
+                        int position = buffer.readPosition();
+                        buffer.read(chunk);
+                        buffer.readPosition(position);
+                        captured.writeBytes(chunk);
+                    })
+                    .doOnComplete(() -> {
+                        if (!overflow.get() && captured.size() > 0) {
+                            storeIfCurrent(key, captured.toByteArray(), contentType, resources, etag);
+                        }
+                    });
+            return super.writeWith(tapped);
+        }
+    }
+    
+    private record Route(PathPattern pattern, Function<Map<String, String>, List<String>> resources) {
+    }
+}
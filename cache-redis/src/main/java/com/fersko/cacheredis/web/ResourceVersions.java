@@ -0,0 +1,95 @@
+package com.fersko.cacheredis.web;
+
+import com.fersko.cacheredis.config.ConditionalGetProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+@RequiredArgsConstructor
+public class ResourceVersions {
+    
+    public static final String EPOCH = "epoch";
+    
+    private static final RedisScript<String> RESOLVE_SCRIPT = new DefaultRedisScript<>("""
+            local values = {}
+            for i, key in ipairs(KEYS) do
+                local value = redis.call('GET', key)
+                if not value then
+                    value = ARGV[1]
+                    redis.call('SET', key, value, 'PX', ARGV[2])
+                end
+                values[i] = value
+            end
+            return table.concat(values, '\\n')
+            """, String.class);
+    
+    private static final RedisScript<Long> BUMP_SCRIPT = new DefaultRedisScript<>("""
+            for _, key in ipairs(KEYS) do
+                redis.call('SET', key, ARGV[1], 'PX', ARGV[2])
+            end
+            return #KEYS
+            """, Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final ConditionalGetProperties properties;
+    
+    public Mono<Version> resolve(List<String> resources) {
+        List<String> keys = new ArrayList<>(resources.size() + 1);
+        keys.add(versionKey(EPOCH));
+        resources.forEach(resource -> keys.add(versionKey(resource)));
+        return reactiveRedisTemplate.execute(RESOLVE_SCRIPT, keys,
+                        List.of(newToken(), ttlMillis()))
+                .next()
+                .map(values -> Version.of(values.split("\n")));
+    }
+    
+    public void bump(Collection<String> resources) {
+        if (resources.isEmpty()) {
+            return;
+        }
+        List<String> keys = resources.stream().map(ResourceVersions::versionKey).toList();
+        redisTemplate.execute(BUMP_SCRIPT, keys, newToken(), ttlMillis());
+    }
+    
+    public void bumpEpoch() {
+        bump(List.of(EPOCH));
+    }
+    
+    static String versionKey(String resource) {
+        return "version:" + resource;
+    }
+    
+    private String ttlMillis() {
+        return String.valueOf(properties.versionTtl().toMillis());
+    }
+    
+    private static String newToken() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+    
+    // Last-Modified не отдаём: секундная точность не отличает запись в ту же секунду, что и прошлый ответ
+    public record Version(String etag) {
+        
+        static Version of(String[] values) {
+            long hash = 0xCBF29CE484222325L;
+            for (String value : values) {
+                for (int i = 0; i < value.length(); i++) {
+                    hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+                }
+                hash = (hash ^ '|') * 0x100000001B3L;
+            }
+            return new Version("\"" + Long.toHexString(hash) + "\"");
+        }
+    }
+}
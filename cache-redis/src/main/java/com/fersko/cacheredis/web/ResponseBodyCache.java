@@ -0,0 +1,95 @@
+package com.fersko.cacheredis.web;
+
+import com.fersko.cacheredis.config.ResponseCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+public class ResponseBodyCache {
+    
+    private final ResponseCacheProperties properties;
+    private final Cache<String, CachedBody> bodies;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    public ResponseBodyCache(ResponseCacheProperties properties) {
+        this.properties = properties;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(properties.maximumWeight().toBytes())
+                .weigher((String key, CachedBody body) -> body.weight() + key.length() * 2)
+                .expireAfterWrite(properties.expireAfterWrite())
+                .build();
+    }
+    
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+    
+    public long maxBodySize() {
+        return properties.maxBodySize().toBytes();
+    }
+    
+    public CachedBody get(String key) {
+        CachedBody body = bodies.getIfPresent(key);
+        if (body != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return body;
+    }
+    
+    public void put(String key, byte[] identity, MediaType contentType) {
+        if (identity.length > maxBodySize()) {
+            return;
+        }
+        byte[] gzip = null;
+        if (identity.length >= properties.compressionThreshold().toBytes()) {
+            byte[] compressed = gzip(identity);
+            if (compressed.length < identity.length) {
+                gzip = compressed;
+            }
+        }
+        bodies.put(key, new CachedBody(contentType, identity, gzip));
+    }
+    
+    public void clear() {
+        bodies.invalidateAll();
+    }
+    
+    public Stats stats() {
+        long bytes = 0;
+        for (CachedBody body : bodies.asMap().values()) {
+            bytes += body.weight();
+        }
+        return new Stats(bodies.estimatedSize(), bytes, hits.sum(), misses.sum());
+    }
+    
+    private static byte[] gzip(byte[] identity) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(identity.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(identity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    public record CachedBody(MediaType contentType, byte[] identity, byte[] gzip) {
+        
+        int weight() {
+            return identity.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+    
+    public record Stats(long entries, long bytes, long hits, long misses) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.fersko.cacheredis.writebehind;
+
+import com.fersko.cacheredis.cache.CacheTransactions;
+import com.fersko.cacheredis.cache.CatalogCacheTags;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.lookup.NegativeLookupGuard;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class CategoryWriteBehindTarget implements WriteBehindTarget<CategoryDto> {
+    
+    public static final String NAME = "categories";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final NegativeLookupGuard lookupGuard;
+    private final TwoLevelCacheManager cacheManager;
+    
+    @Override
+    public String name() {
+        return NAME;
+    }
+    
+    @Override
+    public Class<CategoryDto> valueType() {
+        return CategoryDto.class;
+    }
+    
+    @Override
+    public String keyOf(CategoryDto category) {
+        return category.id().toString();
+    }
+    
+    @Override
+    public void writeBatch(List<CategoryDto> categories) {
+        lookupGuard.recordCategories(categories);
+        int[][] counts = jdbcTemplate.batchUpdate(
+                "UPDATE category SET name = ?, slug = ? WHERE id = ?",
+                categories,
+                categories.size(),
+                (ps, category) -> {
+                    ps.setString(1, category.name());
+                    ps.setString(2, category.slug());
+                    ps.setObject(3, category.id());
+                });
+        
+        List<CategoryDto> missing = new ArrayList<>();
+        List<String> tags = new ArrayList<>(categories.size());
+        for (int i = 0; i < categories.size(); i++) {
+            if (counts[0][i] == 0) {
+                missing.add(categories.get(i));
+            }
+            tags.add(CatalogCacheTags.category(categories.get(i).id()));
+        }
+        CacheTransactions.afterCommit(() -> {
+            missing.forEach(this::evictCached);
+            cacheManager.evictByTags(tags);
+        });
+    }
+    
+    @Override
+    public void evictCached(CategoryDto category) {
+        cacheManager.getCache("categories").evict(category.id());
+    }
+}
@@ -0,0 +1,83 @@
+package com.fersko.cacheredis.writebehind;
+
+import com.fersko.cacheredis.cache.CacheTransactions;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
+import com.fersko.cacheredis.dto.InventoryDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class InventoryWriteBehindTarget implements WriteBehindTarget<InventoryDto> {
+    
+    public static final String NAME = "inventory";
+    
+    private static final String UPDATE_INVENTORY = """
+            UPDATE inventory AS i
+            SET quantity = d.quantity,
+                updated_at = d.updated_at
+            FROM unnest(?::uuid[], ?::int8[], ?::int4[], ?::timestamptz[])
+                AS d(product_id, warehouse_id, quantity, updated_at)
+            WHERE i.product_id = d.product_id
+              AND i.warehouse_id = d.warehouse_id
+              AND i.updated_at < d.updated_at
+            RETURNING i.product_id, i.warehouse_id
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TwoLevelCacheManager cacheManager;
+    
+    @Override
+    public String name() {
+        return NAME;
+    }
+    
+    @Override
+    public Class<InventoryDto> valueType() {
+        return InventoryDto.class;
+    }
+    
+    @Override
+    public String keyOf(InventoryDto inventory) {
+        return inventory.productId() + ":" + inventory.warehouseId();
+    }
+    
+    @Override
+    public void writeBatch(List<InventoryDto> inventories) {
+        Map<String, InventoryDto> byKey = new HashMap<>();
+        inventories.forEach(inventory -> byKey.put(keyOf(inventory), inventory));
+        List<InventoryDto> written = jdbcTemplate.query(UPDATE_INVENTORY, statement -> {
+            Connection connection = statement.getConnection();
+            statement.setArray(1, connection.createArrayOf("uuid",
+                    inventories.stream().map(InventoryDto::productId).toArray()));
+            statement.setArray(2, connection.createArrayOf("int8",
+                    inventories.stream().map(InventoryDto::warehouseId).toArray()));
+            statement.setArray(3, connection.createArrayOf("int4",
+                    inventories.stream().map(InventoryDto::quantity).toArray()));
+            statement.setArray(4, connection.createArrayOf("timestamptz",
+                    inventories.stream().map(InventoryDto::updatedAt).toArray()));
+        }, (rs, rowNum) -> byKey.remove(rs.getObject("product_id", UUID.class) + ":" + rs.getLong("warehouse_id")));
+        
+        // строка удалена или изменена позже: в кэше осталось значение, которого нет в БД
+        List<InventoryDto> skipped = List.copyOf(byKey.values());
+        Set<UUID> productIds = written.stream().map(InventoryDto::productId).collect(Collectors.toSet());
+        CacheTransactions.afterCommit(() -> {
+            skipped.forEach(this::evictCached);
+            productIds.forEach(cacheManager.getCache("availability")::evict);
+        });
+    }
+    
+    @Override
+    public void evictCached(InventoryDto inventory) {
+        cacheManager.getCache("inventory").evict(keyOf(inventory));
+    }
+}
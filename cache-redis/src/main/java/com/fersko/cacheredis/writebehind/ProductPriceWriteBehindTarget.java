@@ -0,0 +1,88 @@
+package com.fersko.cacheredis.writebehind;
+
+import com.fersko.cacheredis.cache.CacheTransactions;
+import com.fersko.cacheredis.cache.TwoLevelCacheManager;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import com.fersko.cacheredis.pricing.PriceCatalog;
+import com.fersko.cacheredis.repository.ProductPriceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class ProductPriceWriteBehindTarget implements WriteBehindTarget<ProductPriceDto> {
+    
+    public static final String NAME = "prices";
+    
+    private static final String UPDATE_PRICES = """
+            UPDATE product_price AS p
+            SET amount = d.amount,
+                updated_at = d.updated_at
+            FROM unnest(?::uuid[], ?::varchar[], ?::numeric[], ?::timestamptz[])
+                AS d(product_id, currency, amount, updated_at)
+            WHERE p.product_id = d.product_id
+              AND p.currency = d.currency
+              AND p.updated_at < d.updated_at
+            RETURNING p.product_id, p.currency
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final PriceCatalog priceCatalog;
+    private final ProductPriceRepository productPriceRepository;
+    private final TwoLevelCacheManager cacheManager;
+    
+    @Override
+    public String name() {
+        return NAME;
+    }
+    
+    @Override
+    public Class<ProductPriceDto> valueType() {
+        return ProductPriceDto.class;
+    }
+    
+    @Override
+    public String keyOf(ProductPriceDto price) {
+        return price.productId() + ":" + price.currency();
+    }
+    
+    @Override
+    public void writeBatch(List<ProductPriceDto> prices) {
+        Map<String, ProductPriceDto> byKey = new HashMap<>();
+        prices.forEach(price -> byKey.put(keyOf(price), price));
+        List<ProductPriceDto> written = jdbcTemplate.query(UPDATE_PRICES, statement -> {
+            Connection connection = statement.getConnection();
+            statement.setArray(1, connection.createArrayOf("uuid",
+                    prices.stream().map(ProductPriceDto::productId).toArray()));
+            statement.setArray(2, connection.createArrayOf("varchar",
+                    prices.stream().map(ProductPriceDto::currency).toArray()));
+            statement.setArray(3, connection.createArrayOf("numeric",
+                    prices.stream().map(ProductPriceDto::amount).toArray()));
+            statement.setArray(4, connection.createArrayOf("timestamptz",
+                    prices.stream().map(ProductPriceDto::updatedAt).toArray()));
+        }, (rs, rowNum) -> byKey.remove(rs.getObject("product_id", UUID.class) + ":" + rs.getString("currency")));
+        priceCatalog.upsertAll(written);
+        
+        // строка удалена или изменена позже: в кэше и каталоге осталось значение, которого нет в БД
+        List<ProductPriceDto> skipped = List.copyOf(byKey.values());
+        CacheTransactions.afterCommit(() -> skipped.forEach(this::evictCached));
+    }
+    
+    @Override
+    public void evictCached(ProductPriceDto price) {
+        cacheManager.getCache("prices").evict(keyOf(price));
+        Optional<ProductPriceDto> current = productPriceRepository.findDtoByProductIdAndCurrency(
+                price.productId(), price.currency());
+        priceCatalog.refresh(Map.of(price.currency(), current.stream().toList()),
+                Map.of(price.currency(), current.isPresent() ? Set.of() : Set.of(price.productId())));
+    }
+}
@@ -0,0 +1,361 @@
+package com.fersko.cacheredis.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fersko.cacheredis.config.WriteBehindProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class WriteBehindEngine implements SmartLifecycle {
+    
+    private final Map<String, WriteBehindTarget<?>> targets;
+    private final WriteBehindProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindJournal journal;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    // сброс очереди всегда один: финальный сброс при остановке ждёт сброс потока, не успевшего завершиться
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushRequested = lock.newCondition();
+    private final LinkedHashMap<String, WriteBehindRecord> pending = new LinkedHashMap<>();
+    private int inFlight;
+    private boolean journalClosed;
+    
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    
+    private volatile boolean running;
+    private Thread flusher;
+    
+    public WriteBehindEngine(List<WriteBehindTarget<?>> targets,
+                             WriteBehindProperties properties,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.targets = targets.stream()
+                .collect(Collectors.toUnmodifiableMap(WriteBehindTarget::name, Function.identity()));
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journal = new WriteBehindJournal(properties.journalDir(),
+                properties.journalSegmentSize().toBytes(), properties.fsync(), objectMapper);
+    }
+    
+    public <V> void enqueue(String targetName, V value) {
+        WriteBehindTarget<V> target = target(targetName);
+        String key = target.keyOf(value);
+        WriteBehindRecord record = new WriteBehindRecord(targetName, key, objectMapper.valueToTree(value));
+        String pendingKey = pendingKey(targetName, key);
+        
+        lock.lock();
+        try {
+            if (!running) {
+                throw new WriteBehindOverloadedException("Write-behind engine is not running");
+            }
+            if (!pending.containsKey(pendingKey)) {
+                awaitCapacity(targetName, key);
+            }
+            journal.append(record);
+            if (pending.put(pendingKey, record) != null) {
+                coalesced.increment();
+            }
+            enqueued.increment();
+            if (pending.size() >= properties.batchSize()) {
+                flushRequested.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public Statistics getStatistics() {
+        lock.lock();
+        try {
+            return new Statistics(pending.size(), inFlight, enqueued.sum(), coalesced.sum(),
+                    flushed.sum(), batches.sum(), dropped.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void start() {
+        List<WriteBehindRecord> recovered = journal.open();
+        lock.lock();
+        try {
+            recovered.forEach(record -> pending.put(pendingKey(record.target(), record.key()), record));
+        } finally {
+            lock.unlock();
+        }
+        if (!recovered.isEmpty()) {
+            log.info("Write-Behind: восстановлено {} записей из журнала ({} ключей)", recovered.size(), pending.size());
+        }
+        
+        running = true;
+        flusher = Thread.ofPlatform().name("write-behind-flusher").daemon().start(this::flushLoop);
+    }
+    
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+            flushRequested.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        long timeoutMillis = properties.flushInterval().toMillis() * 10;
+        try {
+            flusher.join(timeoutMillis);
+            if (!flushLock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.error("Write-Behind: сброс очереди не завершился за {} мс, записи остаются в журнале",
+                        timeoutMillis);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Write-Behind: остановка прервана, записи остаются в журнале");
+            return;
+        }
+        try {
+            flushPending();
+        } catch (RuntimeException e) {
+            log.error("Write-Behind: не удалось сбросить очередь при остановке, записи остаются в журнале", e);
+        } finally {
+            closeJournal();
+            flushLock.unlock();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+    
+    private void flushLoop() {
+        while (running) {
+            lock.lock();
+            try {
+                if (pending.size() < properties.batchSize()) {
+                    flushRequested.await(properties.flushInterval().toMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            
+            boolean flushedAll;
+            try {
+                flushedAll = flushPending();
+            } catch (RuntimeException e) {
+                log.error("Write-Behind: сброс очереди прерван, повтор через {}", properties.retryBackoff(), e);
+                flushedAll = false;
+            }
+            if (!flushedAll) {
+                sleepQuietly(properties.retryBackoff().toMillis());
+            }
+        }
+    }
+    
+    private boolean flushPending() {
+        flushLock.lock();
+        try {
+            return journalClosed || flushSnapshot();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    private boolean flushSnapshot() {
+        List<WriteBehindRecord> batch;
+        WriteBehindJournal.Position checkpoint;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return true;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            inFlight = batch.size();
+            checkpoint = journal.position();
+        } finally {
+            lock.unlock();
+        }
+        
+        List<WriteBehindRecord> failed = batch;
+        try {
+            List<WriteBehindRecord> rejected = new ArrayList<>();
+            batch.stream()
+                    .collect(Collectors.groupingBy(WriteBehindRecord::target, LinkedHashMap::new, Collectors.toList()))
+                    .forEach((targetName, records) -> rejected.addAll(flushTarget(targetName, records)));
+            failed = rejected;
+        } finally {
+            lock.lock();
+            try {
+                List<WriteBehindRecord> requeued = new ArrayList<>();
+                for (WriteBehindRecord record : failed) {
+                    if (pending.putIfAbsent(pendingKey(record.target(), record.key()), record) == null) {
+                        requeued.add(record);
+                    }
+                }
+                inFlight = 0;
+                notFull.signalAll();
+                // возвращённые в очередь записи дописываются после контрольной точки, чтобы пережить её сдвиг
+                if (!requeued.isEmpty()) {
+                    journal.appendAll(requeued);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        // всё до снимка очереди записано в БД или заново попало в журнал: старые сегменты можно удалить
+        journal.checkpoint(checkpoint);
+        return failed.isEmpty();
+    }
+    
+    private void closeJournal() {
+        journalClosed = true;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Write-Behind: не удалось закрыть журнал", e);
+        }
+    }
+    
+    private List<WriteBehindRecord> flushTarget(String targetName, List<WriteBehindRecord> records) {
+        WriteBehindTarget<Object> target = targets.containsKey(targetName) ? target(targetName) : null;
+        if (target == null) {
+            dropped.add(records.size());
+            log.error("Write-Behind: неизвестная цель {}, удалено {} записей из очереди", targetName, records.size());
+            return List.of();
+        }
+        
+        List<DecodedRecord> decoded = new ArrayList<>(records.size());
+        for (WriteBehindRecord record : records) {
+            try {
+                decoded.add(new DecodedRecord(record, objectMapper.convertValue(record.value(), target.valueType())));
+            } catch (IllegalArgumentException e) {
+                dropped.increment();
+                log.error("Write-Behind: запись {}::{} не декодируется и удалена из очереди: {}",
+                        record.target(), record.key(), record.value(), e);
+            }
+        }
+        
+        List<WriteBehindRecord> failed = new ArrayList<>();
+        for (int from = 0; from < decoded.size(); from += properties.batchSize()) {
+            List<DecodedRecord> chunk = decoded.subList(from, Math.min(decoded.size(), from + properties.batchSize()));
+            List<Object> values = chunk.stream().map(DecodedRecord::value).toList();
+            try {
+                transactionTemplate.executeWithoutResult(status -> target.writeBatch(values));
+                flushed.add(chunk.size());
+                batches.increment();
+            } catch (RuntimeException e) {
+                log.warn("Write-Behind: пакет {} из {} записей не записан, повторяем по одной",
+                        targetName, chunk.size(), e);
+                failed.addAll(flushOneByOne(target, chunk));
+            }
+        }
+        
+        if (!records.isEmpty()) {
+            log.debug("Write-Behind: {} — записано {} изменений", targetName, decoded.size() - failed.size());
+        }
+        return failed;
+    }
+    
+    private List<WriteBehindRecord> flushOneByOne(WriteBehindTarget<Object> target, List<DecodedRecord> chunk) {
+        List<WriteBehindRecord> failed = new ArrayList<>();
+        for (DecodedRecord decoded : chunk) {
+            WriteBehindRecord record = decoded.record();
+            try {
+                transactionTemplate.executeWithoutResult(status -> target.writeBatch(List.of(decoded.value())));
+                flushed.increment();
+            } catch (DataIntegrityViolationException e) {
+                dropped.increment();
+                target.evictCached(decoded.value());
+                log.error("Write-Behind: запись {}::{} отклонена БД и удалена из очереди: {}",
+                        record.target(), record.key(), record.value(), e);
+            } catch (RuntimeException e) {
+                failed.add(record);
+            }
+        }
+        return failed;
+    }
+    
+    private void awaitCapacity(String targetName, String key) {
+        long remainingNanos = properties.enqueueTimeout().toNanos();
+        while (pending.size() + inFlight >= properties.capacity()) {
+            if (remainingNanos <= 0) {
+                throw new WriteBehindOverloadedException(
+                        "Write-behind queue is full, cannot accept " + targetName + "::" + key);
+            }
+            try {
+                remainingNanos = notFull.awaitNanos(remainingNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WriteBehindOverloadedException("Interrupted while waiting for write-behind capacity");
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <V> WriteBehindTarget<V> target(String targetName) {
+        WriteBehindTarget<?> target = targets.get(targetName);
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown write-behind target: " + targetName);
+        }
+        return (WriteBehindTarget<V>) target;
+    }
+    
+    private static String pendingKey(String targetName, String key) {
+        return targetName + "::" + key;
+    }
+    
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private record DecodedRecord(WriteBehindRecord record, Object value) {
+    }
+    
+    public record Statistics(
+            int pending,
+            int inFlight,
+            long enqueued,
+            long coalesced,
+            long flushed,
+            long batches,
+            long dropped
+    ) {}
+}
@@ -0,0 +1,220 @@
+package com.fersko.cacheredis.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+@Slf4j
+class WriteBehindJournal implements AutoCloseable {
+    
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d+)\\.log");
+    
+    private final Path directory;
+    private final Path legacyFile;
+    private final Path checkpointFile;
+    private final Path checkpointTempFile;
+    private final long segmentSize;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+    private FileChannel channel;
+    private long segment;
+    private long segmentPosition;
+    private Position checkpoint = Position.START;
+    
+    WriteBehindJournal(Path directory, long segmentSize, boolean fsync, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.legacyFile = directory.resolve("journal.log");
+        this.checkpointFile = directory.resolve("journal.checkpoint");
+        this.checkpointTempFile = directory.resolve("journal.checkpoint.tmp");
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+    }
+    
+    List<WriteBehindRecord> open() {
+        try {
+            Files.createDirectories(directory);
+            List<Long> segments = segments();
+            if (Files.exists(legacyFile) && segments.isEmpty()) {
+                Files.move(legacyFile, segmentFile(0));
+                segments = List.of(0L);
+            }
+            checkpoint = readCheckpoint();
+            List<WriteBehindRecord> records = replay(segments);
+            // всегда начинаем новый сегмент: хвост последнего мог оборваться на середине строки
+            segment = Math.max(segments.isEmpty() ? 0 : segments.getLast() + 1, checkpoint.segment() + 1);
+            segmentPosition = 0;
+            channel = openForAppend(segmentFile(segment));
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-behind journal in " + directory, e);
+        }
+    }
+    
+    void append(WriteBehindRecord record) {
+        appendAll(List.of(record));
+    }
+    
+    void appendAll(Collection<WriteBehindRecord> records) {
+        try {
+            if (segmentPosition >= segmentSize) {
+                roll();
+            }
+            for (WriteBehindRecord record : records) {
+                segmentPosition += write(channel, record);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to write-behind journal " + segmentFile(segment), e);
+        }
+    }
+    
+    Position position() {
+        return new Position(segment, segmentPosition);
+    }
+    
+    void checkpoint(Position position) {
+        if (position.compareTo(checkpoint) <= 0) {
+            return;
+        }
+        try {
+            Files.writeString(checkpointTempFile, position.segment() + " " + position.offset(), StandardCharsets.UTF_8);
+            if (fsync) {
+                try (FileChannel written = FileChannel.open(checkpointTempFile, StandardOpenOption.WRITE)) {
+                    written.force(true);
+                }
+            }
+            Files.move(checkpointTempFile, checkpointFile,
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            checkpoint = position;
+            for (long obsolete : segments()) {
+                if (obsolete < position.segment()) {
+                    Files.deleteIfExists(segmentFile(obsolete));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot checkpoint write-behind journal in " + directory, e);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+    
+    private void roll() throws IOException {
+        channel.close();
+        segment++;
+        segmentPosition = 0;
+        channel = openForAppend(segmentFile(segment));
+    }
+    
+    private List<WriteBehindRecord> replay(List<Long> segments) throws IOException {
+        List<WriteBehindRecord> records = new ArrayList<>();
+        for (long replayed : segments) {
+            if (replayed < checkpoint.segment()) {
+                continue;
+            }
+            long skip = replayed == checkpoint.segment() ? checkpoint.offset() : 0;
+            try (FileChannel file = FileChannel.open(segmentFile(replayed), StandardOpenOption.READ)) {
+                if (skip > file.size()) {
+                    log.warn("Write-Behind: контрольная точка {} за концом сегмента {}, сегмент читается целиком",
+                            checkpoint, replayed);
+                    skip = 0;
+                }
+                file.position(skip);
+                readRecords(Channels.newInputStream(file), records);
+            }
+        }
+        return records;
+    }
+    
+    private void readRecords(InputStream input, List<WriteBehindRecord> records) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                records.add(objectMapper.readValue(line, WriteBehindRecord.class));
+            } catch (IOException e) {
+                log.warn("Write-Behind: пропущена повреждённая запись журнала: {}", line, e);
+            }
+        }
+    }
+    
+    private Position readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return Position.START;
+        }
+        String[] parts = Files.readString(checkpointFile, StandardCharsets.UTF_8).trim().split(" ");
+        try {
+            return new Position(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            log.warn("Write-Behind: повреждённая контрольная точка журнала, журнал читается целиком", e);
+            return Position.START;
+        }
+    }
+    
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+    
+    private Path segmentFile(long id) {
+        return directory.resolve("journal-" + id + ".log");
+    }
+    
+    private int write(FileChannel target, WriteBehindRecord record) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(record);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        return json.length + 1;
+    }
+    
+    private FileChannel openForAppend(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    record Position(long segment, long offset) implements Comparable<Position> {
+        
+        static final Position START = new Position(0, 0);
+        
+        @Override
+        public int compareTo(Position other) {
+            int bySegment = Long.compare(segment, other.segment);
+            return bySegment != 0 ? bySegment : Long.compare(offset, other.offset);
+        }
+    }
+}
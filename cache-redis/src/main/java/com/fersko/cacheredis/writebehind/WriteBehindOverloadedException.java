@@ -0,0 +1,8 @@
+package com.fersko.cacheredis.writebehind;
+
+public class WriteBehindOverloadedException extends RuntimeException {
+    
+    public WriteBehindOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.fersko.cacheredis.writebehind;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+record WriteBehindRecord(
+        String target,
+        String key,
+        JsonNode value
+) {}
@@ -0,0 +1,16 @@
+package com.fersko.cacheredis.writebehind;
+
+import java.util.List;
+
+public interface WriteBehindTarget<V> {
+    
+    String name();
+    
+    Class<V> valueType();
+    
+    String keyOf(V value);
+    
+    void writeBatch(List<V> values);
+    
+    void evictCached(V value);
+}
@@ -0,0 +1,7 @@
+CREATE INDEX IF NOT EXISTS idx_product_updated_at_id ON product(updated_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_available ON inventory(product_id, warehouse_id) WHERE quantity > 0;
+
+CREATE INDEX IF NOT EXISTS idx_product_price_currency_product_id ON product_price(currency, product_id);
+
+CREATE INDEX IF NOT EXISTS idx_review_rating_updated_at_id ON review(rating, updated_at, id);
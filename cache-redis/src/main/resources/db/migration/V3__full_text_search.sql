@@ -0,0 +1,22 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE product
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(sku, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_product_search_vector ON product USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_product_name_trgm ON product USING GIN (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_product_sku_trgm ON product USING GIN (sku gin_trgm_ops);
+
+ALTER TABLE category
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(slug, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_category_search_vector ON category USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_category_name_trgm ON category USING GIN (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_category_slug_trgm ON category USING GIN (slug gin_trgm_ops);
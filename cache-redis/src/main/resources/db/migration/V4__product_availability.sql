@@ -0,0 +1,77 @@
+CREATE TABLE IF NOT EXISTS product_availability (
+    product_id          UUID        PRIMARY KEY REFERENCES product(id) ON DELETE CASCADE,
+    total_quantity      BIGINT      NOT NULL DEFAULT 0 CHECK (total_quantity >= 0),
+    warehouses_in_stock INTEGER     NOT NULL DEFAULT 0 CHECK (warehouses_in_stock >= 0),
+    updated_at          TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE OR REPLACE FUNCTION apply_inventory_availability_delta() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO product_availability AS pa (product_id, total_quantity, warehouses_in_stock)
+        SELECT product_id, SUM(quantity), COUNT(*) FILTER (WHERE quantity > 0)
+        FROM new_rows
+        GROUP BY product_id
+        ORDER BY product_id
+        ON CONFLICT (product_id) DO UPDATE
+        SET total_quantity = pa.total_quantity + EXCLUDED.total_quantity,
+            warehouses_in_stock = pa.warehouses_in_stock + EXCLUDED.warehouses_in_stock,
+            updated_at = NOW();
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO product_availability AS pa (product_id, total_quantity, warehouses_in_stock)
+        SELECT product_id, SUM(quantity), SUM(in_stock)
+        FROM (
+            SELECT product_id, quantity::BIGINT AS quantity, (quantity > 0)::INTEGER AS in_stock FROM new_rows
+            UNION ALL
+            SELECT product_id, -quantity::BIGINT, -(quantity > 0)::INTEGER FROM old_rows
+        ) delta
+        GROUP BY product_id
+        HAVING SUM(quantity) <> 0 OR SUM(in_stock) <> 0
+        ORDER BY product_id
+        ON CONFLICT (product_id) DO UPDATE
+        SET total_quantity = pa.total_quantity + EXCLUDED.total_quantity,
+            warehouses_in_stock = pa.warehouses_in_stock + EXCLUDED.warehouses_in_stock,
+            updated_at = NOW();
+    ELSE
+        UPDATE product_availability pa
+        SET total_quantity = pa.total_quantity - delta.quantity,
+            warehouses_in_stock = pa.warehouses_in_stock - delta.in_stock,
+            updated_at = NOW()
+        FROM (
+            SELECT product_id, SUM(quantity) AS quantity, COUNT(*) FILTER (WHERE quantity > 0) AS in_stock
+            FROM old_rows
+            GROUP BY product_id
+        ) delta
+        WHERE pa.product_id = delta.product_id;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_inventory_availability_insert ON inventory;
+CREATE TRIGGER trg_inventory_availability_insert
+    AFTER INSERT ON inventory
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_inventory_availability_delta();
+
+DROP TRIGGER IF EXISTS trg_inventory_availability_update ON inventory;
+CREATE TRIGGER trg_inventory_availability_update
+    AFTER UPDATE ON inventory
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_inventory_availability_delta();
+
+DROP TRIGGER IF EXISTS trg_inventory_availability_delete ON inventory;
+CREATE TRIGGER trg_inventory_availability_delete
+    AFTER DELETE ON inventory
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_inventory_availability_delta();
+
+INSERT INTO product_availability (product_id, total_quantity, warehouses_in_stock)
+SELECT product_id, SUM(quantity), COUNT(*) FILTER (WHERE quantity > 0)
+FROM inventory
+GROUP BY product_id
+ON CONFLICT (product_id) DO UPDATE
+SET total_quantity = EXCLUDED.total_quantity,
+    warehouses_in_stock = EXCLUDED.warehouses_in_stock,
+    updated_at = NOW();
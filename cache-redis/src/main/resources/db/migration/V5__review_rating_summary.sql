@@ -0,0 +1,24 @@
+CREATE TABLE IF NOT EXISTS review_rating_summary (
+    product_id    UUID        PRIMARY KEY REFERENCES product(id) ON DELETE CASCADE,
+    review_count  BIGINT      NOT NULL DEFAULT 0,
+    rating_sum    BIGINT      NOT NULL DEFAULT 0,
+    rating_1      BIGINT      NOT NULL DEFAULT 0,
+    rating_2      BIGINT      NOT NULL DEFAULT 0,
+    rating_3      BIGINT      NOT NULL DEFAULT 0,
+    rating_4      BIGINT      NOT NULL DEFAULT 0,
+    rating_5      BIGINT      NOT NULL DEFAULT 0,
+    updated_at    TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+INSERT INTO review_rating_summary (product_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5)
+SELECT product_id,
+       COUNT(*),
+       SUM(rating),
+       COUNT(*) FILTER (WHERE rating = 1),
+       COUNT(*) FILTER (WHERE rating = 2),
+       COUNT(*) FILTER (WHERE rating = 3),
+       COUNT(*) FILTER (WHERE rating = 4),
+       COUNT(*) FILTER (WHERE rating = 5)
+FROM review
+GROUP BY product_id
+ON CONFLICT (product_id) DO NOTHING;
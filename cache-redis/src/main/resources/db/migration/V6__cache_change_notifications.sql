@@ -0,0 +1,53 @@
+CREATE OR REPLACE FUNCTION notify_cache_change() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    new_key TEXT;
+    old_key TEXT;
+BEGIN
+    IF TG_OP <> 'DELETE' THEN
+        SELECT string_agg(to_jsonb(NEW) ->> k.column_name, ':' ORDER BY k.position)
+        INTO new_key
+        FROM unnest(TG_ARGV) WITH ORDINALITY AS k(column_name, position);
+        PERFORM pg_notify('cache_changes', TG_TABLE_NAME || '|' || left(TG_OP, 1) || '|' || new_key);
+    END IF;
+    IF TG_OP <> 'INSERT' THEN
+        SELECT string_agg(to_jsonb(OLD) ->> k.column_name, ':' ORDER BY k.position)
+        INTO old_key
+        FROM unnest(TG_ARGV) WITH ORDINALITY AS k(column_name, position);
+        IF old_key IS DISTINCT FROM new_key THEN
+            PERFORM pg_notify('cache_changes', TG_TABLE_NAME || '|' || left(TG_OP, 1) || '|' || old_key);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_category_cache_change ON category;
+CREATE TRIGGER trg_category_cache_change
+    AFTER INSERT OR UPDATE OR DELETE ON category
+    FOR EACH ROW EXECUTE FUNCTION notify_cache_change('id', 'slug');
+
+DROP TRIGGER IF EXISTS trg_product_cache_change ON product;
+CREATE TRIGGER trg_product_cache_change
+    AFTER INSERT OR UPDATE OR DELETE ON product
+    FOR EACH ROW EXECUTE FUNCTION notify_cache_change('id');
+
+DROP TRIGGER IF EXISTS trg_product_price_cache_change ON product_price;
+CREATE TRIGGER trg_product_price_cache_change
+    AFTER INSERT OR UPDATE OR DELETE ON product_price
+    FOR EACH ROW EXECUTE FUNCTION notify_cache_change('product_id', 'currency');
+
+DROP TRIGGER IF EXISTS trg_inventory_cache_change ON inventory;
+CREATE TRIGGER trg_inventory_cache_change
+    AFTER INSERT OR UPDATE OR DELETE ON inventory
+    FOR EACH ROW EXECUTE FUNCTION notify_cache_change('product_id', 'warehouse_id');
+
+DROP TRIGGER IF EXISTS trg_product_availability_cache_change ON product_availability;
+CREATE TRIGGER trg_product_availability_cache_change
+    AFTER INSERT OR UPDATE OR DELETE ON product_availability
+    FOR EACH ROW EXECUTE FUNCTION notify_cache_change('product_id');
+
+DROP TRIGGER IF EXISTS trg_review_rating_summary_cache_change ON review_rating_summary;
+CREATE TRIGGER trg_review_rating_summary_cache_change
+    AFTER INSERT OR UPDATE OR DELETE ON review_rating_summary
+    FOR EACH ROW EXECUTE FUNCTION notify_cache_change('product_id');
@@ -0,0 +1,4 @@
+DROP TRIGGER IF EXISTS trg_review_cache_change ON review;
+CREATE TRIGGER trg_review_cache_change
+    AFTER INSERT OR UPDATE OR DELETE ON review
+    FOR EACH ROW EXECUTE FUNCTION notify_cache_change('product_id');
@@ -0,0 +1,278 @@
+package com.fersko.cacheredis.cache;
+
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoLevelCacheTest {
+
+    private static final String CATEGORIES = "categories";
+    private static final String PRODUCTS = "products";
+    private static final String PRICES = "prices";
+    private static final UUID FIRST_CATEGORY = new UUID(1, 1);
+    private static final UUID SECOND_CATEGORY = new UUID(1, 2);
+
+    private final ConcurrentMapCacheManager local = new ConcurrentMapCacheManager();
+    private final ConcurrentMapCacheManager remote = new ConcurrentMapCacheManager();
+    private final RecordingPublisher publisher = new RecordingPublisher();
+    private final FakeLoadLock loadLock = new FakeLoadLock();
+    private final InMemoryBulkOperations bulkOperations = new InMemoryBulkOperations(remote);
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdownCallers() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesCallLoaderOnce() throws Exception {
+        TwoLevelCache cache = manager(CacheLoadPolicy.singleFlightOnly()).getCache(CATEGORIES);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<CategoryDto>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> cache.get(FIRST_CATEGORY, () -> {
+                loads.incrementAndGet();
+                release.await();
+                return category(FIRST_CATEGORY);
+            })));
+        }
+        // отпускаем загрузку, только когда все остальные вызовы встали в ожидание её результата
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.getLoadStatistics().snapshot().coalescedLoads() < 7 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        for (Future<CategoryDto> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(category(FIRST_CATEGORY));
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(cache.getLoadStatistics().snapshot().coalescedLoads()).isEqualTo(7);
+    }
+
+    @Test
+    void leaseHeldByAnotherNodeServesStaleValue() {
+        CacheLoadPolicy policy = CacheLoadPolicy.distributed(Duration.ofSeconds(5), Duration.ofSeconds(5))
+                .withStaleFallback(Duration.ofMinutes(1));
+        TwoLevelCache cache = manager(policy).getCache(CATEGORIES);
+        String cacheKey = FIRST_CATEGORY.toString();
+        cache.put(FIRST_CATEGORY, category(FIRST_CATEGORY));
+        // запись истекла на обоих уровнях, пока другой узел держит lease на её пересчёт
+        local.getCache(CATEGORIES).evict(cacheKey);
+        remote.getCache(CATEGORIES).evict(cacheKey);
+        loadLock.heldElsewhere.add(DistributedLoadLock.lockKey(CATEGORIES, cacheKey));
+        AtomicInteger loads = new AtomicInteger();
+
+        CategoryDto value = cache.get(FIRST_CATEGORY, () -> {
+            loads.incrementAndGet();
+            return new CategoryDto(FIRST_CATEGORY, "reloaded", "reloaded", null);
+        });
+
+        assertThat(value).isEqualTo(category(FIRST_CATEGORY));
+        assertThat(loads).hasValue(0);
+        assertThat(cache.getLoadStatistics().snapshot().lockContended()).isEqualTo(1);
+        assertThat(cache.getLoadStatistics().snapshot().staleServed()).isEqualTo(1);
+    }
+
+    @Test
+    void putWritesBothLevelsAndPublishesEvict() {
+        TwoLevelCache cache = manager(CacheLoadPolicy.singleFlightOnly()).getCache(CATEGORIES);
+        String cacheKey = FIRST_CATEGORY.toString();
+
+        cache.put(FIRST_CATEGORY, category(FIRST_CATEGORY));
+
+        assertThat(publisher.evictions).containsExactly(CATEGORIES + "::" + cacheKey);
+        assertThat(cache.lookupLocal(cacheKey).value()).isEqualTo(category(FIRST_CATEGORY));
+        Cache.ValueWrapper stored = remote.getCache(CATEGORIES).get(cacheKey);
+        assertThat(stored).isNotNull();
+        assertThat(CacheEnvelope.wrap(stored.get()).value()).isEqualTo(category(FIRST_CATEGORY));
+        assertThat(bulkOperations.members(CatalogCacheTags.category(FIRST_CATEGORY)))
+                .containsExactly(CATEGORIES + "::" + cacheKey);
+    }
+
+    @Test
+    void evictByTagsRemovesOnlyTaggedKeys() {
+        TwoLevelCacheManager manager = manager(CacheLoadPolicy.singleFlightOnly());
+        ProductDto tagged = product(new UUID(2, 1), FIRST_CATEGORY);
+        ProductDto untagged = product(new UUID(2, 2), SECOND_CATEGORY);
+        manager.getCache(CATEGORIES).put(FIRST_CATEGORY, category(FIRST_CATEGORY));
+        manager.getCache(CATEGORIES).put(SECOND_CATEGORY, category(SECOND_CATEGORY));
+        manager.getCache(PRODUCTS).put(tagged.id(), tagged);
+        manager.getCache(PRODUCTS).put(untagged.id(), untagged);
+        publisher.evictions.clear();
+
+        manager.evictByTags(List.of(CatalogCacheTags.category(FIRST_CATEGORY)));
+
+        assertThat(storedOnBothLevels(CATEGORIES, FIRST_CATEGORY)).isFalse();
+        assertThat(storedOnBothLevels(PRODUCTS, tagged.id())).isFalse();
+        assertThat(storedOnBothLevels(CATEGORIES, SECOND_CATEGORY)).isTrue();
+        assertThat(storedOnBothLevels(PRODUCTS, untagged.id())).isTrue();
+        assertThat(publisher.evictions).containsExactlyInAnyOrder(
+                CATEGORIES + "::" + FIRST_CATEGORY, PRODUCTS + "::" + tagged.id());
+        assertThat(bulkOperations.members(CatalogCacheTags.category(FIRST_CATEGORY))).isEmpty();
+    }
+
+    @Test
+    void evictByTagsClearsTaggedCachesWhenTagsAreUnavailable() {
+        TwoLevelCacheManager manager = manager(CacheLoadPolicy.singleFlightOnly());
+        manager.getCache(CATEGORIES).put(SECOND_CATEGORY, category(SECOND_CATEGORY));
+        manager.getCache(PRICES).put("USD", "1.00");
+        bulkOperations.failing = true;
+
+        manager.evictByTags(List.of(CatalogCacheTags.category(FIRST_CATEGORY)));
+
+        assertThat(storedOnBothLevels(CATEGORIES, SECOND_CATEGORY)).isFalse();
+        assertThat(storedOnBothLevels(PRICES, "USD")).isTrue();
+        assertThat(publisher.clears).containsExactlyInAnyOrder(CATEGORIES, PRODUCTS, "searchResults");
+    }
+
+    private TwoLevelCacheManager manager(CacheLoadPolicy loadPolicy) {
+        return new TwoLevelCacheManager(local, remote, publisher, loadLock, bulkOperations, new CatalogCacheTags(),
+                Map.of(CATEGORIES, loadPolicy), Map.of(), CacheExpiryPolicy.fixed(Duration.ofMinutes(10)),
+                Runnable::run, new SimpleMeterRegistry());
+    }
+
+    private boolean storedOnBothLevels(String cacheName, Object key) {
+        String cacheKey = TwoLevelCache.toCacheKey(key);
+        boolean inLocal = local.getCache(cacheName).get(cacheKey) != null;
+        boolean inRemote = remote.getCache(cacheName).get(cacheKey) != null;
+        assertThat(inLocal).as("L1 и L2 для %s::%s", cacheName, cacheKey).isEqualTo(inRemote);
+        return inLocal;
+    }
+
+    private static CategoryDto category(UUID id) {
+        return new CategoryDto(id, "Category " + id, "category-" + id, null);
+    }
+
+    private static ProductDto product(UUID id, UUID categoryId) {
+        return new ProductDto(id, "SKU-" + id, "Product " + id, null, categoryId, "Category " + categoryId, null);
+    }
+
+    private static final class RecordingPublisher extends CacheInvalidationPublisher {
+
+        final List<String> evictions = new CopyOnWriteArrayList<>();
+        final List<String> clears = new CopyOnWriteArrayList<>();
+
+        RecordingPublisher() {
+            super(null, null);
+        }
+
+        @Override
+        public void publishEvict(String cacheName, String key) {
+            evictions.add(cacheName + "::" + key);
+        }
+
+        @Override
+        public void publishClear(String cacheName) {
+            clears.add(cacheName);
+        }
+    }
+
+    private static final class FakeLoadLock extends DistributedLoadLock {
+
+        final Set<String> heldElsewhere = ConcurrentHashMap.newKeySet();
+
+        FakeLoadLock() {
+            super(null);
+        }
+
+        @Override
+        public String tryAcquire(String lockKey, Duration leaseTime) {
+            return heldElsewhere.contains(lockKey) ? null : UUID.randomUUID().toString();
+        }
+
+        @Override
+        public void release(String lockKey, String token) {
+        }
+    }
+
+    private static final class InMemoryBulkOperations extends RedisCacheBulkOperations {
+
+        private final ConcurrentMapCacheManager remote;
+        private final Map<String, Set<String>> tags = new ConcurrentHashMap<>();
+        volatile boolean failing;
+
+        InMemoryBulkOperations(ConcurrentMapCacheManager remote) {
+            super(null, null);
+            this.remote = remote;
+        }
+
+        @Override
+        public void putAll(String cacheName, Map<String, ?> values, Function<Object, Duration> timeToLive) {
+            values.forEach(remote.getCache(cacheName)::put);
+        }
+
+        @Override
+        public Map<String, Object> getAll(String cacheName, List<String> keys) {
+            Map<String, Object> values = new HashMap<>();
+            for (String key : keys) {
+                Cache.ValueWrapper stored = remote.getCache(cacheName).get(key);
+                if (stored != null) {
+                    values.put(key, stored.get());
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public void deleteAll(String cacheName, Collection<String> keys) {
+            keys.forEach(remote.getCache(cacheName)::evict);
+        }
+
+        @Override
+        public void addTags(String cacheName, Map<String, Set<String>> tagsByKey, Duration timeToLive) {
+            tagsByKey.forEach((key, keyTags) -> keyTags.forEach(tag -> tags
+                    .computeIfAbsent(tag, ignored -> ConcurrentHashMap.newKeySet())
+                    .add(redisKey(cacheName, key))));
+        }
+
+        @Override
+        public Map<String, Set<String>> drainTags(Collection<String> drained) {
+            if (failing) {
+                throw new QueryTimeoutException("Redis is unavailable");
+            }
+            Map<String, Set<String>> keysByCache = new HashMap<>();
+            for (String tag : drained) {
+                for (String member : tags.getOrDefault(tag, Set.of())) {
+                    int separator = member.indexOf("::");
+                    keysByCache.computeIfAbsent(member.substring(0, separator), name -> new HashSet<>())
+                            .add(member.substring(separator + 2));
+                }
+                tags.remove(tag);
+            }
+            return keysByCache;
+        }
+
+        Set<String> members(String tag) {
+            return tags.getOrDefault(tag, Set.of());
+        }
+    }
+}
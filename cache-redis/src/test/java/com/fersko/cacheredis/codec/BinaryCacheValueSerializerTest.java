@@ -0,0 +1,183 @@
+package com.fersko.cacheredis.codec;
+
+import com.fersko.cacheredis.cache.CacheEnvelope;
+import com.fersko.cacheredis.dto.CategoryDto;
+import com.fersko.cacheredis.dto.InventoryDto;
+import com.fersko.cacheredis.dto.ProductAvailabilityDto;
+import com.fersko.cacheredis.dto.ProductDto;
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import com.fersko.cacheredis.dto.RatingSummaryDto;
+import com.fersko.cacheredis.dto.ReviewDto;
+import com.fersko.cacheredis.dto.WarmUpProgressDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryCacheValueSerializerTest {
+
+    private static final UUID PRODUCT = new UUID(1, 1);
+    private static final UUID CATEGORY = new UUID(2, 1);
+    private static final OffsetDateTime UPDATED_AT = OffsetDateTime.of(2026, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private final BinaryCacheValueSerializer binary = CacheValueSerializers.binary(512);
+    private final RedisSerializer<Object> json = CacheValueSerializers.json();
+
+    static Stream<Object> cachedValues() {
+        return Stream.of(
+                new CategoryDto(CATEGORY, "Электроника", "electronics", UPDATED_AT),
+                product(1),
+                new ProductPriceDto(PRODUCT, "USD", new BigDecimal("19.90"), UPDATED_AT),
+                new InventoryDto(PRODUCT, 42L, 7, UPDATED_AT),
+                new ReviewDto(new UUID(3, 1), PRODUCT, (short) 5, "Отлично", UPDATED_AT),
+                new ProductAvailabilityDto(PRODUCT, 120L, 3, UPDATED_AT),
+                ratingSummary(),
+                RatingSummaryDto.empty(PRODUCT),
+                new ArrayList<>(List.of(product(1), product(2)))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("cachedValues")
+    void cachedValueRoundTripsThroughBinaryCodec(Object value) {
+        assertThat(roundTrip(binary, value)).isEqualTo(value);
+    }
+
+    @ParameterizedTest
+    @MethodSource("cachedValues")
+    void cachedValueRoundTripsThroughJsonCodec(Object value) {
+        assertThat(roundTrip(json, value)).isEqualTo(value);
+    }
+
+    @Test
+    void immutableListIsStoredAsRestorableList() {
+        List<ProductDto> products = List.of(product(1), product(2));
+
+        assertThat(roundTrip(binary, products)).isEqualTo(products);
+        assertThat(roundTrip(json, products)).isEqualTo(products);
+    }
+
+    @Test
+    void scalarsKeepTypeAndBoundaryValues() {
+        Map<Object, Object> values = new LinkedHashMap<>();
+        values.put("minLong", Long.MIN_VALUE);
+        values.put("maxLong", Long.MAX_VALUE);
+        values.put("negativeInt", -1);
+        values.put("maxInt", Integer.MAX_VALUE);
+        values.put("short", (short) -300);
+        values.put("double", -0.5);
+        values.put("true", true);
+        values.put("null", null);
+        values.put("decimal", new BigDecimal("-12345678901234567890.001"));
+        values.put("offsetDateTime", OffsetDateTime.of(2026, 3, 1, 9, 30, 15, 123_456_789, ZoneOffset.ofHours(3)));
+        values.put("instant", Instant.ofEpochSecond(-1, 5));
+        values.put("localDateTime", LocalDateTime.of(1970, 1, 1, 0, 0, 0, 1));
+        values.put("set", new LinkedHashSet<>(List.of("b", "a")));
+        values.put(7L, "нелатинская строка");
+
+        Object restored = binary.deserialize(binary.serialize(values));
+
+        assertThat(restored).isEqualTo(values);
+        assertThat(((Map<?, ?>) restored).get("short")).isInstanceOf(Short.class);
+        assertThat(((Map<?, ?>) restored).keySet()).containsExactlyElementsOf(values.keySet());
+    }
+
+    @Test
+    void smallValueIsNotCompressed() {
+        byte[] bytes = binary.serialize(product(1));
+
+        assertThat(bytes[0] & 0xFF).isEqualTo(BinaryCacheValueSerializer.MAGIC);
+        assertThat(bytes[1] & BinaryCacheValueSerializer.FLAG_LZ4).isZero();
+    }
+
+    @Test
+    void largeValueIsCompressedAndRoundTrips() {
+        List<ProductDto> products = IntStream.range(0, 200).mapToObj(BinaryCacheValueSerializerTest::product)
+                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+
+        byte[] bytes = binary.serialize(products);
+
+        assertThat(bytes[1] & BinaryCacheValueSerializer.FLAG_LZ4).isEqualTo(BinaryCacheValueSerializer.FLAG_LZ4);
+        assertThat(bytes[1] >>> 4).isEqualTo(BinaryCacheValueSerializer.FORMAT_VERSION);
+        assertThat(binary.deserialize(bytes)).isEqualTo(products);
+    }
+
+    @Test
+    void unregisteredTypeGoesThroughJsonFallback() {
+        Map<String, Long> entries = new LinkedHashMap<>();
+        entries.put("categories", 10L);
+        WarmUpProgressDto progress = new WarmUpProgressDto("DONE", UPDATED_AT, UPDATED_AT, entries, 10, 2.5, null);
+
+        assertThat(roundTrip(binary, progress)).isEqualTo(progress);
+    }
+
+    @Test
+    void valueWrittenByJsonCodecIsStillReadable() {
+        CategoryDto category = new CategoryDto(CATEGORY, "Книги", "books", UPDATED_AT);
+
+        Object restored = binary.deserialize(json.serialize(CacheEnvelope.of(category, 1, 2)));
+
+        assertThat(restored).isEqualTo(new CacheEnvelope(category, 1, 2));
+    }
+
+    @Test
+    void emptyOrNullBytesAreNull() {
+        assertThat(binary.serialize(null)).isEmpty();
+        assertThat(binary.deserialize(new byte[0])).isNull();
+        assertThat(binary.deserialize(null)).isNull();
+    }
+
+    @Test
+    void newerFormatVersionIsRejected() {
+        byte[] bytes = binary.serialize(product(1));
+        bytes[1] = (byte) ((BinaryCacheValueSerializer.FORMAT_VERSION + 1) << 4);
+
+        assertThatThrownBy(() -> binary.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void truncatedValueIsRejected() {
+        byte[] bytes = binary.serialize(product(1));
+
+        assertThatThrownBy(() -> binary.deserialize(Arrays.copyOf(bytes, bytes.length - 3)))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private static ProductDto product(int number) {
+        return new ProductDto(new UUID(1, number), "SKU-" + number, "Товар " + number, "Описание товара " + number,
+                CATEGORY, "Электроника", UPDATED_AT);
+    }
+
+    private static RatingSummaryDto ratingSummary() {
+        return new RatingSummaryDto(PRODUCT, 6L, 22L, 22 / 6.0, RatingSummaryDto.histogram(0, 1, 1, 1, 3), UPDATED_AT);
+    }
+
+    private static Object roundTrip(RedisSerializer<Object> serializer, Object value) {
+        CacheEnvelope stored = CacheEnvelope.of(value, 5, 1_000);
+        Object restored = serializer.deserialize(serializer.serialize(stored));
+        assertThat(restored).isInstanceOf(CacheEnvelope.class);
+        CacheEnvelope envelope = (CacheEnvelope) restored;
+        assertThat(envelope.loadMillis()).isEqualTo(5);
+        assertThat(envelope.expiresAtMillis()).isEqualTo(1_000);
+        return envelope.value();
+    }
+}
@@ -0,0 +1,76 @@
+package com.fersko.cacheredis.lookup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void hasNoFalseNegativesAcrossStages() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        String[] values = new String[5_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = UUID.nameUUIDFromBytes(("product-" + i).getBytes()).toString();
+            filter.add(values[i]);
+        }
+
+        for (String value : values) {
+            assertThat(filter.mightContain(value)).as(value).isTrue();
+        }
+    }
+
+    @Test
+    void growsANewStageWhenTheLastOneIsFull() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(10, 0.01);
+        assertThat(filter.stageCount()).isEqualTo(1);
+
+        for (int i = 0; i < 10; i++) {
+            filter.add("sku-" + i);
+        }
+        long sizeBeforeGrowth = filter.sizeInBytes();
+        for (int i = 10; i < 40; i++) {
+            filter.add("sku-" + i);
+        }
+
+        assertThat(filter.stageCount()).isGreaterThan(1);
+        assertThat(filter.sizeInBytes()).isGreaterThan(sizeBeforeGrowth);
+    }
+
+    @Test
+    void doesNotCountRepeatedValues() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(10, 0.01);
+        for (int i = 0; i < 100; i++) {
+            filter.add("same-slug");
+        }
+
+        assertThat(filter.insertions()).isEqualTo(1);
+        assertThat(filter.stageCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsFalsePositiveRateNearTarget() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            filter.add("present-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 20_000; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives / 20_000.0).isLessThan(0.03);
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThatThrownBy(() -> new ScalableBloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ScalableBloomFilter(10, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
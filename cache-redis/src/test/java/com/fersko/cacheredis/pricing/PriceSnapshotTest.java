@@ -0,0 +1,100 @@
+package com.fersko.cacheredis.pricing;
+
+import com.fersko.cacheredis.dto.ProductPriceDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceSnapshotTest {
+
+    private static final UUID FIRST = new UUID(1, 1);
+    private static final UUID SECOND = new UUID(1, 2);
+    private static final UUID THIRD = new UUID(2, 1);
+    private static final OffsetDateTime UPDATED_AT = OffsetDateTime.of(2026, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    void upsertsAndRemovesKeepProductOrder() {
+        PriceSnapshot snapshot = PriceSnapshot.of("USD", List.of(price(THIRD, "3.00"), price(FIRST, "1.00")), 1);
+
+        PriceSnapshot next = snapshot.apply(List.of(price(SECOND, "2.00"), price(THIRD, "3.50")), Set.of(FIRST), 2);
+
+        assertThat(next.version()).isEqualTo(2);
+        assertThat(next.size()).isEqualTo(2);
+        assertThat(next.indexOf(FIRST)).isEqualTo(-1);
+        assertThat(amount(next, SECOND)).isEqualTo("2.00");
+        assertThat(amount(next, THIRD)).isEqualTo("3.50");
+        assertThat(next.priceAt(0).productId()).isEqualTo(SECOND);
+        assertThat(next.priceAt(1).productId()).isEqualTo(THIRD);
+    }
+
+    @Test
+    void upsertWinsOverRemovalOfTheSameProduct() {
+        PriceSnapshot snapshot = PriceSnapshot.of("USD", List.of(price(FIRST, "1.00"), price(SECOND, "2.00")), 1);
+
+        PriceSnapshot next = snapshot.apply(List.of(price(FIRST, "1.25")), Set.of(FIRST), 2);
+
+        assertThat(next.size()).isEqualTo(2);
+        assertThat(amount(next, FIRST)).isEqualTo("1.25");
+        assertThat(amount(next, SECOND)).isEqualTo("2.00");
+    }
+
+    @Test
+    void removalOfAbsentProductIsIgnored() {
+        PriceSnapshot snapshot = PriceSnapshot.of("USD", List.of(price(FIRST, "1.00")), 1);
+
+        PriceSnapshot next = snapshot.apply(List.of(), Set.of(SECOND), 2);
+
+        assertThat(next.size()).isEqualTo(1);
+        assertThat(amount(next, FIRST)).isEqualTo("1.00");
+    }
+
+    @Test
+    void duplicateUpsertsKeepTheLastPrice() {
+        PriceSnapshot snapshot = PriceSnapshot.of("USD", List.of(price(FIRST, "1.00")), 1);
+
+        PriceSnapshot next = snapshot.apply(
+                List.of(price(SECOND, "2.00"), price(FIRST, "1.10"), price(SECOND, "2.20"), price(FIRST, "1.20")),
+                Set.of(), 2);
+
+        assertThat(next.size()).isEqualTo(2);
+        assertThat(amount(next, FIRST)).isEqualTo("1.20");
+        assertThat(amount(next, SECOND)).isEqualTo("2.20");
+    }
+
+    @Test
+    void removingEveryProductLeavesAnEmptySnapshot() {
+        PriceSnapshot snapshot = PriceSnapshot.of("USD", List.of(price(FIRST, "1.00"), price(SECOND, "2.00")), 1);
+
+        PriceSnapshot next = snapshot.apply(List.of(), Set.of(FIRST, SECOND), 2);
+
+        assertThat(next.size()).isZero();
+        assertThat(next.indexOf(FIRST)).isEqualTo(-1);
+    }
+
+    @Test
+    void keepsTimestampsAndRoundsAmountsToMinorUnits() {
+        PriceSnapshot snapshot = PriceSnapshot.of("USD", List.of(), 1);
+
+        PriceSnapshot next = snapshot.apply(List.of(price(FIRST, "1.005"),
+                new ProductPriceDto(SECOND, "USD", new BigDecimal("2"), null)), Set.of(), 2);
+
+        assertThat(amount(next, FIRST)).isEqualTo("1.01");
+        assertThat(next.priceAt(next.indexOf(FIRST)).updatedAt()).isEqualTo(UPDATED_AT);
+        assertThat(next.priceAt(next.indexOf(SECOND)).updatedAt()).isNull();
+    }
+
+    private static ProductPriceDto price(UUID productId, String amount) {
+        return new ProductPriceDto(productId, "USD", new BigDecimal(amount), UPDATED_AT);
+    }
+
+    private static String amount(PriceSnapshot snapshot, UUID productId) {
+        return snapshot.priceAt(snapshot.indexOf(productId)).amount().toPlainString();
+    }
+}
@@ -0,0 +1,82 @@
+package com.fersko.cacheredis.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PostingListTest {
+
+    @Test
+    void ignoresDuplicateDocIds() {
+        PostingList list = new PostingList();
+        list.add(3);
+        list.add(3);
+        list.add(7);
+        list.add(7);
+
+        assertThat(list.size()).isEqualTo(2);
+        assertThat(docIds(list)).containsExactly(3, 7);
+    }
+
+    @Test
+    void rejectsDocIdsOutOfOrder() {
+        PostingList list = new PostingList();
+        list.add(5);
+
+        assertThatThrownBy(() -> list.add(4)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decodesLargeGapsAcrossVarintBytes() {
+        PostingList list = new PostingList();
+        List<Integer> expected = List.of(0, 127, 128, 16_511, 2_113_664, Integer.MAX_VALUE);
+        expected.forEach(list::add);
+        list.trim();
+
+        assertThat(docIds(list)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void advancesToFirstDocIdAtOrAfterTarget() {
+        PostingList list = new PostingList();
+        List.of(2, 4, 9, 15).forEach(list::add);
+        PostingList.Cursor cursor = list.cursor();
+
+        assertThat(cursor.advance(0)).isEqualTo(2);
+        assertThat(cursor.advance(2)).isEqualTo(2);
+        assertThat(cursor.advance(5)).isEqualTo(9);
+        assertThat(cursor.advance(15)).isEqualTo(15);
+    }
+
+    @Test
+    void advancePastTheEndIsExhausted() {
+        PostingList list = new PostingList();
+        List.of(1, 10).forEach(list::add);
+        PostingList.Cursor cursor = list.cursor();
+
+        assertThat(cursor.advance(11)).isEqualTo(-1);
+        assertThat(cursor.advance(0)).isEqualTo(-1);
+        assertThat(cursor.next()).isEqualTo(-1);
+    }
+
+    @Test
+    void emptyListHasNoDocIds() {
+        PostingList list = new PostingList();
+
+        assertThat(list.size()).isZero();
+        assertThat(list.cursor().advance(0)).isEqualTo(-1);
+    }
+
+    private static List<Integer> docIds(PostingList list) {
+        List<Integer> docIds = new ArrayList<>();
+        PostingList.Cursor cursor = list.cursor();
+        for (int docId = cursor.next(); docId != -1; docId = cursor.next()) {
+            docIds.add(docId);
+        }
+        return docIds;
+    }
+}
@@ -0,0 +1,169 @@
+package com.fersko.cacheredis.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fersko.cacheredis.config.WriteBehindProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindEngineTest {
+
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(100);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void stopFlushesPendingRecordsAndCheckpointsJournal() {
+        RecordingTarget target = new RecordingTarget(null);
+        WriteBehindEngine engine = engine(target, Duration.ofMinutes(1));
+        engine.start();
+
+        engine.enqueue(RecordingTarget.NAME, new Note("1", "first"));
+        engine.enqueue(RecordingTarget.NAME, new Note("2", "second"));
+        engine.enqueue(RecordingTarget.NAME, new Note("1", "third"));
+        engine.stop();
+
+        assertThat(target.written).containsExactly(new Note("1", "third"), new Note("2", "second"));
+        assertThat(engine.getStatistics().coalesced()).isEqualTo(1);
+        assertThat(journal().open()).isEmpty();
+    }
+
+    @Test
+    void stopWaitsForFlushStillRunningAfterJoinTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingTarget target = new RecordingTarget(release);
+        WriteBehindEngine engine = engine(target, FLUSH_INTERVAL);
+        engine.start();
+
+        engine.enqueue(RecordingTarget.NAME, new Note("1", "in flight"));
+        assertThat(target.firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        engine.enqueue(RecordingTarget.NAME, new Note("2", "pending"));
+
+        CompletableFuture<Void> stopped = CompletableFuture.runAsync(engine::stop);
+        // join в stop() ждёт flushInterval * 10, пакет отпускается уже после этого таймаута
+        Thread.sleep(FLUSH_INTERVAL.toMillis() * 15);
+        assertThat(stopped).isNotDone();
+        release.countDown();
+        stopped.get(5, TimeUnit.SECONDS);
+
+        assertThat(target.maxActive).hasValue(1);
+        assertThat(target.written).containsExactly(new Note("1", "in flight"), new Note("2", "pending"));
+        assertThat(journal().open()).isEmpty();
+    }
+
+    @Test
+    void failedRecordsStayInJournalAfterStop() {
+        RecordingTarget target = new RecordingTarget(null);
+        target.failing = true;
+        WriteBehindEngine engine = engine(target, Duration.ofMinutes(1));
+        engine.start();
+
+        engine.enqueue(RecordingTarget.NAME, new Note("1", "unwritten"));
+        engine.stop();
+
+        assertThat(target.written).isEmpty();
+        assertThat(journal().open()).extracting(WriteBehindRecord::key).containsExactly("1");
+    }
+
+    private WriteBehindEngine engine(RecordingTarget target, Duration flushInterval) {
+        WriteBehindProperties properties = new WriteBehindProperties(directory, 100, 10, flushInterval,
+                Duration.ofSeconds(1), Duration.ofMillis(50), false, DataSize.ofMegabytes(1));
+        return new WriteBehindEngine(List.of(target), properties, objectMapper, new NoTransactions());
+    }
+
+    private WriteBehindJournal journal() {
+        return new WriteBehindJournal(directory, DataSize.ofMegabytes(1).toBytes(), false, objectMapper);
+    }
+
+    record Note(String id, String text) {
+    }
+
+    private static final class RecordingTarget implements WriteBehindTarget<Note> {
+
+        static final String NAME = "notes";
+
+        final List<Note> written = new CopyOnWriteArrayList<>();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstBatch;
+        volatile boolean failing;
+
+        RecordingTarget(CountDownLatch releaseFirstBatch) {
+            this.releaseFirstBatch = releaseFirstBatch;
+        }
+
+        @Override
+        public String name() {
+            return NAME;
+        }
+
+        @Override
+        public Class<Note> valueType() {
+            return Note.class;
+        }
+
+        @Override
+        public String keyOf(Note note) {
+            return note.id();
+        }
+
+        @Override
+        public void writeBatch(List<Note> notes) {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                if (failing) {
+                    throw new IllegalStateException("database is down");
+                }
+                if (releaseFirstBatch != null && firstBatchStarted.getCount() > 0) {
+                    firstBatchStarted.countDown();
+                    releaseFirstBatch.await();
+                }
+                written.addAll(notes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void evictCached(Note note) {
+        }
+    }
+
+    private static final class NoTransactions implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.fersko.cacheredis.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindJournalTest {
+
+    private static final long SEGMENT_SIZE = 1024 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedRecordsAreReplayedAfterCrash() throws IOException {
+        WriteBehindJournal journal = open(SEGMENT_SIZE);
+        assertThat(journal.open()).isEmpty();
+        journal.append(record("1", "first"));
+        journal.append(record("2", "second"));
+        journal.append(record("1", "third"));
+        journal.close();
+
+        assertThat(open(SEGMENT_SIZE).open())
+                .containsExactly(record("1", "first"), record("2", "second"), record("1", "third"));
+    }
+
+    @Test
+    void checkpointSkipsRecordsWrittenBeforeIt() throws IOException {
+        WriteBehindJournal journal = open(SEGMENT_SIZE);
+        journal.open();
+        journal.append(record("1", "flushed"));
+        journal.append(record("2", "flushed"));
+        WriteBehindJournal.Position checkpoint = journal.position();
+        journal.append(record("3", "pending"));
+        journal.checkpoint(checkpoint);
+        journal.close();
+
+        assertThat(open(SEGMENT_SIZE).open()).containsExactly(record("3", "pending"));
+    }
+
+    @Test
+    void recordsRequeuedAfterFailureSurviveCheckpoint() throws IOException {
+        WriteBehindJournal journal = open(SEGMENT_SIZE);
+        journal.open();
+        journal.append(record("1", "failed"));
+        WriteBehindJournal.Position checkpoint = journal.position();
+        journal.appendAll(List.of(record("1", "failed")));
+        journal.checkpoint(checkpoint);
+        journal.close();
+
+        assertThat(open(SEGMENT_SIZE).open()).containsExactly(record("1", "failed"));
+    }
+
+    @Test
+    void tornTailIsSkippedAndNeverAppendedTo() throws IOException {
+        WriteBehindJournal journal = open(SEGMENT_SIZE);
+        journal.open();
+        journal.append(record("1", "complete"));
+        journal.close();
+        Path segment = segments().getFirst();
+        Files.writeString(segment, "{\"target\":\"categories\",\"ke", StandardOpenOption.APPEND);
+
+        WriteBehindJournal restarted = open(SEGMENT_SIZE);
+        assertThat(restarted.open()).containsExactly(record("1", "complete"));
+        restarted.append(record("2", "after restart"));
+        restarted.close();
+
+        assertThat(open(SEGMENT_SIZE).open())
+                .containsExactly(record("1", "complete"), record("2", "after restart"));
+    }
+
+    @Test
+    void checkpointDeletesSegmentsBeforeIt() throws IOException {
+        WriteBehindJournal journal = open(1);
+        journal.open();
+        journal.append(record("1", "a"));
+        journal.append(record("2", "b"));
+        journal.append(record("3", "c"));
+        assertThat(segments()).hasSize(3);
+
+        journal.checkpoint(journal.position());
+        journal.close();
+
+        assertThat(segments()).hasSize(1);
+        assertThat(open(1).open()).isEmpty();
+    }
+
+    @Test
+    void restartAfterCheckpointKeepsReplayingNewSegments() throws IOException {
+        WriteBehindJournal journal = open(SEGMENT_SIZE);
+        journal.open();
+        journal.append(record("1", "flushed"));
+        journal.checkpoint(journal.position());
+        journal.close();
+        Files.delete(segments().getFirst());
+
+        WriteBehindJournal restarted = open(SEGMENT_SIZE);
+        assertThat(restarted.open()).isEmpty();
+        restarted.append(record("2", "pending"));
+        restarted.close();
+
+        assertThat(open(SEGMENT_SIZE).open()).containsExactly(record("2", "pending"));
+    }
+
+    @Test
+    void legacyJournalIsReplayed() throws IOException {
+        Files.writeString(directory.resolve("journal.log"),
+                objectMapper.writeValueAsString(record("1", "legacy")) + "\n", StandardCharsets.UTF_8);
+
+        assertThat(open(SEGMENT_SIZE).open()).containsExactly(record("1", "legacy"));
+        assertThat(directory.resolve("journal.log")).doesNotExist();
+    }
+
+    private WriteBehindJournal open(long segmentSize) {
+        return new WriteBehindJournal(directory, segmentSize, false, objectMapper);
+    }
+
+    private WriteBehindRecord record(String key, String name) {
+        return new WriteBehindRecord("categories", key, objectMapper.createObjectNode().put("name", name));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().matches("journal-\\d+\\.log"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
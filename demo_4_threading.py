@@ -0,0 +1,159 @@
+#!/usr/bin/env python3
+
+import json
+import os
+import sys
+import requests
+import time
+import uuid
+import statistics
+from concurrent.futures import ThreadPoolExecutor
+from typing import Dict, List
+
+BASE_URL = "http://localhost:8080"
+CONCURRENCY_LEVELS = [16, 64, 256]
+REQUESTS_PER_WORKER = 10
+MODES = ["event-loop", "bounded-pool", "virtual-threads"]
+RESULTS_FILE = "threading_results_{mode}.json"
+
+
+def check_api_availability() -> bool:
+    try:
+        response = requests.get(f"{BASE_URL}/api/v1/categories", timeout=5)
+        return response.status_code < 500
+    except requests.exceptions.RequestException:
+        return False
+
+
+def percentile(values: List[float], p: float) -> float:
+    values_sorted = sorted(values)
+    index = min(len(values_sorted) - 1, int(len(values_sorted) * p))
+    return values_sorted[index]
+
+
+def worker(endpoint: str, requests_count: int) -> Dict:
+    session = requests.Session()
+    times_ms = []
+    errors = 0
+    
+    for i in range(requests_count):
+        start = time.time()
+        try:
+            response = session.get(f"{BASE_URL}{endpoint.format(key=uuid.uuid4().hex)}", timeout=60)
+            if response.status_code >= 400:
+                errors += 1
+        except Exception:
+            errors += 1
+        times_ms.append((time.time() - start) * 1000)
+    
+    return {"times_ms": times_ms, "errors": errors}
+
+
+def measure_concurrent(endpoint: str, concurrency: int) -> Dict:
+    total_start = time.time()
+    with ThreadPoolExecutor(max_workers=concurrency) as pool:
+        results = list(pool.map(lambda _: worker(endpoint, REQUESTS_PER_WORKER), range(concurrency)))
+    total_time = time.time() - total_start
+    
+    times_ms = [t for r in results for t in r["times_ms"]]
+    errors = sum(r["errors"] for r in results)
+    
+    return {
+        "endpoint": endpoint,
+        "concurrency": concurrency,
+        "requests": len(times_ms),
+        "errors": errors,
+        "rps": round(len(times_ms) / total_time, 2),
+        "median_time_ms": round(statistics.median(times_ms), 2),
+        "p95_time_ms": round(percentile(times_ms, 0.95), 2),
+        "p99_time_ms": round(percentile(times_ms, 0.99), 2),
+    }
+
+
+def save_results(mode: str, results: List[Dict]):
+    with open(RESULTS_FILE.format(mode=mode), "w", encoding="utf-8") as file:
+        json.dump({"mode": mode, "results": results}, file, ensure_ascii=False, indent=2)
+
+
+def load_results(mode: str) -> List[Dict]:
+    path = RESULTS_FILE.format(mode=mode)
+    if not os.path.exists(path):
+        return []
+    with open(path, encoding="utf-8") as file:
+        return json.load(file)["results"]
+
+
+def print_comparison():
+    by_mode = {mode: load_results(mode) for mode in MODES}
+    missing = [mode for mode, results in by_mode.items() if not results]
+    if missing:
+        print("Для сравнения не хватает прогонов:", ", ".join(missing))
+        return
+    
+    print("=" * 60)
+    print("СРАВНЕНИЕ РЕЖИМОВ (RPS / p99 ms)")
+    print("=" * 60)
+    print(f"{'endpoint':<42} {'conc':>5} " + " ".join(f"{mode:>22}" for mode in MODES))
+    for row in by_mode[MODES[0]]:
+        cells = []
+        for mode in MODES:
+            match = next((r for r in by_mode[mode]
+                          if r["endpoint"] == row["endpoint"] and r["concurrency"] == row["concurrency"]), None)
+            cells.append(f"{match['rps']:>10.2f} / {match['p99_time_ms']:>9.2f}" if match else f"{'-':>22}")
+        print(f"{row['endpoint']:<42} {row['concurrency']:>5} " + " ".join(cells))
+    print()
+
+
+def run_threading_benchmark(mode: str):
+    print("=" * 60)
+    print("THREADING BENCHMARK - Блокирующие обработчики под нагрузкой")
+    print("=" * 60)
+    print()
+    print("Режим выполнения задаётся при старте приложения:")
+    print("  BLOCKING_EXECUTION_MODE=event-loop | bounded-pool | virtual-threads")
+    print("Запустите скрипт для каждого режима при одинаковой конкурентности")
+    print("Текущий прогон записывается как режим:", mode)
+    print()
+    
+    if not check_api_availability():
+        print("[ERROR] API недоступно по адресу", BASE_URL)
+        return
+    
+    endpoints = [
+        "/api/v1/cache-demo/slow-operation/{key}",
+        "/api/v1/categories",
+        "/api/v1/products",
+    ]
+    
+    results = []
+    for endpoint in endpoints:
+        print(f"[TEST] Тестирование: {endpoint}")
+        print("-" * 60)
+        for concurrency in CONCURRENCY_LEVELS:
+            result = measure_concurrent(endpoint, concurrency)
+            results.append(result)
+            print(f"Конкурентность {concurrency:>4}: "
+                  f"{result['rps']:>9.2f} RPS  "
+                  f"median {result['median_time_ms']:>9.2f} ms  "
+                  f"p95 {result['p95_time_ms']:>9.2f} ms  "
+                  f"p99 {result['p99_time_ms']:>9.2f} ms  "
+                  f"ошибок {result['errors']}")
+        print()
+    
+    save_results(mode, results)
+    print_comparison()
+    
+    print("=" * 60)
+    print("ЗАКЛЮЧЕНИЕ:")
+    print("slow-operation уникален на каждый запрос (промах L1), поэтому")
+    print("показывает, сколько Thread.sleep(500) выполняется одновременно.")
+    print("JPA эндпоинты ограничены пулом Hikari и семафором перед ним.")
+    print("=" * 60)
+
+
+if __name__ == "__main__":
+    run_mode = sys.argv[1] if len(sys.argv) > 1 else os.environ.get("BLOCKING_EXECUTION_MODE", "event-loop")
+    if run_mode not in MODES:
+        print("[ERROR] Неизвестный режим:", run_mode, "- ожидается один из", ", ".join(MODES))
+        sys.exit(1)
+    run_threading_benchmark(run_mode)
@@ -7,72 +7,21 @@ from typing import List, Dict
 
 BASE_URL = "http://localhost:8080"
 
-def create_category(name: str, slug: str) -> Dict:
-    response = requests.post(
-        f"{BASE_URL}/api/v1/categories",
-        json={"name": name, "slug": slug},
-        timeout=10
-    )
-    if response.status_code == 201:
-        return response.json()
-    return None
+BATCH_SIZE = 1000
 
-def create_product(name: str, sku: str, description: str, category_id: str) -> Dict:
-    response = requests.post(
-        f"{BASE_URL}/api/v1/products",
-        json={
-            "name": name,
-            "sku": sku,
-            "description": description,
-            "categoryId": category_id
-        },
-        timeout=10
-    )
-    if response.status_code == 201:
-        return response.json()
-    return None
-
-def create_inventory(product_id: str, quantity: int, warehouse_id: int) -> Dict:
-    response = requests.post(
-        f"{BASE_URL}/api/v1/inventory",
-        json={
-            "productId": product_id,
-            "quantity": quantity,
-            "warehouseId": warehouse_id
-        },
-        timeout=10
-    )
-    if response.status_code == 201:
-        return response.json()
-    return None
-
-def create_price(product_id: str, amount: float, currency: str) -> Dict:
-    response = requests.post(
-        f"{BASE_URL}/api/v1/product-prices",
-        json={
-            "productId": product_id,
-            "amount": str(amount),
-            "currency": currency
-        },
-        timeout=10
-    )
-    if response.status_code == 201:
-        return response.json()
-    return None
-
-def create_review(product_id: str, rating: int, text: str) -> Dict:
-    response = requests.post(
-        f"{BASE_URL}/api/v1/reviews",
-        json={
-            "productId": product_id,
-            "rating": rating,
-            "text": text
-        },
-        timeout=10
-    )
-    if response.status_code == 201:
-        return response.json()
-    return None
+def post_batch(path: str, rows: List[Dict]) -> List[Dict]:
+    created = []
+    for offset in range(0, len(rows), BATCH_SIZE):
+        response = requests.post(
+            f"{BASE_URL}{path}/batch",
+            json=rows[offset:offset + BATCH_SIZE],
+            timeout=60
+        )
+        if response.status_code == 201:
+            created.extend(response.json())
+        else:
+            print(f"   Ошибка пакета {path}: HTTP {response.status_code}")
+    return created
 
 def seed_database(num_categories: int = 50, products_per_category: int = 30):
     print("=" * 60)
@@ -103,16 +52,13 @@ def seed_database(num_categories: int = 50, products_per_category: int = 30):
         "Video Games", "Furniture", "Jewelry", "Shoes", "Accessories"
     ]
     
-    for i in range(num_categories):
-        name = category_names[i % len(category_names)] + f" {i+1}"
-        slug = f"category-{i+1}"
-        
-        category = create_category(name, slug)
-        if category:
-            category_ids.append(category['id'])
-            categories_created += 1
-            if (i + 1) % 5 == 0:
-                print(f"   Создано категорий: {categories_created}/{num_categories}")
+    category_rows = [
+        {"name": category_names[i % len(category_names)] + f" {i+1}", "slug": f"category-{i+1}"}
+        for i in range(num_categories)
+    ]
+    categories = post_batch("/api/v1/categories", category_rows)
+    category_ids = [category['id'] for category in categories]
+    categories_created = len(categories)
     
     print(f"Категорий создано: {categories_created}\n")
     
@@ -121,59 +67,64 @@ def seed_database(num_categories: int = 50, products_per_category: int = 30):
     product_adjectives = ["Premium", "Deluxe", "Professional", "Classic", "Modern", "Vintage", "Ultimate", "Essential"]
     product_types = ["Widget", "Gadget", "Tool", "Device", "Item", "Product", "Solution", "System"]
     
+    reviews_texts = [
+        "Excellent product! Highly recommend.",
+        "Good quality for the price.",
+        "Works as expected, very satisfied.",
+        "Great purchase, would buy again.",
+        "Outstanding quality and fast delivery."
+    ]
+    
     for cat_idx, category_id in enumerate(category_ids):
+        product_rows = []
         for prod_idx in range(products_per_category):
             adj = random.choice(product_adjectives)
             type_name = random.choice(product_types)
-            name = f"{adj} {type_name} {prod_idx+1}"
-            sku = f"SKU-{cat_idx+1:03d}-{prod_idx+1:04d}"
-            description = f"High-quality {type_name.lower()} with advanced features and excellent performance. " * 3
+            product_rows.append({
+                "name": f"{adj} {type_name} {prod_idx+1}",
+                "sku": f"SKU-{cat_idx+1:03d}-{prod_idx+1:04d}",
+                "description": f"High-quality {type_name.lower()} with advanced features and excellent performance. " * 3,
+                "categoryId": category_id
+            })
+        
+        products = post_batch("/api/v1/products", product_rows)
+        products_created += len(products)
+        
+        inventory_rows = []
+        price_rows = []
+        review_rows = []
+        for product in products:
+            product_id = product['id']
             
-            product = create_product(name, sku, description, category_id)
+            warehouse_ids = [1, 2, 3]
+            for warehouse_id in random.sample(warehouse_ids, random.randint(2, 3)):
+                inventory_rows.append({
+                    "productId": product_id,
+                    "quantity": random.randint(10, 500),
+                    "warehouseId": warehouse_id
+                })
             
-            if product:
-                product_id = product['id']
-                products_created += 1
-                
-                warehouse_ids = [1, 2, 3]
-                for warehouse_id in random.sample(warehouse_ids, random.randint(2, 3)):
-                    inventory = create_inventory(
-                        product_id,
-                        quantity=random.randint(10, 500),
-                        warehouse_id=warehouse_id
-                    )
-                    if inventory:
-                        inventory_created += 1
-                
-                currencies = [("USD", 1.0), ("EUR", 0.85), ("GBP", 0.73)]
-                base_price = random.uniform(9.99, 999.99)
-                for currency, rate in random.sample(currencies, random.randint(2, 3)):
-                    price = create_price(
-                        product_id,
-                        amount=round(base_price * rate, 2),
-                        currency=currency
-                    )
-                    if price:
-                        prices_created += 1
-                
-                reviews_texts = [
-                    "Excellent product! Highly recommend.",
-                    "Good quality for the price.",
-                    "Works as expected, very satisfied.",
-                    "Great purchase, would buy again.",
-                    "Outstanding quality and fast delivery."
-                ]
-                
-                for _ in range(random.randint(3, 5)):
-                    review = create_review(
-                        product_id,
-                        rating=random.randint(3, 5),
-                        text=random.choice(reviews_texts)
-                    )
-                    if review:
-                        reviews_created += 1
+            currencies = [("USD", 1.0), ("EUR", 0.85), ("GBP", 0.73)]
+            base_price = random.uniform(9.99, 999.99)
+            for currency, rate in random.sample(currencies, random.randint(2, 3)):
+                price_rows.append({
+                    "productId": product_id,
+                    "amount": str(round(base_price * rate, 2)),
+                    "currency": currency
+                })
+            
+            for _ in range(random.randint(3, 5)):
+                review_rows.append({
+                    "productId": product_id,
+                    "rating": random.randint(3, 5),
+                    "text": random.choice(reviews_texts)
+                })
+        
+        inventory_created += len(post_batch("/api/v1/inventory", inventory_rows))
+        prices_created += len(post_batch("/api/v1/product-prices", price_rows))
+        reviews_created += len(post_batch("/api/v1/reviews", review_rows))
         
-        print(f"   Категория {cat_idx+1}/{len(category_ids)}: {products_per_category} продуктов + данные")
+        print(f"   Категория {cat_idx+1}/{len(category_ids)}: {len(products)} продуктов + данные")
     
     elapsed_time = time.time() - start_time
     